@@ -1269,13 +1269,7 @@ public abstract class AbstractByteBuf extends ByteBuf {
         }
         checkIndex(fromIndex, toIndex - fromIndex);
 
-        for (int i = fromIndex; i < toIndex; i ++) {
-            if (_getByte(i) == value) {
-                return i;
-            }
-        }
-
-        return -1;
+        return ByteBufUtil.firstIndexOf(this, fromIndex, toIndex, value);
     }
 
     private int lastIndexOf(int fromIndex, int toIndex, byte value) {
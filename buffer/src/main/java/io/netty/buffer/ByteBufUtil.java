@@ -24,6 +24,7 @@ import io.netty.util.internal.ObjectPool;
 import io.netty.util.internal.ObjectPool.Handle;
 import io.netty.util.internal.ObjectPool.ObjectCreator;
 import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SWARUtil;
 import io.netty.util.internal.StringUtil;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
@@ -100,6 +101,11 @@ public final class ByteBufUtil {
 
     static final int MAX_TL_ARRAY_LEN = 1024;
 
+    /**
+     * Below this number of bytes the set-up cost of the word-at-a-time search is not worth it.
+     */
+    private static final int SWAR_MIN_LENGTH = 16;
+
     /**
      * Allocates a new array if minLength > {@link ByteBufUtil#MAX_TL_ARRAY_LEN}
      */
@@ -210,14 +216,30 @@ public final class ByteBufUtil {
      * Returns the reader index of needle in haystack, or -1 if needle is not in haystack.
      */
     public static int indexOf(ByteBuf needle, ByteBuf haystack) {
-        // TODO: maybe use Boyer Moore for efficiency.
-        int attempts = haystack.readableBytes() - needle.readableBytes() + 1;
-        for (int i = 0; i < attempts; i++) {
-            if (equals(needle, needle.readerIndex(),
-                       haystack, haystack.readerIndex() + i,
-                       needle.readableBytes())) {
-                return haystack.readerIndex() + i;
+        final int needleLength = needle.readableBytes();
+        if (needleLength > haystack.readableBytes()) {
+            return -1;
+        }
+        final int haystackStart = haystack.readerIndex();
+        if (needleLength == 0) {
+            return haystackStart;
+        }
+
+        // Use the (word-at-a-time) single byte search to skip to candidate positions and only then compare the
+        // remaining bytes of the needle.
+        final int needleStart = needle.readerIndex();
+        final byte first = needle.getByte(needleStart);
+        final int lastCandidate = haystack.writerIndex() - needleLength;
+        int i = haystackStart;
+        while (i <= lastCandidate) {
+            i = haystack.indexOf(i, lastCandidate + 1, first);
+            if (i == -1) {
+                return -1;
+            }
+            if (equals(needle, needleStart + 1, haystack, i + 1, needleLength - 1)) {
+                return i;
             }
+            i++;
         }
         return -1;
     }
@@ -461,9 +483,56 @@ public final class ByteBufUtil {
             return -1;
         }
 
+        if (buffer instanceof AbstractByteBuf) {
+            AbstractByteBuf buf = (AbstractByteBuf) buffer;
+            buf.checkIndex(fromIndex, toIndex - fromIndex);
+            return firstIndexOf(buf, fromIndex, toIndex, value);
+        }
         return buffer.forEachByte(fromIndex, toIndex - fromIndex, new ByteProcessor.IndexOfProcessor(value));
     }
 
+    /**
+     * Returns the index of the first occurrence of {@code value} in {@code buffer} between {@code fromIndex}
+     * (inclusive) and {@code toIndex} (exclusive), or {@code -1} if not found. The bounds are expected to be
+     * checked by the caller.
+     * <p>
+     * If the platform supports fast unaligned access eight bytes are compared at once using {@link SWARUtil}.
+     */
+    static int firstIndexOf(AbstractByteBuf buffer, int fromIndex, int toIndex, byte value) {
+        int length = toIndex - fromIndex;
+        if (length < SWAR_MIN_LENGTH || !PlatformDependent.isUnaligned()) {
+            return linearFirstIndexOf(buffer, fromIndex, toIndex, value);
+        }
+
+        // Check the leading length % 8 bytes one by one first, so that the main loop only ever reads whole words
+        // and never runs past toIndex.
+        final int byteCount = length & 7;
+        if (byteCount > 0) {
+            int index = linearFirstIndexOf(buffer, fromIndex, fromIndex + byteCount, value);
+            if (index != -1) {
+                return index;
+            }
+        }
+        final long pattern = SWARUtil.compilePattern(value);
+        for (int offset = fromIndex + byteCount; offset < toIndex; offset += 8) {
+            // _getLong(...) is always big-endian, which means the byte at the lowest index is the most significant.
+            long result = SWARUtil.applyPattern(buffer._getLong(offset), pattern);
+            if (result != 0) {
+                return offset + SWARUtil.getIndex(result, true);
+            }
+        }
+        return -1;
+    }
+
+    private static int linearFirstIndexOf(AbstractByteBuf buffer, int fromIndex, int toIndex, byte value) {
+        for (int i = fromIndex; i < toIndex; i ++) {
+            if (buffer._getByte(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private static int lastIndexOf(ByteBuf buffer, int fromIndex, int toIndex, byte value) {
         int capacity = buffer.capacity();
         fromIndex = Math.min(fromIndex, capacity);
@@ -571,6 +640,11 @@ public final class ByteBufUtil {
 
     // Fast-Path implementation
     static int writeUtf8(AbstractByteBuf buffer, int writerIndex, CharSequence seq, int start, int end) {
+        if (buffer.hasArray()) {
+            // Write directly into the backing array, which saves a virtual call and index calculation per byte.
+            final int offset = buffer.arrayOffset() + writerIndex;
+            return writeUtf8(buffer.array(), offset, seq, start, end) - offset;
+        }
         int oldWriterIndex = writerIndex;
 
         // We can use the _set methods as these not need to do any index checks and reference checks.
@@ -603,6 +677,58 @@ public final class ByteBufUtil {
         return writerIndex - oldWriterIndex;
     }
 
+    /**
+     * Same as {@link #writeUtf8(AbstractByteBuf, int, CharSequence, int, int)} but writes into a {@code byte[]}.
+     * Returns the index in {@code array} after the last byte written.
+     */
+    private static int writeUtf8(byte[] array, int index, CharSequence seq, int start, int end) {
+        int i = start;
+        // Most of the time we encode US-ASCII only, which is just a narrowing copy.
+        for (char c; i < end && (c = seq.charAt(i)) < 0x80; i++) {
+            array[index++] = (byte) c;
+        }
+        for (; i < end; i++) {
+            char c = seq.charAt(i);
+            if (c < 0x80) {
+                array[index++] = (byte) c;
+            } else if (c < 0x800) {
+                array[index++] = (byte) (0xc0 | (c >> 6));
+                array[index++] = (byte) (0x80 | (c & 0x3f));
+            } else if (isSurrogate(c)) {
+                if (!Character.isHighSurrogate(c)) {
+                    array[index++] = WRITE_UTF_UNKNOWN;
+                    continue;
+                }
+                // Surrogate Pair consumes 2 characters.
+                if (++i == end) {
+                    array[index++] = WRITE_UTF_UNKNOWN;
+                    break;
+                }
+                index = writeUtf8Surrogate(array, index, c, seq.charAt(i));
+            } else {
+                array[index++] = (byte) (0xe0 | (c >> 12));
+                array[index++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                array[index++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return index;
+    }
+
+    private static int writeUtf8Surrogate(byte[] array, int index, char c, char c2) {
+        if (!Character.isLowSurrogate(c2)) {
+            array[index++] = WRITE_UTF_UNKNOWN;
+            array[index++] = Character.isHighSurrogate(c2) ? WRITE_UTF_UNKNOWN : (byte) c2;
+            return index;
+        }
+        int codePoint = Character.toCodePoint(c, c2);
+        // See http://www.unicode.org/versions/Unicode7.0.0/ch03.pdf#G2630.
+        array[index++] = (byte) (0xf0 | (codePoint >> 18));
+        array[index++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+        array[index++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+        array[index++] = (byte) (0x80 | (codePoint & 0x3f));
+        return index;
+    }
+
     private static int writeUtf8Surrogate(AbstractByteBuf buffer, int writerIndex, char c, char c2) {
         if (!Character.isLowSurrogate(c2)) {
             buffer._setByte(writerIndex++, WRITE_UTF_UNKNOWN);
@@ -833,13 +959,37 @@ public final class ByteBufUtil {
             offset = 0;
             src.getBytes(readerIndex, array, 0, len);
         }
-        if (CharsetUtil.US_ASCII.equals(charset)) {
-            // Fast-path for US-ASCII which is used frequently.
+        if (CharsetUtil.US_ASCII.equals(charset) || CharsetUtil.ISO_8859_1.equals(charset) ||
+                CharsetUtil.UTF_8.equals(charset) && isAscii(array, offset, len)) {
+            // Fast-path for US-ASCII (and ISO-8859-1 / UTF-8 that only contains US-ASCII) which is used frequently.
+            // Each byte maps to exactly one char, so we can skip the CharsetDecoder.
             return new String(array, 0, offset, len);
         }
         return new String(array, offset, len, charset);
     }
 
+    /**
+     * Returns {@code true} if {@code array} only contains US-ASCII between {@code offset} and
+     * {@code offset + length}. Checks eight bytes at once if possible.
+     */
+    private static boolean isAscii(byte[] array, int offset, int length) {
+        int i = offset;
+        final int end = offset + length;
+        if (PlatformDependent.hasUnsafe() && PlatformDependent.isUnaligned()) {
+            for (final int longEnd = end - 7; i < longEnd; i += 8) {
+                if (SWARUtil.containsNonAscii(PlatformDependent.getLong(array, i))) {
+                    return false;
+                }
+            }
+        }
+        for (; i < end; i++) {
+            if (array[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Returns a cached thread-local direct buffer, if available.
      *
@@ -1311,6 +1461,17 @@ public final class ByteBufUtil {
      * @param length The length of the specified buffer.
      */
     private static boolean isAscii(ByteBuf buf, int index, int length) {
+        if (length >= SWAR_MIN_LENGTH && PlatformDependent.isUnaligned()) {
+            // Check eight bytes at once and only fall back to the ByteProcessor for the remaining tail.
+            final int longCount = length >>> 3;
+            for (int i = 0; i < longCount; i++) {
+                if (SWARUtil.containsNonAscii(buf.getLong(index))) {
+                    return false;
+                }
+                index += 8;
+            }
+            length &= 7;
+        }
         return buf.forEachByte(index, length, FIND_NON_ASCII) == -1;
     }
 
@@ -1359,11 +1520,18 @@ public final class ByteBufUtil {
      */
     private static boolean isUtf8(ByteBuf buf, int index, int length) {
         final int endIndex = index + length;
+        final boolean swar = length >= SWAR_MIN_LENGTH && PlatformDependent.isUnaligned();
         while (index < endIndex) {
             byte b1 = buf.getByte(index++);
             byte b2, b3, b4;
             if ((b1 & 0x80) == 0) {
                 // 1 byte
+                if (swar) {
+                    // US-ASCII usually comes in runs, skip over these eight bytes at once.
+                    while (endIndex - index >= 8 && !SWARUtil.containsNonAscii(buf.getLong(index))) {
+                        index += 8;
+                    }
+                }
                 continue;
             }
             if ((b1 & 0xE0) == 0xC0) {
@@ -20,7 +20,6 @@ import io.netty.util.IllegalReferenceCountException;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.EmptyArrays;
 import io.netty.util.internal.ObjectUtil;
-import io.netty.util.internal.RecyclableArrayList;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -538,7 +537,26 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         // operation.
         int size = componentCount;
         if (size > maxNumComponents) {
-            consolidate0(0, size);
+            // Instead of copying everything into a single buffer only merge the adjacent components that contain the
+            // fewest bytes. Merging (at least) half of the allowed components at once leaves room for the following
+            // additions so the copying is amortized, while already merged (big) components are usually left alone.
+            final int numComponents = Math.max(size - maxNumComponents + 1, (maxNumComponents + 1) >>> 1);
+            if (numComponents >= size - 1) {
+                // At most one component would be left alone, so there is nothing to gain and we merge all of them
+                // into a single buffer as before.
+                consolidate0(0, size);
+                return;
+            }
+            int cIndex = 0;
+            int minBytes = components[numComponents - 1].endOffset;
+            for (int i = 1, last = numComponents; last < size; i++, last++) {
+                int bytes = components[last].endOffset - components[i].offset;
+                if (bytes < minBytes) {
+                    minBytes = bytes;
+                    cIndex = i;
+                }
+            }
+            consolidate0(cIndex, numComponents);
         }
     }
 
@@ -1654,32 +1672,67 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
             return new ByteBuffer[] { EMPTY_NIO_BUFFER };
         }
 
-        RecyclableArrayList buffers = RecyclableArrayList.newInstance(componentCount);
-        try {
-            int i = toComponentIndex0(index);
-            while (length > 0) {
-                Component c = components[i];
-                ByteBuf s = c.buf;
-                int localLength = Math.min(length, c.endOffset - index);
-                switch (s.nioBufferCount()) {
-                case 0:
-                    throw new UnsupportedOperationException();
-                case 1:
-                    buffers.add(s.nioBuffer(c.idx(index), localLength));
-                    break;
-                default:
-                    Collections.addAll(buffers, s.nioBuffers(c.idx(index), localLength));
-                }
-
-                index += localLength;
-                length -= localLength;
-                i ++;
+        int i = toComponentIndex0(index);
+        // Most components expose exactly one ByteBuffer so size the array for that and only grow it if needed.
+        ByteBuffer[] buffers = new ByteBuffer[toComponentIndex0(index + length - 1) - i + 1];
+        int count = 0;
+        while (length > 0) {
+            Component c = components[i];
+            ByteBuf s = c.buf;
+            int localLength = Math.min(length, c.endOffset - index);
+            switch (s.nioBufferCount()) {
+            case 0:
+                throw new UnsupportedOperationException();
+            case 1:
+                buffers[count++] = s.nioBuffer(c.idx(index), localLength);
+                break;
+            default:
+                ByteBuffer[] nested = s.nioBuffers(c.idx(index), localLength);
+                ByteBuffer[] expanded = new ByteBuffer[buffers.length + nested.length - 1];
+                System.arraycopy(buffers, 0, expanded, 0, count);
+                System.arraycopy(nested, 0, expanded, count, nested.length);
+                buffers = expanded;
+                count += nested.length;
             }
 
-            return buffers.toArray(new ByteBuffer[0]);
-        } finally {
-            buffers.recycle();
+            index += localLength;
+            length -= localLength;
+            i ++;
         }
+        assert count == buffers.length;
+        return buffers;
+    }
+
+    /**
+     * Calls {@link ComponentProcessor#processComponent(ByteBuf, int, int)} with every region of the underlying
+     * buffers that make up the specified range of this buffer, in order. Unlike {@link #nioBuffers(int, int)} this
+     * does not create any slices or {@link ByteBuffer}s, so it can be used to collect the memory addresses of a
+     * scattered buffer for a gathering write without producing garbage. Nested {@link CompositeByteBuf}s are
+     * visited recursively.
+     *
+     * @return {@code true} if all regions were processed, or {@code false} if the processor returned {@code false}.
+     */
+    public boolean forEachComponent(int index, int length, ComponentProcessor processor) {
+        checkIndex(index, length);
+        checkNotNull(processor, "processor");
+        for (int i = length == 0 ? 0 : toComponentIndex0(index); length > 0; i++) {
+            Component c = components[i];
+            if (c.offset == c.endOffset) {
+                continue; // empty
+            }
+            ByteBuf s = c.buf;
+            int localIndex = c.idx(index);
+            int localLength = Math.min(length, c.endOffset - index);
+            boolean result = s instanceof CompositeByteBuf
+                ? ((CompositeByteBuf) s).forEachComponent(localIndex, localLength, processor)
+                : processor.processComponent(s, localIndex, localLength);
+            if (!result) {
+                return false;
+            }
+            index += localLength;
+            length -= localLength;
+        }
+        return true;
     }
 
     /**
@@ -1764,11 +1817,12 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         if (la != null && la.endOffset <= readerIndex) {
             lastAccessed = null;
         }
-        removeCompRange(0, firstComponentId);
 
-        // Update indexes and markers.
+        // Move the remaining components to the front and update their offsets in a single pass.
         int offset = c.offset;
-        updateComponentOffsets(0);
+        removeCompRangeAndShiftOffsets(firstComponentId, offset);
+
+        // Update indexes and markers.
         setIndex(readerIndex - offset, writerIndex - offset);
         adjustMarkers(offset);
         return this;
@@ -1807,10 +1861,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
         // Replace the first readable component with a new slice.
         int trimmedBytes = readerIndex - c.offset;
-        c.offset = 0;
-        c.endOffset -= readerIndex;
-        c.srcAdjustment += readerIndex;
-        c.adjustment += readerIndex;
+        c.offset = readerIndex;
         ByteBuf slice = c.slice;
         if (slice != null) {
             // We must replace the cached slice with a derived one to ensure that
@@ -1822,10 +1873,10 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
             lastAccessed = null;
         }
 
-        removeCompRange(0, firstComponentId);
+        // Move the remaining components to the front and update their offsets in a single pass.
+        removeCompRangeAndShiftOffsets(firstComponentId, readerIndex);
 
         // Update indexes and markers.
-        updateComponentOffsets(0);
         setIndex(0, writerIndex - readerIndex);
         adjustMarkers(readerIndex);
         return this;
@@ -1842,6 +1893,21 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         return result + ", components=" + componentCount + ')';
     }
 
+    /**
+     * Processes the regions of the buffers that make up a {@link CompositeByteBuf}.
+     *
+     * @see #forEachComponent(int, int, ComponentProcessor)
+     */
+    public interface ComponentProcessor {
+        /**
+         * Processes {@code length} bytes of {@code buf} starting at {@code index}. The given {@link ByteBuf} is
+         * never a {@link CompositeByteBuf} and must not be modified or released.
+         *
+         * @return {@code true} if the processor wants to continue, {@code false} to stop.
+         */
+        boolean processComponent(ByteBuf buf, int index, int length);
+    }
+
     private static final class Component {
         final ByteBuf srcBuf; // the originally added buffer
         final ByteBuf buf; // srcBuf unwrapped zero or more times
@@ -2287,6 +2353,27 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         componentCount = newSize;
     }
 
+    /**
+     * Removes the components in the range {@code [0, from)} and moves all others {@code offset} bytes to the front.
+     * This is the same as {@code removeCompRange(0, from)} followed by {@code updateComponentOffsets(0)} but only
+     * needs to visit each component once. The component at {@code from} must start at {@code offset}.
+     */
+    private void removeCompRangeAndShiftOffsets(int from, int offset) {
+        final Component[] components = this.components;
+        final int size = componentCount;
+        assert from >= 0 && from <= size;
+        for (int i = from; i < size; i++) {
+            Component c = components[i];
+            c.reposition(c.offset - offset);
+            components[i - from] = c;
+        }
+        int newSize = size - from;
+        for (int i = newSize; i < size; i++) {
+            components[i] = null;
+        }
+        componentCount = newSize;
+    }
+
     private void addComp(int i, Component c) {
         shiftComps(i, 1);
         components[i] = c;
@@ -879,6 +879,11 @@ class WrappedCompositeByteBuf extends CompositeByteBuf {
         return wrapped.nioBuffers(index, length);
     }
 
+    @Override
+    public boolean forEachComponent(int index, int length, ComponentProcessor processor) {
+        return wrapped.forEachComponent(index, length, processor);
+    }
+
     @Override
     public CompositeByteBuf consolidate() {
         wrapped.consolidate();
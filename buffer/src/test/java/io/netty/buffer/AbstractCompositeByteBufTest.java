@@ -24,6 +24,7 @@ import org.junit.Test;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
@@ -237,6 +238,52 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
         buf.release();
     }
 
+    @Test
+    public void testAutoConsolidationMergesSmallestComponents() {
+        CompositeByteBuf buf = compositeBuffer(4);
+
+        buf.addComponent(true, wrappedBuffer(new byte[] { 1, 2, 3 }));
+        buf.addComponent(true, wrappedBuffer(new byte[] { 4 }));
+        buf.addComponent(true, wrappedBuffer(new byte[] { 5 }));
+        buf.addComponent(true, wrappedBuffer(new byte[] { 6, 7, 8, 9 }));
+        assertEquals(4, buf.numComponents());
+
+        buf.addComponent(true, wrappedBuffer(new byte[] { 10 }));
+
+        // Only the two smallest adjacent components should have been merged.
+        assertEquals(4, buf.numComponents());
+        assertEquals(wrappedBuffer(new byte[] { 1, 2, 3 }), buf.component(0));
+        assertEquals(wrappedBuffer(new byte[] { 4, 5 }), buf.component(1));
+        assertEquals(wrappedBuffer(new byte[] { 6, 7, 8, 9 }), buf.component(2));
+        assertEquals(wrappedBuffer(new byte[] { 10 }), buf.component(3));
+        assertEquals(wrappedBuffer(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 }), buf);
+
+        buf.release();
+    }
+
+    @Test
+    public void testAutoConsolidationManyComponents() {
+        int maxNumComponents = 16;
+        CompositeByteBuf buf = compositeBuffer(maxNumComponents);
+        ByteBuf expected = buffer();
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[i % 7 + 1];
+            Arrays.fill(bytes, (byte) i);
+            buf.addComponent(true, wrappedBuffer(bytes));
+            expected.writeBytes(bytes);
+            assertTrue(buf.numComponents() <= maxNumComponents);
+            if (i % 100 == 0) {
+                buf.skipBytes(buf.readableBytes() / 2);
+                buf.discardReadComponents();
+                expected.skipBytes(expected.readableBytes() - buf.readableBytes());
+            }
+        }
+        assertEquals(expected, buf);
+
+        buf.release();
+        expected.release();
+    }
+
     @Test
     public void testCompositeToSingleBuffer() {
         CompositeByteBuf buf = compositeBuffer(3);
@@ -745,6 +792,63 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
         buf.release();
     }
 
+    @Test
+    public void testNioBuffersNestedComposite() {
+        CompositeByteBuf buf = compositeBuffer();
+        buf.addComponent(true, wrappedBuffer(new byte[]{1}));
+        buf.addComponent(true, compositeBuffer()
+                .addComponent(true, wrappedBuffer(new byte[]{2, 3}))
+                .addComponent(true, wrappedBuffer(new byte[]{4})));
+        buf.addComponent(true, wrappedBuffer(new byte[]{5}));
+
+        ByteBuffer[] nioBuffers = buf.nioBuffers(0, 5);
+        assertThat(nioBuffers.length, is(4));
+        assertThat(nioBuffers[0].get(), is((byte) 1));
+        assertThat(nioBuffers[1].remaining(), is(2));
+        assertThat(nioBuffers[1].get(1), is((byte) 3));
+        assertThat(nioBuffers[2].get(), is((byte) 4));
+        assertThat(nioBuffers[3].get(), is((byte) 5));
+
+        buf.release();
+    }
+
+    @Test
+    public void testForEachComponent() {
+        CompositeByteBuf buf = compositeBuffer();
+        buf.addComponent(true, wrappedBuffer(new byte[]{1, 2}));
+        buf.addComponent(true, compositeBuffer()
+                .addComponent(true, wrappedBuffer(new byte[]{3, 4}))
+                .addComponent(true, wrappedBuffer(new byte[]{5, 6})));
+        buf.addComponent(true, wrappedBuffer(new byte[]{7, 8}));
+
+        final ByteBuf collected = buffer();
+        final List<Integer> lengths = new ArrayList<Integer>();
+        assertTrue(buf.forEachComponent(1, 6, new CompositeByteBuf.ComponentProcessor() {
+            @Override
+            public boolean processComponent(ByteBuf buf, int index, int length) {
+                assertFalse(buf instanceof CompositeByteBuf);
+                lengths.add(length);
+                collected.writeBytes(buf, index, length);
+                return true;
+            }
+        }));
+        assertEquals(Arrays.asList(1, 2, 2, 1), lengths);
+        assertEquals(wrappedBuffer(new byte[]{2, 3, 4, 5, 6, 7}), collected);
+
+        lengths.clear();
+        assertFalse(buf.forEachComponent(0, 8, new CompositeByteBuf.ComponentProcessor() {
+            @Override
+            public boolean processComponent(ByteBuf buf, int index, int length) {
+                lengths.add(length);
+                return lengths.size() < 2;
+            }
+        }));
+        assertEquals(Arrays.asList(2, 2), lengths);
+
+        collected.release();
+        buf.release();
+    }
+
     @Test
     public void testRemoveLastComponent() {
         CompositeByteBuf buf = compositeBuffer();
@@ -134,6 +134,68 @@ public class ByteBufUtilTest {
                 -1));
     }
 
+    @Test
+    @SuppressWarnings("deprecation") // order(ByteOrder) is used to also cover swapped buffers.
+    public void testIndexOfByte() {
+        byte[] bytes = new byte[67];
+        Arrays.fill(bytes, (byte) 'a');
+        ByteBuf[] buffers = { Unpooled.wrappedBuffer(bytes), Unpooled.directBuffer().writeBytes(bytes),
+                Unpooled.wrappedBuffer(bytes).order(ByteOrder.LITTLE_ENDIAN) };
+        try {
+            for (ByteBuf buffer : buffers) {
+                for (int i = 0; i < bytes.length; i++) {
+                    buffer.setByte(i, '\n');
+                    for (int from = 0; from <= i; from++) {
+                        assertEquals(i, buffer.indexOf(from, bytes.length, (byte) '\n'));
+                        assertEquals(i, ByteBufUtil.indexOf(buffer, from, bytes.length, (byte) '\n'));
+                    }
+                    assertEquals(-1, buffer.indexOf(i + 1, bytes.length, (byte) '\n'));
+                    assertEquals(-1, buffer.indexOf(0, i, (byte) '\n'));
+                    buffer.setByte(i, 'a');
+                }
+            }
+        } finally {
+            for (ByteBuf buffer : buffers) {
+                buffer.release();
+            }
+        }
+    }
+
+    @Test
+    public void testIndexOfBuffer() {
+        ByteBuf haystack = Unpooled.copiedBuffer("abc\r\nabc\rabc\r\n\r\nabc\r\n\r\n", CharsetUtil.US_ASCII);
+        ByteBuf needle = Unpooled.copiedBuffer("\r\n\r\n", CharsetUtil.US_ASCII);
+        ByteBuf empty = Unpooled.EMPTY_BUFFER;
+        try {
+            assertEquals(12, ByteBufUtil.indexOf(needle, haystack));
+            haystack.readerIndex(13);
+            assertEquals(19, ByteBufUtil.indexOf(needle, haystack));
+            haystack.readerIndex(20);
+            assertEquals(-1, ByteBufUtil.indexOf(needle, haystack));
+            assertEquals(20, ByteBufUtil.indexOf(empty, haystack));
+        } finally {
+            haystack.release();
+            needle.release();
+        }
+    }
+
+    @Test
+    public void testIsTextAsciiLong() {
+        byte[] bytes = new byte[41];
+        Arrays.fill(bytes, (byte) 'a');
+        ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+        try {
+            assertTrue(ByteBufUtil.isText(buffer, CharsetUtil.US_ASCII));
+            for (int i = 0; i < bytes.length; i++) {
+                buffer.setByte(i, 0x80);
+                assertFalse(ByteBufUtil.isText(buffer, CharsetUtil.US_ASCII));
+                buffer.setByte(i, 'a');
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     public void writeShortBE() {
@@ -625,6 +687,35 @@ public class ByteBufUtilTest {
         testDecodeString("Some UTF-8 like äÄ∏ŒŒ", CharsetUtil.UTF_8);
     }
 
+    @Test
+    public void testDecodeLatin1() {
+        testDecodeString("Some ISO-8859-1 like \u00e4\u00c4\u00ff and a bit more text", CharsetUtil.ISO_8859_1);
+    }
+
+    @Test
+    public void testDecodeUtf8Long() {
+        testDecodeString("Only ASCII but long enough to be checked a few words at once", CharsetUtil.UTF_8);
+        testDecodeString("Mostly ASCII but long enough to be checked a few words at once \u00e4", CharsetUtil.UTF_8);
+        testDecodeString("\u4e2d\u6587\u5b57\u7b26\u4e32\u6d4b\u8bd5\u4e2d\u6587\u5b57", CharsetUtil.UTF_8);
+    }
+
+    @Test
+    public void testWriteUtf8HeapWithArrayOffset() {
+        String text = "Mostly ASCII \u00e4\u00c4\u220f\u0152 \ud800\udf48 \u4e2d\u6587 and \udc00 invalid \ud800";
+        int maxBytes = ByteBufUtil.utf8MaxBytes(text);
+        ByteBuf expectedBuf = Unpooled.directBuffer(maxBytes);
+        ByteBufUtil.writeUtf8(expectedBuf, text);
+
+        ByteBuf heap = Unpooled.buffer(maxBytes + 16).slice(8, maxBytes);
+        heap.writerIndex(0);
+        assertTrue(heap.hasArray());
+        assertEquals(expectedBuf.readableBytes(), ByteBufUtil.writeUtf8(heap, text));
+        assertEquals(expectedBuf, heap);
+
+        expectedBuf.release();
+        heap.release();
+    }
+
     private static void testDecodeString(String text, Charset charset) {
         ByteBuf buffer = Unpooled.copiedBuffer(text, charset);
         assertEquals(text, ByteBufUtil.decodeString(buffer, 0, buffer.readableBytes(), charset));
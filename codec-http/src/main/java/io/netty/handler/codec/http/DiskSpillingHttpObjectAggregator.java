@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * A {@link HttpObjectAggregator} that keeps only the first {@code maxInMemoryContentLength} bytes of a message in
+ * memory and writes the rest of the content to a temporary file while aggregating.
+ * <p>
+ * The content of the resulting {@link FullHttpMessage} is a {@link CompositeByteBuf} of the bytes in memory followed
+ * by a memory mapping of the temporary file, so the spilled part is backed by the file instead of the heap or direct
+ * memory. The file is unmapped and deleted once the message is released.
+ * <p>
+ * An optional {@link HttpAggregatorMemoryBudget} can be shared by the aggregators of many channels to also limit the
+ * content that all of them keep in memory together. If the budget is used up, the content of a message is written to
+ * disk from the start. The memory is given back to the budget once the aggregated message is passed on.
+ */
+public class DiskSpillingHttpObjectAggregator extends HttpObjectAggregator {
+
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(DiskSpillingHttpObjectAggregator.class);
+
+    private final int maxInMemoryContentLength;
+    private final HttpAggregatorMemoryBudget memoryBudget;
+    private final File directory;
+
+    // State of the message that is currently aggregated.
+    private int reservedBytes;
+    private File spillFile;
+    private FileChannel spillChannel;
+    private int spilledBytes;
+
+    /**
+     * Creates a new instance that writes to the default temporary-file directory.
+     *
+     * @param maxContentLength
+     *        the maximum length of the aggregated content in bytes, including the part written to disk.
+     * @param maxInMemoryContentLength
+     *        the maximum length of the content of a message that is kept in memory.
+     */
+    public DiskSpillingHttpObjectAggregator(int maxContentLength, int maxInMemoryContentLength) {
+        this(maxContentLength, false, maxInMemoryContentLength, null, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxContentLength
+     *        the maximum length of the aggregated content in bytes, including the part written to disk.
+     * @param closeOnExpectationFailed
+     *        see {@link HttpObjectAggregator#HttpObjectAggregator(int, boolean)}.
+     * @param maxInMemoryContentLength
+     *        the maximum length of the content of a message that is kept in memory.
+     * @param memoryBudget
+     *        the budget shared with other aggregators, or {@code null} for none.
+     * @param directory
+     *        the directory of the temporary files, or {@code null} for the default temporary-file directory.
+     */
+    public DiskSpillingHttpObjectAggregator(int maxContentLength, boolean closeOnExpectationFailed,
+                                            int maxInMemoryContentLength, HttpAggregatorMemoryBudget memoryBudget,
+                                            File directory) {
+        super(maxContentLength, closeOnExpectationFailed);
+        this.maxInMemoryContentLength = checkPositiveOrZero(maxInMemoryContentLength, "maxInMemoryContentLength");
+        this.memoryBudget = memoryBudget;
+        this.directory = directory;
+    }
+
+    @Override
+    protected FullHttpMessage beginAggregation(HttpMessage start, ByteBuf content) throws Exception {
+        FullHttpMessage aggregated = super.beginAggregation(start, content);
+        spillIfNeeded(aggregated);
+        return aggregated;
+    }
+
+    @Override
+    protected void aggregate(FullHttpMessage aggregated, HttpContent content) throws Exception {
+        super.aggregate(aggregated, content);
+        spillIfNeeded(aggregated);
+    }
+
+    @Override
+    protected int aggregatedContentLength(FullHttpMessage aggregated) throws Exception {
+        return super.aggregatedContentLength(aggregated) + spilledBytes;
+    }
+
+    @Override
+    protected void finishAggregation(FullHttpMessage aggregated) throws Exception {
+        try {
+            if (spillChannel != null) {
+                CompositeByteBuf content = (CompositeByteBuf) aggregated.content();
+                if (content.numComponents() >= content.maxNumComponents()) {
+                    // Make room for the mapped file, adding it to a full buffer would copy it into memory.
+                    content.consolidate();
+                }
+                FileChannel channel = spillChannel;
+                spillChannel = null;
+                content.addComponent(true, MappedFileByteBuf.map(content.alloc(), spillFile, channel, spilledBytes));
+                spillFile = null;
+            }
+        } finally {
+            reset();
+        }
+        super.finishAggregation(aggregated);
+    }
+
+    @Override
+    protected void handleOversizedMessage(ChannelHandlerContext ctx, HttpMessage oversized) throws Exception {
+        reset();
+        super.handleOversizedMessage(ctx, oversized);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        try {
+            super.channelInactive(ctx);
+        } finally {
+            reset();
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        try {
+            super.handlerRemoved(ctx);
+        } finally {
+            reset();
+        }
+    }
+
+    private void spillIfNeeded(FullHttpMessage aggregated) throws IOException {
+        if (!(aggregated.content() instanceof CompositeByteBuf)) {
+            // A message that failed to decode, it is passed on as it is.
+            return;
+        }
+        CompositeByteBuf content = (CompositeByteBuf) aggregated.content();
+        int inMemory = content.readableBytes();
+        if (spillChannel == null) {
+            int wanted = Math.min(inMemory, maxInMemoryContentLength);
+            if (wanted > reservedBytes) {
+                int missing = wanted - reservedBytes;
+                reservedBytes += memoryBudget == null ? missing : memoryBudget.reserve(missing);
+            }
+            if (inMemory <= reservedBytes) {
+                return;
+            }
+            spillFile = File.createTempFile("netty-aggregator-", ".tmp", directory);
+            spillChannel = new RandomAccessFile(spillFile, "rw").getChannel();
+        }
+
+        // Once spilling started everything past the bytes kept in memory goes to the file, so the order is kept.
+        int keep = reservedBytes;
+        ByteBuf excess = content.slice(content.readerIndex() + keep, inMemory - keep);
+        ByteBuffer[] buffers = excess.nioBuffers();
+        long length = excess.readableBytes();
+        long written = 0;
+        while (written < length) {
+            written += spillChannel.write(buffers);
+        }
+        spilledBytes += (int) length;
+        content.capacity(content.readerIndex() + keep);
+    }
+
+    private void reset() {
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close the temporary file: {}", spillFile, e);
+            }
+            spillChannel = null;
+        }
+        if (spillFile != null) {
+            if (!spillFile.delete()) {
+                logger.debug("Failed to delete the temporary file: {}", spillFile);
+            }
+            spillFile = null;
+        }
+        spilledBytes = 0;
+        if (memoryBudget != null && reservedBytes > 0) {
+            memoryBudget.release(reservedBytes);
+        }
+        reservedBytes = 0;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * Limits the content that all {@link DiskSpillingHttpObjectAggregator}s sharing this instance keep in memory while
+ * they aggregate messages. Once the budget is used up, further content is written to disk until aggregating
+ * messages complete and give their share back.
+ * <p>
+ * This class is thread-safe, so one instance can be shared by the aggregators of all channels of a server.
+ */
+public final class HttpAggregatorMemoryBudget {
+
+    private final long maxBytes;
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxBytes the maximum number of content bytes kept in memory by all aggregators together
+     */
+    public HttpAggregatorMemoryBudget(long maxBytes) {
+        this.maxBytes = checkPositiveOrZero(maxBytes, "maxBytes");
+    }
+
+    /**
+     * Returns the maximum number of content bytes kept in memory by all aggregators together.
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the number of content bytes currently kept in memory by aggregating messages.
+     */
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Reserves up to {@code bytes} bytes and returns the number of bytes that were actually reserved.
+     */
+    int reserve(int bytes) {
+        for (;;) {
+            long used = usedBytes.get();
+            long granted = Math.min(bytes, maxBytes - used);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (usedBytes.compareAndSet(used, used + granted)) {
+                return (int) granted;
+            }
+        }
+    }
+
+    void release(int bytes) {
+        usedBytes.addAndGet(-bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "HttpAggregatorMemoryBudget(used: " + usedBytes() + ", max: " + maxBytes + ')';
+    }
+}
@@ -15,24 +15,49 @@
  */
 package io.netty.handler.codec.http;
 
+import static io.netty.handler.codec.http.HttpHeaderValues.BR;
+import static io.netty.handler.codec.http.HttpHeaderValues.DEFLATE;
+import static io.netty.handler.codec.http.HttpHeaderValues.GZIP;
+import static io.netty.handler.codec.http.HttpHeaderValues.ZSTD;
+
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.BrotliOptions;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.DeflateOptions;
+import io.netty.handler.codec.compression.GzipOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
 import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.compression.ZstdEncoder;
+import io.netty.handler.codec.compression.ZstdOptions;
+
+import java.security.AccessController;
+import java.security.PrivilegedExceptionAction;
 
 /**
- * Compresses an {@link HttpMessage} and an {@link HttpContent} in {@code gzip} or
+ * Compresses an {@link HttpMessage} and an {@link HttpContent} in {@code br}, {@code zstd}, {@code gzip} or
  * {@code deflate} encoding while respecting the {@code "Accept-Encoding"} header.
  * If there is no matching encoding, no compression is done.  For more
  * information on how this handler modifies the message, please refer to
  * {@link HttpContentEncoder}.
+ * <p>
+ * The encodings that may be used and their options are configured via {@link CompressionOptions}. The constructors
+ * that take a compression level, window size and memory level only enable {@code gzip} and {@code deflate}.
  */
 public class HttpContentCompressor extends HttpContentEncoder {
 
-    private final int compressionLevel;
-    private final int windowBits;
-    private final int memLevel;
+    private final BrotliOptions brotliOptions;
+    private final ZstdOptions zstdOptions;
+    private final GzipOptions gzipOptions;
+    private final DeflateOptions deflateOptions;
     private final int contentSizeThreshold;
+    // true if a sub-class still overrides the deprecated determineWrapper(String), which is honoured then.
+    private final boolean determineWrapperOverridden = isDetermineWrapperOverridden(getClass());
     private ChannelHandlerContext ctx;
 
     /**
@@ -103,27 +128,100 @@ public class HttpContentCompressor extends HttpContentEncoder {
      *        number. {@code 0} will enable compression for all responses.
      */
     public HttpContentCompressor(int compressionLevel, int windowBits, int memLevel, int contentSizeThreshold) {
-        if (compressionLevel < 0 || compressionLevel > 9) {
-            throw new IllegalArgumentException(
-                    "compressionLevel: " + compressionLevel +
-                    " (expected: 0-9)");
-        }
-        if (windowBits < 9 || windowBits > 15) {
-            throw new IllegalArgumentException(
-                    "windowBits: " + windowBits + " (expected: 9-15)");
+        this.contentSizeThreshold = checkContentSizeThreshold(contentSizeThreshold);
+        brotliOptions = null;
+        zstdOptions = null;
+        gzipOptions = StandardCompressionOptions.gzip(compressionLevel, windowBits, memLevel);
+        deflateOptions = StandardCompressionOptions.deflate(compressionLevel, windowBits, memLevel);
+    }
+
+    /**
+     * Creates a new handler that uses the encodings of the given {@link CompressionOptions}.
+     *
+     * @param compressionOptions
+     *        The options of the encodings that may be used, see {@link StandardCompressionOptions}. If none are
+     *        given {@code br} and {@code zstd} (if available), {@code gzip} and {@code deflate} are used with their
+     *        default options. {@code br} and {@code zstd} are ignored if their library is not available.
+     */
+    public HttpContentCompressor(CompressionOptions... compressionOptions) {
+        this(0, compressionOptions);
+    }
+
+    /**
+     * Creates a new handler that uses the encodings of the given {@link CompressionOptions}.
+     *
+     * @param contentSizeThreshold
+     *        The response body is compressed when the size of the response
+     *        body exceeds the threshold. The value should be a non negative
+     *        number. {@code 0} will enable compression for all responses.
+     * @param compressionOptions
+     *        The options of the encodings that may be used, see {@link StandardCompressionOptions}. If none are
+     *        given {@code br} and {@code zstd} (if available), {@code gzip} and {@code deflate} are used with their
+     *        default options. {@code br} and {@code zstd} are ignored if their library is not available.
+     */
+    public HttpContentCompressor(int contentSizeThreshold, CompressionOptions... compressionOptions) {
+        this.contentSizeThreshold = checkContentSizeThreshold(contentSizeThreshold);
+        if (compressionOptions == null || compressionOptions.length == 0) {
+            compressionOptions = new CompressionOptions[] {
+                    StandardCompressionOptions.brotli(), StandardCompressionOptions.zstd(),
+                    StandardCompressionOptions.gzip(), StandardCompressionOptions.deflate() };
         }
-        if (memLevel < 1 || memLevel > 9) {
-            throw new IllegalArgumentException(
-                    "memLevel: " + memLevel + " (expected: 1-9)");
+        BrotliOptions brotliOptions = null;
+        ZstdOptions zstdOptions = null;
+        GzipOptions gzipOptions = null;
+        DeflateOptions deflateOptions = null;
+        for (CompressionOptions options : compressionOptions) {
+            if (options instanceof BrotliOptions) {
+                if (Brotli.isAvailable()) {
+                    brotliOptions = (BrotliOptions) options;
+                }
+            } else if (options instanceof ZstdOptions) {
+                if (Zstd.isAvailable()) {
+                    zstdOptions = (ZstdOptions) options;
+                }
+            } else if (options instanceof GzipOptions) {
+                gzipOptions = (GzipOptions) options;
+            } else if (options instanceof DeflateOptions) {
+                deflateOptions = (DeflateOptions) options;
+            } else {
+                throw new IllegalArgumentException("Unsupported " + CompressionOptions.class.getSimpleName() +
+                        ": " + options);
+            }
         }
+        this.brotliOptions = brotliOptions;
+        this.zstdOptions = zstdOptions;
+        this.gzipOptions = gzipOptions;
+        this.deflateOptions = deflateOptions;
+    }
+
+    private static int checkContentSizeThreshold(int contentSizeThreshold) {
         if (contentSizeThreshold < 0) {
             throw new IllegalArgumentException(
                     "contentSizeThreshold: " + contentSizeThreshold + " (expected: non negative number)");
         }
-        this.compressionLevel = compressionLevel;
-        this.windowBits = windowBits;
-        this.memLevel = memLevel;
-        this.contentSizeThreshold = contentSizeThreshold;
+        return contentSizeThreshold;
+    }
+
+    private static boolean isDetermineWrapperOverridden(final Class<?> clazz) {
+        try {
+            return AccessController.doPrivileged(new PrivilegedExceptionAction<Boolean>() {
+                @Override
+                public Boolean run() throws Exception {
+                    for (Class<?> c = clazz; c != HttpContentCompressor.class; c = c.getSuperclass()) {
+                        try {
+                            c.getDeclaredMethod("determineWrapper", String.class);
+                            return true;
+                        } catch (NoSuchMethodException ignore) {
+                            // Not declared by this class, try the super-class.
+                        }
+                    }
+                    return false;
+                }
+            });
+        } catch (Throwable t) {
+            // Assume the method is overridden so a custom implementation is never ignored.
+            return true;
+        }
     }
 
     @Override
@@ -147,30 +245,143 @@ public class HttpContentCompressor extends HttpContentEncoder {
             return null;
         }
 
+        String targetContentEncoding = determineWrapperOverridden ?
+                determineEncodingFromWrapper(acceptEncoding) : determineEncoding(acceptEncoding);
+        if (targetContentEncoding == null) {
+            return null;
+        }
+
+        ChannelHandler encoder;
+        if (BR.contentEquals(targetContentEncoding)) {
+            encoder = new BrotliEncoder(brotliOptions);
+        } else if (ZSTD.contentEquals(targetContentEncoding)) {
+            encoder = new ZstdEncoder(zstdOptions);
+        } else if (GZIP.contentEquals(targetContentEncoding)) {
+            // The options may be missing if an overridden determineWrapper(String) chose the encoding.
+            GzipOptions options = gzipOptions != null ? gzipOptions : StandardCompressionOptions.gzip();
+            encoder = ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP, options.compressionLevel(),
+                    options.windowBits(), options.memLevel());
+        } else if (DEFLATE.contentEquals(targetContentEncoding)) {
+            DeflateOptions options = deflateOptions != null ? deflateOptions : StandardCompressionOptions.deflate();
+            encoder = ZlibCodecFactory.newZlibEncoder(ZlibWrapper.ZLIB, options.compressionLevel(),
+                    options.windowBits(), options.memLevel());
+        } else {
+            throw new Error();
+        }
+
+        return new Result(
+                targetContentEncoding,
+                new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
+                        ctx.channel().config(), encoder));
+    }
+
+    private String determineEncodingFromWrapper(String acceptEncoding) {
         ZlibWrapper wrapper = determineWrapper(acceptEncoding);
         if (wrapper == null) {
             return null;
         }
-
-        String targetContentEncoding;
         switch (wrapper) {
         case GZIP:
-            targetContentEncoding = "gzip";
-            break;
+            return GZIP.toString();
         case ZLIB:
-            targetContentEncoding = "deflate";
-            break;
+            return DEFLATE.toString();
         default:
             throw new Error();
         }
+    }
 
-        return new Result(
-                targetContentEncoding,
-                new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
-                        ctx.channel().config(), ZlibCodecFactory.newZlibEncoder(
-                        wrapper, compressionLevel, windowBits, memLevel)));
+    /**
+     * Returns the encoding to use for the given {@code "Accept-Encoding"} header, or {@code null} if none of the
+     * enabled encodings is acceptable. If several encodings are equally preferred, {@code br} is chosen over
+     * {@code zstd}, {@code zstd} over {@code gzip} and {@code gzip} over {@code deflate}.
+     */
+    @SuppressWarnings("FloatingPointEquality")
+    protected String determineEncoding(String acceptEncoding) {
+        float starQ = -1.0f;
+        float brQ = -1.0f;
+        float zstdQ = -1.0f;
+        float gzipQ = -1.0f;
+        float deflateQ = -1.0f;
+        for (String encoding : acceptEncoding.split(",")) {
+            float q = 1.0f;
+            int equalsPos = encoding.indexOf('=');
+            if (equalsPos != -1) {
+                try {
+                    q = Float.parseFloat(encoding.substring(equalsPos + 1));
+                } catch (NumberFormatException e) {
+                    // Ignore encoding
+                    q = 0.0f;
+                }
+            }
+            String coding = coding(encoding);
+            if ("*".equals(coding)) {
+                starQ = q;
+            } else if (BR.contentEqualsIgnoreCase(coding)) {
+                brQ = Math.max(brQ, q);
+            } else if (ZSTD.contentEqualsIgnoreCase(coding)) {
+                zstdQ = Math.max(zstdQ, q);
+            } else if (GZIP.contentEqualsIgnoreCase(coding)) {
+                gzipQ = Math.max(gzipQ, q);
+            } else if (DEFLATE.contentEqualsIgnoreCase(coding)) {
+                deflateQ = Math.max(deflateQ, q);
+            }
+        }
+        // Encodings that are not enabled are treated as if the client refused them.
+        if (brotliOptions == null) {
+            brQ = 0.0f;
+        }
+        if (zstdOptions == null) {
+            zstdQ = 0.0f;
+        }
+        if (gzipOptions == null) {
+            gzipQ = 0.0f;
+        }
+        if (deflateOptions == null) {
+            deflateQ = 0.0f;
+        }
+
+        float maxQ = Math.max(Math.max(brQ, zstdQ), Math.max(gzipQ, deflateQ));
+        if (maxQ > 0.0f) {
+            if (brQ == maxQ) {
+                return BR.toString();
+            }
+            if (zstdQ == maxQ) {
+                return ZSTD.toString();
+            }
+            if (gzipQ == maxQ) {
+                return GZIP.toString();
+            }
+            return DEFLATE.toString();
+        }
+        if (starQ > 0.0f) {
+            if (brQ == -1.0f) {
+                return BR.toString();
+            }
+            if (zstdQ == -1.0f) {
+                return ZSTD.toString();
+            }
+            if (gzipQ == -1.0f) {
+                return GZIP.toString();
+            }
+            if (deflateQ == -1.0f) {
+                return DEFLATE.toString();
+            }
+        }
+        return null;
     }
 
+    /**
+     * Returns the content-coding of an element of the {@code "Accept-Encoding"} header, without its parameters.
+     */
+    private static String coding(String encoding) {
+        int semicolonPos = encoding.indexOf(';');
+        return (semicolonPos != -1 ? encoding.substring(0, semicolonPos) : encoding).trim();
+    }
+
+    /**
+     * @deprecated use {@link #determineEncoding(String)} which also takes {@code br} and {@code zstd} into account.
+     */
+    @Deprecated
     @SuppressWarnings("FloatingPointEquality")
     protected ZlibWrapper determineWrapper(String acceptEncoding) {
         float starQ = -1.0f;
@@ -187,12 +398,13 @@ public class HttpContentCompressor extends HttpContentEncoder {
                     q = 0.0f;
                 }
             }
-            if (encoding.contains("*")) {
+            String coding = coding(encoding);
+            if ("*".equals(coding)) {
                 starQ = q;
-            } else if (encoding.contains("gzip") && q > gzipQ) {
-                gzipQ = q;
-            } else if (encoding.contains("deflate") && q > deflateQ) {
-                deflateQ = q;
+            } else if (GZIP.contentEqualsIgnoreCase(coding)) {
+                gzipQ = Math.max(gzipQ, q);
+            } else if (DEFLATE.contentEqualsIgnoreCase(coding)) {
+                deflateQ = Math.max(deflateQ, q);
             }
         }
         if (gzipQ > 0.0f || deflateQ > 0.0f) {
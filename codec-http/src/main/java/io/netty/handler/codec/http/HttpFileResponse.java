@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import java.io.File;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * A {@link HttpResponse} whose body is the content of a {@link File}. It is turned into the response headers, the
+ * file content and a {@link LastHttpContent} by {@link HttpPrecompressedFileHandler}, which may serve a
+ * pre-compressed variant of the file instead.
+ */
+public class HttpFileResponse extends DefaultHttpResponse {
+
+    private final File file;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param version   the HTTP version of this response
+     * @param status    the status of this response
+     * @param file      the file whose content is the body of this response
+     */
+    public HttpFileResponse(HttpVersion version, HttpResponseStatus status, File file) {
+        super(version, status);
+        this.file = checkNotNull(file, "file");
+    }
+
+    /**
+     * Returns the file whose content is the body of this response.
+     */
+    public File file() {
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "\r\n(file: " + file + ')';
+    }
+}
@@ -18,9 +18,13 @@ package io.netty.handler.codec.http;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
 
+import java.util.Iterator;
+import java.util.Map.Entry;
+
 import static io.netty.handler.codec.http.HttpConstants.*;
 import static io.netty.handler.codec.http.HttpObjectEncoder.CRLF_SHORT;
 
@@ -47,6 +51,19 @@ final class HttpHeadersEncoder {
         buf.writerIndex(offset);
     }
 
+    /**
+     * Encodes all headers of {@code headers} into a new array.
+     */
+    static byte[] encodeHeaders(HttpHeaders headers) {
+        ByteBuf buf = Unpooled.buffer();
+        Iterator<Entry<CharSequence, CharSequence>> iter = headers.iteratorCharSequence();
+        while (iter.hasNext()) {
+            Entry<CharSequence, CharSequence> header = iter.next();
+            encoderHeader(header.getKey(), header.getValue(), buf);
+        }
+        return ByteBufUtil.getBytes(buf);
+    }
+
     private static void writeAscii(ByteBuf buf, int offset, CharSequence value) {
         if (value instanceof AsciiString) {
             ByteBufUtil.copy((AsciiString) value, 0, buf, offset, value.length());
@@ -54,4 +71,52 @@ final class HttpHeadersEncoder {
             buf.setCharSequence(offset, value, CharsetUtil.US_ASCII);
         }
     }
+
+    /**
+     * Remembers the encoded form of header lines that are written again and again with the very same name and value
+     * instances, e.g. constants or values that are shared between responses, so that these can be written with a
+     * single copy. Only {@link String}s and {@link AsciiString}s are considered as they are immutable, and a line is
+     * only cached once it was seen twice in a row so that ever changing values (like {@code content-length}) do not
+     * cause any extra allocations.
+     * <p>
+     * This class is not thread-safe, each encoder uses its own instance.
+     */
+    static final class LineCache {
+        private static final int SIZE = 32;
+        private static final int MAX_LINE_LENGTH = 512;
+
+        private final CharSequence[] names = new CharSequence[SIZE];
+        private final CharSequence[] values = new CharSequence[SIZE];
+        private final byte[][] lines = new byte[SIZE][];
+
+        void encode(CharSequence name, CharSequence value, ByteBuf buf) {
+            if (!isImmutable(name) || !isImmutable(value)) {
+                encoderHeader(name, value, buf);
+                return;
+            }
+            final int i = (name.hashCode() * 31 + value.hashCode()) & SIZE - 1;
+            if (names[i] != name || values[i] != value) {
+                names[i] = name;
+                values[i] = value;
+                lines[i] = null;
+                encoderHeader(name, value, buf);
+                return;
+            }
+            byte[] line = lines[i];
+            if (line != null) {
+                buf.writeBytes(line);
+                return;
+            }
+            final int start = buf.writerIndex();
+            encoderHeader(name, value, buf);
+            final int length = buf.writerIndex() - start;
+            if (length <= MAX_LINE_LENGTH) {
+                lines[i] = ByteBufUtil.getBytes(buf, start, length);
+            }
+        }
+
+        private static boolean isImmutable(CharSequence seq) {
+            return seq instanceof String || seq instanceof AsciiString;
+        }
+    }
 }
@@ -25,8 +25,9 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.PrematureChannelClosureException;
 import io.netty.handler.codec.TooLongFrameException;
-import io.netty.util.ByteProcessor;
+import io.netty.util.AsciiString;
 import io.netty.util.internal.AppendableCharSequence;
+import io.netty.util.internal.PlatformDependent;
 
 import java.util.List;
 
@@ -100,6 +101,14 @@ import java.util.List;
  * <a href="http://en.wikipedia.org/wiki/Internet_Content_Adaptation_Protocol">ICAP</a>.
  * To implement the decoder of such a derived protocol, extend this class and
  * implement all abstract methods properly.
+ *
+ * <h3>{@link AsciiString} headers</h3>
+ *
+ * By default every header name and value is decoded into its own {@link String}. If {@code asciiHeaders} is
+ * enabled the decoder instead waits until the whole header block was received, copies it into a single
+ * {@code byte[]} and adds the names and values as {@link AsciiString}s that share this array. Well known names
+ * (see {@link HttpHeaderNames}) are not copied at all but replaced by a shared constant if they are sent either in
+ * lower case or in the usual capitalized form (e.g. {@code Content-Type}).
  */
 public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     private static final String EMPTY_VALUE = "";
@@ -109,6 +118,8 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     protected final boolean validateHeaders;
     private final HeaderParser headerParser;
     private final LineParser lineParser;
+    private final boolean asciiHeaders;
+    private final int maxHeaderSize;
 
     private HttpMessage message;
     private long chunkSize;
@@ -119,6 +130,11 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     private CharSequence name;
     private CharSequence value;
 
+    // Progress of the scan for the end of the header block if asciiHeaders is used. The offset is relative to the
+    // readerIndex as the cumulation buffer may be compacted while we wait for more data.
+    private int headerScanOffset;
+    private int headerScanSize;
+
     private LastHttpContent trailer;
 
     /**
@@ -170,6 +186,20 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     protected HttpObjectDecoder(
             int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
             boolean chunkedSupported, boolean validateHeaders, int initialBufferSize) {
+        this(maxInitialLineLength, maxHeaderSize, maxChunkSize, chunkedSupported, validateHeaders, initialBufferSize,
+             false);
+    }
+
+    /**
+     * Creates a new instance with the specified parameters.
+     *
+     * @param asciiHeaders {@code true} if the header names and values should be decoded as {@link AsciiString}s
+     *                     which share a single copy of the header block, {@code false} to decode each of them into
+     *                     a {@link String}.
+     */
+    protected HttpObjectDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
+            boolean chunkedSupported, boolean validateHeaders, int initialBufferSize, boolean asciiHeaders) {
         checkPositive(maxInitialLineLength, "maxInitialLineLength");
         checkPositive(maxHeaderSize, "maxHeaderSize");
         checkPositive(maxChunkSize, "maxChunkSize");
@@ -180,6 +210,8 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         this.maxChunkSize = maxChunkSize;
         this.chunkedSupported = chunkedSupported;
         this.validateHeaders = validateHeaders;
+        this.asciiHeaders = asciiHeaders;
+        this.maxHeaderSize = maxHeaderSize;
     }
 
     @Override
@@ -502,6 +534,8 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         this.message = null;
         name = null;
         value = null;
+        headerScanOffset = 0;
+        headerScanSize = 0;
         contentLength = Long.MIN_VALUE;
         lineParser.reset();
         headerParser.reset();
@@ -569,41 +603,9 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         final HttpMessage message = this.message;
         final HttpHeaders headers = message.headers();
 
-        AppendableCharSequence line = headerParser.parse(buffer);
-        if (line == null) {
+        if (!(asciiHeaders ? readAsciiHeaders(buffer, headers) : readHeaderLines(buffer, headers))) {
             return null;
         }
-        if (line.length() > 0) {
-            do {
-                char firstChar = line.charAtUnsafe(0);
-                if (name != null && (firstChar == ' ' || firstChar == '\t')) {
-                    //please do not make one line from below code
-                    //as it breaks +XX:OptimizeStringConcat optimization
-                    String trimmedLine = line.toString().trim();
-                    String valueStr = String.valueOf(value);
-                    value = valueStr + ' ' + trimmedLine;
-                } else {
-                    if (name != null) {
-                        headers.add(name, value);
-                    }
-                    splitHeader(line);
-                }
-
-                line = headerParser.parse(buffer);
-                if (line == null) {
-                    return null;
-                }
-            } while (line.length() > 0);
-        }
-
-        // Add the last header.
-        if (name != null) {
-            headers.add(name, value);
-        }
-
-        // reset name and value fields
-        name = null;
-        value = null;
 
         List<String> values = headers.getAll(HttpHeaderNames.CONTENT_LENGTH);
         int contentLengthValuesCount = values.size();
@@ -657,6 +659,137 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         }
     }
 
+    private boolean readHeaderLines(ByteBuf buffer, HttpHeaders headers) {
+        AppendableCharSequence line = headerParser.parse(buffer);
+        if (line == null) {
+            return false;
+        }
+        if (line.length() > 0) {
+            do {
+                char firstChar = line.charAtUnsafe(0);
+                if (name != null && (firstChar == ' ' || firstChar == '\t')) {
+                    //please do not make one line from below code
+                    //as it breaks +XX:OptimizeStringConcat optimization
+                    String trimmedLine = line.toString().trim();
+                    String valueStr = String.valueOf(value);
+                    value = valueStr + ' ' + trimmedLine;
+                } else {
+                    if (name != null) {
+                        headers.add(name, value);
+                    }
+                    splitHeader(line);
+                }
+
+                line = headerParser.parse(buffer);
+                if (line == null) {
+                    return false;
+                }
+            } while (line.length() > 0);
+        }
+
+        // Add the last header.
+        if (name != null) {
+            headers.add(name, value);
+        }
+
+        // reset name and value fields
+        name = null;
+        value = null;
+        return true;
+    }
+
+    private boolean readAsciiHeaders(ByteBuf buffer, HttpHeaders headers) {
+        final int readerIndex = buffer.readerIndex();
+        final int writerIndex = buffer.writerIndex();
+        int lineStart = readerIndex + headerScanOffset;
+        int size = headerScanSize;
+        final int blockEnd;
+        for (;;) {
+            final int lfIndex = buffer.indexOf(lineStart, writerIndex, HttpConstants.LF);
+            if (lfIndex == -1) {
+                // CRs are not counted, just like HeaderParser does for the String based headers.
+                if (size + writerIndex - lineStart > maxHeaderSize &&
+                        size + countNonCR(buffer, lineStart, writerIndex) > maxHeaderSize) {
+                    throw headerParser.newException(maxHeaderSize);
+                }
+                headerScanOffset = lineStart - readerIndex;
+                headerScanSize = size;
+                return false;
+            }
+            int lineEnd = lfIndex;
+            if (lineEnd > lineStart && buffer.getByte(lineEnd - 1) == HttpConstants.CR) {
+                lineEnd--;
+            }
+            int lineLength = lineEnd - lineStart;
+            if (lineLength > 0 && buffer.indexOf(lineStart, lineEnd, HttpConstants.CR) != -1) {
+                // A CR inside the line is dropped by HeaderParser as well, so it must not be counted.
+                lineLength = countNonCR(buffer, lineStart, lineEnd);
+            }
+            if (lineLength == 0) {
+                // The empty line that terminates the header block.
+                blockEnd = lfIndex + 1;
+                break;
+            }
+            size += lineLength;
+            if (size > maxHeaderSize) {
+                throw headerParser.newException(maxHeaderSize);
+            }
+            lineStart = lfIndex + 1;
+        }
+
+        // Copy the whole block at once, all names and values will be views of this array.
+        final byte[] block = new byte[lineStart - readerIndex];
+        buffer.getBytes(readerIndex, block);
+        buffer.readerIndex(blockEnd);
+        headerScanOffset = 0;
+        headerScanSize = 0;
+
+        for (int start = 0; start < block.length;) {
+            int end = start;
+            int next = start;
+            for (byte b; (b = block[next++]) != HttpConstants.LF;) {
+                // Drop every CR of the line, not only the trailing one, just like HeaderParser does.
+                if (b != HttpConstants.CR) {
+                    block[end++] = b;
+                }
+            }
+            byte firstByte = block[start];
+            if (name != null && (firstByte == ' ' || firstByte == '\t')) {
+                //please do not make one line from below code
+                //as it breaks +XX:OptimizeStringConcat optimization
+                String trimmedLine = new AsciiString(block, start, end - start, false).trim().toString();
+                String valueStr = String.valueOf(value);
+                value = valueStr + ' ' + trimmedLine;
+            } else {
+                if (name != null) {
+                    headers.add(name, value);
+                }
+                splitHeader(block, start, end);
+            }
+            start = next;
+        }
+
+        // Add the last header.
+        if (name != null) {
+            headers.add(name, value);
+        }
+
+        // reset name and value fields
+        name = null;
+        value = null;
+        return true;
+    }
+
+    private static int countNonCR(ByteBuf buffer, int fromIndex, int toIndex) {
+        int count = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            if (buffer.getByte(i) != HttpConstants.CR) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     private long contentLength() {
         if (contentLength == Long.MIN_VALUE) {
             contentLength = HttpUtil.getContentLength(message, -1L);
@@ -807,6 +940,66 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         }
     }
 
+    private void splitHeader(byte[] block, int start, int end) {
+        int nameStart;
+        int nameEnd;
+        int colonEnd;
+        int valueStart;
+        int valueEnd;
+
+        nameStart = findNonWhitespace(block, start, end);
+        for (nameEnd = nameStart; nameEnd < end; nameEnd ++) {
+            byte b = block[nameEnd];
+            // See splitHeader(AppendableCharSequence) for why whitespace is only skipped for responses.
+            if (b == ':' || (!isDecodingRequest() && isWhitespace(b))) {
+                break;
+            }
+        }
+
+        if (nameEnd == end) {
+            // There was no colon present at all.
+            throw new IllegalArgumentException("No colon found");
+        }
+
+        for (colonEnd = nameEnd; colonEnd < end; colonEnd ++) {
+            if (block[colonEnd] == ':') {
+                colonEnd ++;
+                break;
+            }
+        }
+
+        name = WellKnownHeaderNames.get(block, nameStart, nameEnd - nameStart);
+        valueStart = findNonWhitespace(block, colonEnd, end);
+        if (valueStart == end) {
+            value = AsciiString.EMPTY_STRING;
+        } else {
+            valueEnd = findEndOfString(block, valueStart, end);
+            value = new AsciiString(block, valueStart, valueEnd - valueStart, false);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return Character.isWhitespace((char) (b & 0xFF));
+    }
+
+    private static int findNonWhitespace(byte[] block, int offset, int end) {
+        for (int result = offset; result < end; ++result) {
+            if (!isWhitespace(block[result])) {
+                return result;
+            }
+        }
+        return end;
+    }
+
+    private static int findEndOfString(byte[] block, int start, int end) {
+        for (int result = end - 1; result >= start; --result) {
+            if (!isWhitespace(block[result])) {
+                return result + 1;
+            }
+        }
+        return start;
+    }
+
     private static int findNonWhitespace(AppendableCharSequence sb, int offset) {
         for (int result = offset; result < sb.length(); ++result) {
             if (!Character.isWhitespace(sb.charAtUnsafe(result))) {
@@ -834,7 +1027,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         return 0;
     }
 
-    private static class HeaderParser implements ByteProcessor {
+    private static class HeaderParser {
         private final AppendableCharSequence seq;
         private final int maxLength;
         private int size;
@@ -845,14 +1038,23 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         }
 
         public AppendableCharSequence parse(ByteBuf buffer) {
-            final int oldSize = size;
-            seq.reset();
-            int i = buffer.forEachByte(this);
-            if (i == -1) {
-                size = oldSize;
+            final int readerIndex = buffer.readerIndex();
+            final int writerIndex = buffer.writerIndex();
+            // ByteBuf.indexOf(...) scans multiple bytes at once, which is a lot cheaper than visiting every byte
+            // via a ByteProcessor.
+            final int lfIndex = buffer.indexOf(readerIndex, writerIndex, HttpConstants.LF);
+            if (lfIndex == -1) {
+                if (writerIndex - readerIndex > maxLength - size &&
+                        countNonCR(buffer, readerIndex, writerIndex) > maxLength - size) {
+                    throw newException(maxLength);
+                }
                 return null;
             }
-            buffer.readerIndex(i + 1);
+            seq.reset();
+            if (lfIndex != readerIndex) {
+                append(buffer, readerIndex, lfIndex);
+            }
+            buffer.readerIndex(lfIndex + 1);
             return seq;
         }
 
@@ -860,16 +1062,27 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
             size = 0;
         }
 
-        @Override
-        public boolean process(byte value) throws Exception {
+        private void append(ByteBuf buffer, int fromIndex, int toIndex) {
+            int size = this.size;
+            if (buffer.hasArray()) {
+                final byte[] array = buffer.array();
+                final int offset = buffer.arrayOffset();
+                for (int i = fromIndex + offset, end = toIndex + offset; i < end; i++) {
+                    size = append(array[i], size);
+                }
+            } else {
+                for (int i = fromIndex; i < toIndex; i++) {
+                    size = append(buffer.getByte(i), size);
+                }
+            }
+            this.size = size;
+        }
+
+        private int append(byte value, int size) {
             char nextByte = (char) (value & 0xFF);
             if (nextByte == HttpConstants.CR) {
-                return true;
+                return size;
             }
-            if (nextByte == HttpConstants.LF) {
-                return false;
-            }
-
             if (++ size > maxLength) {
                 // TODO: Respond with Bad Request and discard the traffic
                 //    or close the connection.
@@ -877,9 +1090,8 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
                 //       If decoding a response, just throw an exception.
                 throw newException(maxLength);
             }
-
             seq.append(nextByte);
-            return true;
+            return size;
         }
 
         protected TooLongFrameException newException(int maxLength) {
@@ -904,4 +1116,104 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
             return new TooLongFrameException("An HTTP line is larger than " + maxLength + " bytes.");
         }
     }
+
+    /**
+     * Maps header names to the constants of {@link HttpHeaderNames} without allocating. Each name is registered in
+     * lower case and in its usual capitalized form (e.g. {@code Content-Type}) as the decoded names keep the case they
+     * were sent in.
+     */
+    private static final class WellKnownHeaderNames {
+        // The constants of HttpHeaderNames are deprecated as the headers are not part of HTTP/2, but they are still
+        // sent by HTTP/1.x peers. The cached instances are equal to the constants.
+        private static final AsciiString KEEP_ALIVE = AsciiString.cached("keep-alive");
+        private static final AsciiString PROXY_CONNECTION = AsciiString.cached("proxy-connection");
+        private static final AsciiString[] NAMES = {
+                HttpHeaderNames.ACCEPT, HttpHeaderNames.ACCEPT_CHARSET, HttpHeaderNames.ACCEPT_ENCODING,
+                HttpHeaderNames.ACCEPT_LANGUAGE, HttpHeaderNames.ACCEPT_RANGES, HttpHeaderNames.ACCEPT_PATCH,
+                HttpHeaderNames.ACCESS_CONTROL_ALLOW_CREDENTIALS, HttpHeaderNames.ACCESS_CONTROL_ALLOW_HEADERS,
+                HttpHeaderNames.ACCESS_CONTROL_ALLOW_METHODS, HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN,
+                HttpHeaderNames.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaderNames.ACCESS_CONTROL_MAX_AGE,
+                HttpHeaderNames.ACCESS_CONTROL_REQUEST_HEADERS, HttpHeaderNames.ACCESS_CONTROL_REQUEST_METHOD,
+                HttpHeaderNames.AGE, HttpHeaderNames.ALLOW, HttpHeaderNames.AUTHORIZATION,
+                HttpHeaderNames.CACHE_CONTROL, HttpHeaderNames.CONNECTION, HttpHeaderNames.CONTENT_BASE,
+                HttpHeaderNames.CONTENT_ENCODING, HttpHeaderNames.CONTENT_LANGUAGE, HttpHeaderNames.CONTENT_LENGTH,
+                HttpHeaderNames.CONTENT_LOCATION, HttpHeaderNames.CONTENT_TRANSFER_ENCODING,
+                HttpHeaderNames.CONTENT_DISPOSITION, HttpHeaderNames.CONTENT_MD5, HttpHeaderNames.CONTENT_RANGE,
+                HttpHeaderNames.CONTENT_SECURITY_POLICY, HttpHeaderNames.CONTENT_TYPE, HttpHeaderNames.COOKIE,
+                HttpHeaderNames.DATE, HttpHeaderNames.ETAG, HttpHeaderNames.EXPECT, HttpHeaderNames.EXPIRES,
+                HttpHeaderNames.FROM, HttpHeaderNames.HOST, HttpHeaderNames.IF_MATCH,
+                HttpHeaderNames.IF_MODIFIED_SINCE, HttpHeaderNames.IF_NONE_MATCH, HttpHeaderNames.IF_RANGE,
+                HttpHeaderNames.IF_UNMODIFIED_SINCE, KEEP_ALIVE, HttpHeaderNames.LAST_MODIFIED,
+                HttpHeaderNames.LOCATION, HttpHeaderNames.MAX_FORWARDS, HttpHeaderNames.ORIGIN, HttpHeaderNames.PRAGMA,
+                HttpHeaderNames.PROXY_AUTHENTICATE, HttpHeaderNames.PROXY_AUTHORIZATION,
+                PROXY_CONNECTION, HttpHeaderNames.RANGE, HttpHeaderNames.REFERER,
+                HttpHeaderNames.RETRY_AFTER, HttpHeaderNames.SEC_WEBSOCKET_KEY1, HttpHeaderNames.SEC_WEBSOCKET_KEY2,
+                HttpHeaderNames.SEC_WEBSOCKET_LOCATION, HttpHeaderNames.SEC_WEBSOCKET_ORIGIN,
+                HttpHeaderNames.SEC_WEBSOCKET_PROTOCOL, HttpHeaderNames.SEC_WEBSOCKET_VERSION,
+                HttpHeaderNames.SEC_WEBSOCKET_KEY, HttpHeaderNames.SEC_WEBSOCKET_ACCEPT,
+                HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, HttpHeaderNames.SERVER, HttpHeaderNames.SET_COOKIE,
+                HttpHeaderNames.SET_COOKIE2, HttpHeaderNames.TE, HttpHeaderNames.TRAILER,
+                HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderNames.UPGRADE, HttpHeaderNames.USER_AGENT,
+                HttpHeaderNames.VARY, HttpHeaderNames.VIA, HttpHeaderNames.WARNING, HttpHeaderNames.WEBSOCKET_LOCATION,
+                HttpHeaderNames.WEBSOCKET_ORIGIN, HttpHeaderNames.WEBSOCKET_PROTOCOL, HttpHeaderNames.WWW_AUTHENTICATE,
+                HttpHeaderNames.X_FRAME_OPTIONS
+        };
+        private static final AsciiString[] TABLE;
+        private static final int MASK;
+
+        static {
+            int size = 1;
+            while (size < NAMES.length * 8) {
+                size <<= 1;
+            }
+            TABLE = new AsciiString[size];
+            MASK = size - 1;
+            for (AsciiString name : NAMES) {
+                put(name);
+                put(capitalize(name));
+            }
+        }
+
+        private WellKnownHeaderNames() {
+        }
+
+        private static AsciiString capitalize(AsciiString name) {
+            byte[] bytes = name.toByteArray();
+            boolean upper = true;
+            for (int i = 0; i < bytes.length; i++) {
+                if (upper && bytes[i] >= 'a' && bytes[i] <= 'z') {
+                    bytes[i] -= 'a' - 'A';
+                }
+                upper = bytes[i] == '-';
+            }
+            return new AsciiString(bytes, false);
+        }
+
+        private static void put(AsciiString name) {
+            // AsciiString.hashCode() ignores the case so both forms of a name end up next to each other.
+            for (int i = name.hashCode() & MASK;; i = i + 1 & MASK) {
+                AsciiString existing = TABLE[i];
+                if (existing == null) {
+                    TABLE[i] = name;
+                    return;
+                }
+                if (existing.equals(name)) {
+                    return;
+                }
+            }
+        }
+
+        static AsciiString get(byte[] bytes, int start, int length) {
+            for (int i = PlatformDependent.hashCodeAscii(bytes, start, length) & MASK;; i = i + 1 & MASK) {
+                AsciiString name = TABLE[i];
+                if (name == null) {
+                    return new AsciiString(bytes, start, length, false);
+                }
+                if (name.length() == length &&
+                        PlatformDependent.equals(name.array(), name.arrayOffset(), bytes, start, length)) {
+                    return name;
+                }
+            }
+        }
+    }
 }
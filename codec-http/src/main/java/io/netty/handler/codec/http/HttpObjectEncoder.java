@@ -78,6 +78,8 @@ public abstract class HttpObjectEncoder<H extends HttpMessage> extends MessageTo
      */
     private float trailersEncodedSizeAccumulator = 256;
 
+    private final HttpHeadersEncoder.LineCache lineCache = new HttpHeadersEncoder.LineCache();
+
     @Override
     protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
         ByteBuf buf = null;
@@ -185,10 +187,14 @@ public abstract class HttpObjectEncoder<H extends HttpMessage> extends MessageTo
      * Encode the {@link HttpHeaders} into a {@link ByteBuf}.
      */
     protected void encodeHeaders(HttpHeaders headers, ByteBuf buf) {
+        if (headers instanceof ReadOnlyHttpHeaders) {
+            buf.writeBytes(((ReadOnlyHttpHeaders) headers).encoded());
+            return;
+        }
         Iterator<Entry<CharSequence, CharSequence>> iter = headers.iteratorCharSequence();
         while (iter.hasNext()) {
             Entry<CharSequence, CharSequence> header = iter.next();
-            HttpHeadersEncoder.encoderHeader(header.getKey(), header.getValue(), buf);
+            lineCache.encode(header.getKey(), header.getValue(), buf);
         }
     }
 
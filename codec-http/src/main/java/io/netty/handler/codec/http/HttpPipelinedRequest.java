@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+
+/**
+ * A {@link HttpRequest} received by a {@link HttpPipeliningHandler} together with its sequence number on the
+ * connection. All parts of the response to it must be written as {@link HttpPipelinedResponse}s created via
+ * {@link #response(HttpObject)}.
+ * <p>
+ * Releasing this object releases the wrapped request.
+ */
+public final class HttpPipelinedRequest implements ReferenceCounted {
+    private final HttpRequest request;
+    private final int sequence;
+
+    HttpPipelinedRequest(HttpRequest request, int sequence) {
+        this.request = request;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Returns the wrapped request, which may be a {@link FullHttpRequest}.
+     */
+    public HttpRequest request() {
+        return request;
+    }
+
+    /**
+     * Returns the sequence number of the request on the connection, starting at {@code 0}.
+     */
+    public int sequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns a {@link HttpPipelinedResponse} which writes {@code msg} as part of the response to this request.
+     */
+    public HttpPipelinedResponse response(HttpObject msg) {
+        return new HttpPipelinedResponse(msg, sequence);
+    }
+
+    @Override
+    public int refCnt() {
+        return request instanceof ReferenceCounted ? ((ReferenceCounted) request).refCnt() : 1;
+    }
+
+    @Override
+    public HttpPipelinedRequest retain() {
+        ReferenceCountUtil.retain(request);
+        return this;
+    }
+
+    @Override
+    public HttpPipelinedRequest retain(int increment) {
+        ReferenceCountUtil.retain(request, increment);
+        return this;
+    }
+
+    @Override
+    public HttpPipelinedRequest touch() {
+        ReferenceCountUtil.touch(request);
+        return this;
+    }
+
+    @Override
+    public HttpPipelinedRequest touch(Object hint) {
+        ReferenceCountUtil.touch(request, hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return ReferenceCountUtil.release(request);
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return ReferenceCountUtil.release(request, decrement);
+    }
+
+    @Override
+    public String toString() {
+        return "HttpPipelinedRequest(sequence: " + sequence + ", request: " + request + ')';
+    }
+}
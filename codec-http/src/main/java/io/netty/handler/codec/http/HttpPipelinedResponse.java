@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * A part of the response to a {@link HttpPipelinedRequest}. The {@link HttpPipeliningHandler} writes it once all
+ * responses to the requests received before are complete. A response is complete once a {@link LastHttpContent}
+ * (e.g. a {@link FullHttpResponse}) was written for it.
+ * <p>
+ * Releasing this object releases the wrapped message.
+ */
+public final class HttpPipelinedResponse implements ReferenceCounted {
+    private final HttpObject msg;
+    private final int sequence;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param msg the part of the response.
+     * @param sequence the {@link HttpPipelinedRequest#sequence()} of the request this response belongs to.
+     */
+    public HttpPipelinedResponse(HttpObject msg, int sequence) {
+        this.msg = checkNotNull(msg, "msg");
+        this.sequence = sequence;
+    }
+
+    /**
+     * Returns the wrapped part of the response.
+     */
+    public HttpObject msg() {
+        return msg;
+    }
+
+    /**
+     * Returns the sequence number of the request this response belongs to.
+     */
+    public int sequence() {
+        return sequence;
+    }
+
+    @Override
+    public int refCnt() {
+        return msg instanceof ReferenceCounted ? ((ReferenceCounted) msg).refCnt() : 1;
+    }
+
+    @Override
+    public HttpPipelinedResponse retain() {
+        ReferenceCountUtil.retain(msg);
+        return this;
+    }
+
+    @Override
+    public HttpPipelinedResponse retain(int increment) {
+        ReferenceCountUtil.retain(msg, increment);
+        return this;
+    }
+
+    @Override
+    public HttpPipelinedResponse touch() {
+        ReferenceCountUtil.touch(msg);
+        return this;
+    }
+
+    @Override
+    public HttpPipelinedResponse touch(Object hint) {
+        ReferenceCountUtil.touch(msg, hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return ReferenceCountUtil.release(msg);
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return ReferenceCountUtil.release(msg, decrement);
+    }
+
+    @Override
+    public String toString() {
+        return "HttpPipelinedResponse(sequence: " + sequence + ", msg: " + msg + ')';
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.netty.util.internal.PendingWrite;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * Allows to process <a href="https://tools.ietf.org/html/rfc7230#section-6.3.2">pipelined</a> HTTP/1.1 requests
+ * concurrently while still writing the responses in the order the requests were received.
+ * <p>
+ * Every {@link HttpRequest} is passed on as a {@link HttpPipelinedRequest} that carries its sequence number on the
+ * connection. Any following {@link HttpContent}s are passed on as they are. The parts of the response must be written
+ * as {@link HttpPipelinedResponse}s, e.g. via {@link HttpPipelinedRequest#response(HttpObject)}, and may be written
+ * in any order and from any thread. The response to the oldest outstanding request is written through directly while
+ * the responses to later requests are buffered until all responses before them are complete, i.e. until their
+ * {@link LastHttpContent} was written. Other messages are written through as they are.
+ * <p>
+ * At most {@code maxInFlight} requests are passed on before their responses are complete. Further requests are held
+ * back and no more data is read from the channel until earlier responses are complete: calls to
+ * {@link #read(ChannelHandlerContext)} are suppressed and {@code autoRead} is turned off while messages are held back.
+ * As messages that were already read may still arrive, the channel is closed if more than {@code maxHeldMessages}
+ * messages or more than {@code maxBufferedBytes} bytes of content are held back. It is also closed if the buffered
+ * responses contain more than {@code maxBufferedBytes} bytes of content.
+ * <blockquote>
+ * <pre>
+ *  {@link ChannelPipeline} p = ...;
+ *  ...
+ *  p.addLast("serverCodec", new {@link HttpServerCodec}());
+ *  p.addLast("httpKeepAlive", new {@link HttpServerKeepAliveHandler}());
+ *  p.addLast("aggregator", new {@link HttpObjectAggregator}(1048576));
+ *  p.addLast("pipelining", <b>new {@link HttpPipeliningHandler}(16, 4194304)</b>);
+ *  ...
+ *  p.addLast("handler", new HttpPipelinedRequestHandler());
+ *  </pre>
+ * </blockquote>
+ */
+public class HttpPipeliningHandler extends ChannelDuplexHandler {
+    private static final int DEFAULT_MAX_HELD_MESSAGES = 1024;
+
+    private final int maxInFlight;
+    private final long maxBufferedBytes;
+    private final int maxHeldMessages;
+
+    // The sequence of the next request that is read and of the request whose response is written right now.
+    private int readSequence;
+    private int writeSequence;
+
+    private final IntObjectMap<ArrayDeque<PendingWrite>> bufferedResponses =
+            new IntObjectHashMap<ArrayDeque<PendingWrite>>();
+    private long bufferedBytes;
+
+    // Inbound messages that are held back because maxInFlight requests are in flight.
+    private final ArrayDeque<Object> heldMessages = new ArrayDeque<Object>();
+    private long heldBytes;
+    private boolean readPending;
+    // true if autoRead was turned off by this handler and must be turned on again.
+    private boolean autoReadDisabled;
+    // Guard against passing on held messages re-entrantly, e.g. if a response is written from within channelRead.
+    private boolean releasingHeldMessages;
+    private boolean releaseHeldMessagesAgain;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxInFlight the maximum number of requests that are passed on before their responses are complete.
+     * @param maxBufferedBytes the maximum number of content bytes of responses that are buffered because responses
+     *                         to earlier requests are not complete yet.
+     */
+    public HttpPipeliningHandler(int maxInFlight, long maxBufferedBytes) {
+        this(maxInFlight, maxBufferedBytes, DEFAULT_MAX_HELD_MESSAGES);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxInFlight the maximum number of requests that are passed on before their responses are complete.
+     * @param maxBufferedBytes the maximum number of content bytes of responses that are buffered because responses
+     *                         to earlier requests are not complete yet, and of requests that are held back.
+     * @param maxHeldMessages the maximum number of inbound messages that are held back because {@code maxInFlight}
+     *                        requests are in flight.
+     */
+    public HttpPipeliningHandler(int maxInFlight, long maxBufferedBytes, int maxHeldMessages) {
+        this.maxInFlight = checkPositive(maxInFlight, "maxInFlight");
+        this.maxBufferedBytes = checkPositive(maxBufferedBytes, "maxBufferedBytes");
+        this.maxHeldMessages = checkPositive(maxHeldMessages, "maxHeldMessages");
+    }
+
+    /**
+     * Returns the number of requests that were passed on and whose responses are not complete yet.
+     */
+    public int inFlight() {
+        return readSequence - writeSequence;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!heldMessages.isEmpty() || msg instanceof HttpRequest && inFlight() >= maxInFlight) {
+            hold(ctx, msg);
+            return;
+        }
+        ctx.fireChannelRead(wrapIfRequest(msg));
+    }
+
+    private void hold(ChannelHandlerContext ctx, Object msg) {
+        long length = contentLength(msg);
+        if (heldMessages.size() >= maxHeldMessages || heldBytes + length > maxBufferedBytes) {
+            // Messages that were read before reading was stopped still arrive, but a client must not be able to
+            // make us buffer an unbounded number of requests.
+            ReferenceCountUtil.release(msg);
+            ctx.close();
+            return;
+        }
+        if (heldMessages.isEmpty() && ctx.channel().config().isAutoRead()) {
+            ctx.channel().config().setAutoRead(false);
+            autoReadDisabled = true;
+        }
+        heldMessages.add(msg);
+        heldBytes += length;
+    }
+
+    private Object wrapIfRequest(Object msg) {
+        if (msg instanceof HttpRequest) {
+            return new HttpPipelinedRequest((HttpRequest) msg, readSequence++);
+        }
+        return msg;
+    }
+
+    @Override
+    public void read(ChannelHandlerContext ctx) throws Exception {
+        if (heldMessages.isEmpty()) {
+            ctx.read();
+        } else {
+            // Stop reading until the held back requests could be passed on.
+            readPending = true;
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof HttpPipelinedResponse)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        HttpPipelinedResponse response = (HttpPipelinedResponse) msg;
+        int sequence = response.sequence();
+        HttpObject part = response.msg();
+        if (sequence - writeSequence < 0 || sequence - readSequence >= 0) {
+            ReferenceCountUtil.release(part);
+            promise.setFailure(new IllegalStateException("No response expected for sequence " + sequence +
+                    " (next: " + writeSequence + ", in flight: " + inFlight() + ')'));
+            return;
+        }
+
+        if (sequence == writeSequence) {
+            ctx.write(part, promise);
+            if (part instanceof LastHttpContent) {
+                responseComplete(ctx);
+            }
+            return;
+        }
+
+        bufferedBytes += contentLength(part);
+        if (bufferedBytes > maxBufferedBytes) {
+            bufferedBytes -= contentLength(part);
+            ReferenceCountUtil.release(part);
+            promise.setFailure(new IllegalStateException(
+                    "Buffered pipelined responses exceed maxBufferedBytes: " + maxBufferedBytes));
+            ctx.close();
+            return;
+        }
+        ArrayDeque<PendingWrite> writes = bufferedResponses.get(sequence);
+        if (writes == null) {
+            writes = new ArrayDeque<PendingWrite>(2);
+            bufferedResponses.put(sequence, writes);
+        }
+        writes.add(PendingWrite.newInstance(part, promise));
+    }
+
+    private void responseComplete(ChannelHandlerContext ctx) {
+        writeSequence++;
+        boolean written = false;
+        for (;;) {
+            ArrayDeque<PendingWrite> writes = bufferedResponses.remove(writeSequence);
+            if (writes == null) {
+                break;
+            }
+            boolean complete = false;
+            for (;;) {
+                PendingWrite write = writes.poll();
+                if (write == null) {
+                    break;
+                }
+                Object part = write.msg();
+                bufferedBytes -= contentLength(part);
+                if (complete) {
+                    write.failAndRecycle(new IllegalStateException(
+                            "Response for sequence " + (writeSequence - 1) + " already complete"));
+                    continue;
+                }
+                complete = part instanceof LastHttpContent;
+                ctx.write(part, (ChannelPromise) write.recycleAndGet());
+                written = true;
+            }
+            if (!complete) {
+                // The remaining parts of this response will be written through directly.
+                break;
+            }
+            writeSequence++;
+        }
+        if (written) {
+            ctx.flush();
+        }
+        releaseHeldMessages(ctx);
+    }
+
+    private void releaseHeldMessages(ChannelHandlerContext ctx) {
+        if (releasingHeldMessages) {
+            // A response was completed while a held message was passed on. Let the outer call pass on the next
+            // messages once the handlers returned, so they never see channelRead(...) re-entrantly.
+            releaseHeldMessagesAgain = true;
+            return;
+        }
+        releasingHeldMessages = true;
+        try {
+            do {
+                releaseHeldMessagesAgain = false;
+                boolean released = false;
+                for (;;) {
+                    Object msg = heldMessages.peek();
+                    if (msg == null || msg instanceof HttpRequest && inFlight() >= maxInFlight) {
+                        break;
+                    }
+                    heldMessages.poll();
+                    heldBytes -= contentLength(msg);
+                    released = true;
+                    ctx.fireChannelRead(wrapIfRequest(msg));
+                }
+                if (released) {
+                    ctx.fireChannelReadComplete();
+                }
+            } while (releaseHeldMessagesAgain);
+        } finally {
+            releasingHeldMessages = false;
+        }
+        if (heldMessages.isEmpty()) {
+            if (autoReadDisabled) {
+                autoReadDisabled = false;
+                // Turning autoRead on again also issues a read.
+                readPending = false;
+                ctx.channel().config().setAutoRead(true);
+            } else if (readPending) {
+                readPending = false;
+                ctx.read();
+            }
+        }
+    }
+
+    private static long contentLength(Object msg) {
+        return msg instanceof ByteBufHolder ? ((ByteBufHolder) msg).content().readableBytes() : 0;
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseAll();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        releaseAll();
+        if (autoReadDisabled) {
+            autoReadDisabled = false;
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private void releaseAll() {
+        if (!bufferedResponses.isEmpty()) {
+            ClosedChannelException cause = new ClosedChannelException();
+            for (ArrayDeque<PendingWrite> writes : bufferedResponses.values()) {
+                for (PendingWrite write : writes) {
+                    write.failAndRecycle(cause);
+                }
+            }
+            bufferedResponses.clear();
+            bufferedBytes = 0;
+        }
+        for (;;) {
+            Object msg = heldMessages.poll();
+            if (msg == null) {
+                break;
+            }
+            ReferenceCountUtil.release(msg);
+        }
+        heldBytes = 0;
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedFile;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Writes the body of a {@link HttpFileResponse} from a pre-compressed variant of its file if the client accepts
+ * the encoding of the variant, instead of compressing the file on every request.
+ * <p>
+ * The variants are expected next to the file, with the name of the file followed by {@code ".br"} for {@code br},
+ * {@code ".zst"} for {@code zstd} and {@code ".gz"} for {@code gzip} encoding. A variant is only used if it was
+ * modified after the file itself. If several variants are acceptable the one with the highest q-value is served,
+ * where {@code br} is preferred over {@code zstd} and {@code zstd} over {@code gzip} for equal q-values. If no variant
+ * is served and the client refuses the {@code identity} encoding, e.g. via {@code "identity;q=0"} or {@code "*;q=0"},
+ * a {@code 406 Not Acceptable} response is written instead.
+ * <p>
+ * If a variant can not be opened the file itself is served. If the file can not be opened either, a
+ * {@code 404 Not Found} or {@code 500 Internal Server Error} response is written, the promise of the
+ * {@link HttpFileResponse} is failed and the connection is closed.
+ * <p>
+ * The file is written via a zero-copy {@link DefaultFileRegion}, or as a {@link HttpChunkedInput} if a
+ * {@link SslHandler} is in the pipeline, which requires a {@link ChunkedWriteHandler}. Other messages are written
+ * through as they are. This handler must be added after any {@link HttpContentCompressor}, so that a
+ * {@link HttpFileResponse} never reaches it. If the file itself is served and a {@link HttpContentEncoder} is in
+ * the pipeline the response is marked with {@code "Content-Encoding: identity"} to keep it from being encoded.
+ * <blockquote>
+ * <pre>
+ *  {@link ChannelPipeline} p = ...;
+ *  ...
+ *  p.addLast("serverCodec", new {@link HttpServerCodec}());
+ *  p.addLast("chunkedWriter", new {@link ChunkedWriteHandler}());
+ *  p.addLast("compressor", new {@link HttpContentCompressor}());
+ *  p.addLast("precompressed", <b>new {@link HttpPrecompressedFileHandler}()</b>);
+ *  ...
+ *  p.addLast("handler", new StaticFileHandler());
+ *  </pre>
+ * </blockquote>
+ * <p>
+ * Looking up and opening the variants and the file, via {@link File#isFile()}, {@link File#lastModified()} and
+ * {@link RandomAccessFile}, are blocking file system calls that are done for every {@link HttpFileResponse}. If the
+ * files are not likely to be in the page cache of the operating system, or are on a network file system, these calls
+ * can stall the {@link io.netty.channel.EventLoop} and all other channels that are registered to it. In that case add
+ * this handler with a separate {@link io.netty.util.concurrent.EventExecutorGroup} so that the calls are done off
+ * the {@link io.netty.channel.EventLoop}:
+ * <blockquote>
+ * <pre>
+ *  {@link io.netty.util.concurrent.EventExecutorGroup} fileGroup = new
+ *          {@link io.netty.util.concurrent.DefaultEventExecutorGroup}(4);
+ *  ...
+ *  p.addLast(fileGroup, "precompressed", <b>new {@link HttpPrecompressedFileHandler}()</b>);
+ *  </pre>
+ * </blockquote>
+ */
+public class HttpPrecompressedFileHandler extends ChannelDuplexHandler {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final String[] ENCODINGS = { "br", "zstd", "gzip" };
+    private static final String[] EXTENSIONS = { ".br", ".zst", ".gz" };
+    // Index of the identity encoding in the q-values returned by qualities(String).
+    private static final int IDENTITY = ENCODINGS.length;
+    // Returned by selectVariant(File, String) if neither a variant nor the file itself is acceptable.
+    private static final int NOT_ACCEPTABLE = -2;
+
+    private static final CharSequence HEAD_REQUEST = "HEAD";
+
+    // The Accept-Encoding header of every request that was not responded to yet.
+    private final Queue<CharSequence> acceptEncodingQueue = new ArrayDeque<CharSequence>();
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) msg;
+            CharSequence acceptEncoding = request.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+            if (HttpMethod.HEAD.equals(request.method())) {
+                acceptEncoding = HEAD_REQUEST;
+            } else if (acceptEncoding == null) {
+                acceptEncoding = HttpContentDecoder.IDENTITY;
+            }
+            acceptEncodingQueue.add(acceptEncoding);
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof HttpResponse) ||
+                ((HttpResponse) msg).status().codeClass() == HttpStatusClass.INFORMATIONAL) {
+            ctx.write(msg, promise);
+            return;
+        }
+        CharSequence acceptEncoding = acceptEncodingQueue.poll();
+        if (!(msg instanceof HttpFileResponse)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        boolean head = acceptEncoding == HEAD_REQUEST;
+
+        HttpFileResponse response = (HttpFileResponse) msg;
+        File file = response.file();
+        int variant = -1;
+        if (!head && acceptEncoding != null) {
+            variant = selectVariant(file, acceptEncoding.toString());
+            if (variant == NOT_ACCEPTABLE) {
+                HttpResponse res = new DefaultFullHttpResponse(response.protocolVersion(),
+                        HttpResponseStatus.NOT_ACCEPTABLE);
+                HttpUtil.setContentLength(res, 0);
+                res.headers().add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+                ctx.write(res, promise);
+                return;
+            }
+        }
+
+        String encoding = null;
+        RandomAccessFile raf = null;
+        long length = 0;
+        if (variant >= 0) {
+            try {
+                raf = new RandomAccessFile(file.getPath() + EXTENSIONS[variant], "r");
+                length = raf.length();
+                encoding = ENCODINGS[variant];
+            } catch (IOException ignore) {
+                // Serve the file itself instead.
+                closeQuietly(raf);
+                raf = null;
+            }
+        }
+        if (raf == null) {
+            try {
+                raf = new RandomAccessFile(file, "r");
+                length = raf.length();
+            } catch (IOException e) {
+                closeQuietly(raf);
+                writeErrorResponse(ctx, response, e);
+                promise.setFailure(e);
+                return;
+            }
+        }
+
+        HttpResponse res = new DefaultHttpResponse(response.protocolVersion(), response.status(), response.headers());
+        HttpUtil.setContentLength(res, length);
+        res.headers().add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+        if (encoding != null) {
+            res.headers().set(HttpHeaderNames.CONTENT_ENCODING, encoding);
+        } else if (ctx.pipeline().get(HttpContentEncoder.class) != null) {
+            // Keep a HttpContentEncoder from encoding the response, it can not encode the file region.
+            res.headers().set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.IDENTITY);
+        }
+        ctx.write(res);
+        if (head) {
+            raf.close();
+            ctx.write(LastHttpContent.EMPTY_LAST_CONTENT, promise);
+        } else if (ctx.pipeline().get(SslHandler.class) != null) {
+            ctx.write(new HttpChunkedInput(new ChunkedFile(raf, 0, length, CHUNK_SIZE)), promise);
+        } else {
+            ctx.write(new DefaultFileRegion(raf.getChannel(), 0, length));
+            ctx.write(LastHttpContent.EMPTY_LAST_CONTENT, promise);
+        }
+    }
+
+    /**
+     * Writes a response without content that tells the client the file could not be opened and closes the
+     * connection, as the response the client waits for is never written.
+     */
+    private static void writeErrorResponse(ChannelHandlerContext ctx, HttpResponse response, IOException cause) {
+        HttpResponseStatus status = cause instanceof FileNotFoundException ?
+                HttpResponseStatus.NOT_FOUND : HttpResponseStatus.INTERNAL_SERVER_ERROR;
+        HttpResponse res = new DefaultFullHttpResponse(response.protocolVersion(), status);
+        HttpUtil.setContentLength(res, 0);
+        res.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        ctx.writeAndFlush(res).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    private static void closeQuietly(RandomAccessFile raf) {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException ignore) {
+                // Nothing we can do about it.
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the variant of {@code file} to serve for the given {@code "Accept-Encoding"} header,
+     * {@code -1} if the file itself should be served or {@link #NOT_ACCEPTABLE} if the client accepts neither.
+     */
+    private static int selectVariant(File file, String acceptEncoding) {
+        float[] q = qualities(acceptEncoding);
+        long lastModified = -1;
+        for (;;) {
+            int best = -1;
+            for (int i = 0; i < ENCODINGS.length; i++) {
+                if (q[i] > 0.0f && (best == -1 || q[i] > q[best])) {
+                    best = i;
+                }
+            }
+            if (best == -1) {
+                return q[IDENTITY] > 0.0f ? -1 : NOT_ACCEPTABLE;
+            }
+            if (lastModified == -1) {
+                lastModified = file.lastModified();
+            }
+            File variant = new File(file.getPath() + EXTENSIONS[best]);
+            if (variant.isFile() && variant.lastModified() >= lastModified) {
+                return best;
+            }
+            q[best] = 0.0f;
+        }
+    }
+
+    /**
+     * Returns the q-values of {@link #ENCODINGS}, followed by the one of the identity encoding, in the given
+     * {@code "Accept-Encoding"} header, taking {@code "*"} into account for encodings that are not listed. The
+     * identity encoding is acceptable unless it is refused explicitly or via {@code "*"}.
+     */
+    private static float[] qualities(String acceptEncoding) {
+        float starQ = -1.0f;
+        float[] q = { -1.0f, -1.0f, -1.0f, -1.0f };
+        for (String encoding : acceptEncoding.split(",")) {
+            float encodingQ = 1.0f;
+            int equalsPos = encoding.indexOf('=');
+            if (equalsPos != -1) {
+                try {
+                    encodingQ = Float.parseFloat(encoding.substring(equalsPos + 1));
+                } catch (NumberFormatException e) {
+                    // Ignore encoding
+                    encodingQ = 0.0f;
+                }
+            }
+            int semicolonPos = encoding.indexOf(';');
+            String coding = (semicolonPos != -1 ? encoding.substring(0, semicolonPos) : encoding).trim();
+            if ("*".equals(coding)) {
+                starQ = encodingQ;
+                continue;
+            }
+            for (int i = 0; i < ENCODINGS.length; i++) {
+                if (ENCODINGS[i].equalsIgnoreCase(coding)) {
+                    q[i] = Math.max(q[i], encodingQ);
+                    break;
+                }
+            }
+            if (HttpHeaderValues.IDENTITY.contentEqualsIgnoreCase(coding)) {
+                q[IDENTITY] = Math.max(q[IDENTITY], encodingQ);
+            }
+        }
+        for (int i = 0; i < ENCODINGS.length; i++) {
+            if (q[i] == -1.0f) {
+                q[i] = Math.max(starQ, 0.0f);
+            }
+        }
+        if (q[IDENTITY] == -1.0f) {
+            q[IDENTITY] = starQ == -1.0f ? 1.0f : starQ;
+        }
+        return q;
+    }
+}
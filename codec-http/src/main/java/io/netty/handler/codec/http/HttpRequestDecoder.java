@@ -81,6 +81,20 @@ public class HttpRequestDecoder extends HttpObjectDecoder {
         super(maxInitialLineLength, maxHeaderSize, maxChunkSize, true, validateHeaders, initialBufferSize);
     }
 
+    /**
+     * Creates a new instance with the specified parameters.
+     *
+     * @param asciiHeaders {@code true} if the header names and values should be decoded as
+     *                     {@link io.netty.util.AsciiString}s which share a single copy of the header block.
+     *                     See {@link HttpObjectDecoder} for details.
+     */
+    public HttpRequestDecoder(
+            int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, boolean validateHeaders,
+            int initialBufferSize, boolean asciiHeaders) {
+        super(maxInitialLineLength, maxHeaderSize, maxChunkSize, true, validateHeaders, initialBufferSize,
+              asciiHeaders);
+    }
+
     @Override
     protected HttpMessage createMessage(String[] initialLine) throws Exception {
         return new DefaultHttpRequest(
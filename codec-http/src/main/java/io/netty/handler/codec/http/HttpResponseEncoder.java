@@ -17,6 +17,7 @@ package io.netty.handler.codec.http;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 
 import static io.netty.handler.codec.http.HttpConstants.*;
 
@@ -26,6 +27,25 @@ import static io.netty.handler.codec.http.HttpConstants.*;
  */
 public class HttpResponseEncoder extends HttpObjectEncoder<HttpResponse> {
 
+    // The complete "HTTP/1.1 <code> <reason phrase>\r\n" lines of the well known statuses, indexed by code.
+    private static final HttpResponseStatus[] STATUSES = new HttpResponseStatus[600];
+    private static final byte[][] HTTP_1_1_STATUS_LINES = new byte[STATUSES.length][];
+
+    static {
+        for (int code = 100; code < STATUSES.length; code++) {
+            HttpResponseStatus status = HttpResponseStatus.valueOf(code);
+            if (status == HttpResponseStatus.valueOf(code)) {
+                STATUSES[code] = status;
+                ByteBuf buf = Unpooled.buffer();
+                HttpVersion.HTTP_1_1.encode(buf);
+                buf.writeByte(SP);
+                status.encode(buf);
+                ByteBufUtil.writeShortBE(buf, CRLF_SHORT);
+                HTTP_1_1_STATUS_LINES[code] = ByteBufUtil.getBytes(buf);
+            }
+        }
+    }
+
     @Override
     public boolean acceptOutboundMessage(Object msg) throws Exception {
         return super.acceptOutboundMessage(msg) && !(msg instanceof HttpRequest);
@@ -33,6 +53,13 @@ public class HttpResponseEncoder extends HttpObjectEncoder<HttpResponse> {
 
     @Override
     protected void encodeInitialLine(ByteBuf buf, HttpResponse response) throws Exception {
+        HttpResponseStatus status = response.status();
+        int code = status.code();
+        if (response.protocolVersion() == HttpVersion.HTTP_1_1 && code >= 0 && code < STATUSES.length &&
+                STATUSES[code] == status) {
+            buf.writeBytes(HTTP_1_1_STATUS_LINES[code]);
+            return;
+        }
         response.protocolVersion().encode(buf);
         buf.writeByte(SP);
         response.status().encode(buf);
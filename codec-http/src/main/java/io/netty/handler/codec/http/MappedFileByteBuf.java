@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledDirectByteBuf;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A buffer that maps a temporary file into memory and unmaps and deletes the file once it is released.
+ */
+final class MappedFileByteBuf extends UnpooledDirectByteBuf {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(MappedFileByteBuf.class);
+
+    private final File file;
+    private final MappedByteBuffer mapped;
+
+    /**
+     * Maps the first {@code length} bytes of the file and closes the {@link FileChannel}.
+     */
+    static MappedFileByteBuf map(ByteBufAllocator alloc, File file, FileChannel channel, int length)
+            throws IOException {
+        try {
+            return new MappedFileByteBuf(alloc, file, channel.map(MapMode.READ_WRITE, 0, length));
+        } finally {
+            channel.close();
+        }
+    }
+
+    private MappedFileByteBuf(ByteBufAllocator alloc, File file, MappedByteBuffer mapped) {
+        super(alloc, mapped, mapped.remaining());
+        this.file = file;
+        this.mapped = mapped;
+    }
+
+    @Override
+    protected void deallocate() {
+        super.deallocate();
+        PlatformDependent.freeDirectBuffer(mapped);
+        if (!file.delete()) {
+            logger.debug("Failed to delete the temporary file: {}", file);
+        }
+    }
+}
@@ -22,11 +22,13 @@ import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import static io.netty.util.internal.EmptyArrays.EMPTY_INTS;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import static io.netty.util.internal.ObjectUtil.checkPositive;
 import static io.netty.util.internal.StringUtil.EMPTY_STRING;
@@ -58,6 +60,12 @@ import static io.netty.util.internal.StringUtil.decodeHexByte;
  * default, and you can configure it when you construct the decoder by passing an additional
  * integer parameter.
  *
+ * <h3>Reading single parameters</h3>
+ *
+ * {@link #parameter(String)} and {@link #forEachParameter(ParameterVisitor)} only record where the parameters are
+ * in the URI and decode a name or value when it is needed, so they are cheaper than {@link #parameters()} when
+ * only a few of many parameters are read.
+ *
  * @see QueryStringEncoder
  */
 public class QueryStringDecoder {
@@ -71,6 +79,8 @@ public class QueryStringDecoder {
     private int pathEndIdx;
     private String path;
     private Map<String, List<String>> params;
+    // nameStart, valueStart and valueEnd of each parameter in the uri
+    private int[] paramIndex;
 
     /**
      * Creates a new decoder that decodes the specified URI. The decoder will
@@ -196,11 +206,49 @@ public class QueryStringDecoder {
      */
     public Map<String, List<String>> parameters() {
         if (params == null) {
-            params = decodeParams(uri, pathEndIdx(), charset, maxParams, semicolonIsNormalChar);
+            params = decodeParams();
         }
         return params;
     }
 
+    /**
+     * Returns the first decoded value of the parameter with the specified name, or {@code null} if there is no
+     * such parameter. Only the value of the matching parameter is decoded.
+     */
+    public String parameter(String name) {
+        checkNotNull(name, "name");
+        if (params != null) {
+            List<String> values = params.get(name);
+            return values == null ? null : values.get(0);
+        }
+        final int[] index = paramIndex();
+        for (int i = 0; i < index.length; i += 3) {
+            if (nameEquals(uri, index[i], index[i + 1] - 1, name, charset)) {
+                return decodeComponent(uri, index[i + 1], index[i + 2], charset, false);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the key-value parameter pairs of the URI one by one, in the order they appear, and passes them to
+     * the specified visitor without building the {@link Map} returned by {@link #parameters()}.
+     *
+     * @return {@code false} if the visitor stopped the iteration, {@code true} otherwise
+     */
+    public boolean forEachParameter(ParameterVisitor visitor) {
+        checkNotNull(visitor, "visitor");
+        final int[] index = paramIndex();
+        for (int i = 0; i < index.length; i += 3) {
+            String name = decodeComponent(uri, index[i], index[i + 1] - 1, charset, false);
+            String value = decodeComponent(uri, index[i + 1], index[i + 2], charset, false);
+            if (!visitor.visit(name, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Returns the raw path string of the URI.
      */
@@ -223,16 +271,42 @@ public class QueryStringDecoder {
         return pathEndIdx;
     }
 
-    private static Map<String, List<String>> decodeParams(String s, int from, Charset charset, int paramsLimit,
-                                                          boolean semicolonIsNormalChar) {
+    private Map<String, List<String>> decodeParams() {
+        if (pathEndIdx() >= uri.length()) {
+            return Collections.emptyMap();
+        }
+        final int[] index = paramIndex();
+        Map<String, List<String>> params = new LinkedHashMap<String, List<String>>();
+        for (int i = 0; i < index.length; i += 3) {
+            String name = decodeComponent(uri, index[i], index[i + 1] - 1, charset, false);
+            String value = decodeComponent(uri, index[i + 1], index[i + 2], charset, false);
+            List<String> values = params.get(name);
+            if (values == null) {
+                values = new ArrayList<String>(1);  // Often there's only 1 value.
+                params.put(name, values);
+            }
+            values.add(value);
+        }
+        return params;
+    }
+
+    private int[] paramIndex() {
+        if (paramIndex == null) {
+            paramIndex = indexParams(uri, pathEndIdx(), maxParams, semicolonIsNormalChar);
+        }
+        return paramIndex;
+    }
+
+    private static int[] indexParams(String s, int from, int paramsLimit, boolean semicolonIsNormalChar) {
         int len = s.length();
         if (from >= len) {
-            return Collections.emptyMap();
+            return EMPTY_INTS;
         }
         if (s.charAt(from) == '?') {
             from++;
         }
-        Map<String, List<String>> params = new LinkedHashMap<String, List<String>>();
+        int[] index = new int[3 * 8];
+        int size = 0;
         int nameStart = from;
         int valueStart = -1;
         int i;
@@ -252,10 +326,12 @@ public class QueryStringDecoder {
                 }
                 // fall-through
             case '&':
-                if (addParam(s, nameStart, valueStart, i, params, charset)) {
+                if (nameStart < i) {
+                    index = addParam(index, size, nameStart, valueStart, i);
+                    size += 3;
                     paramsLimit--;
                     if (paramsLimit == 0) {
-                        return params;
+                        return Arrays.copyOf(index, size);
                     }
                 }
                 nameStart = i + 1;
@@ -266,27 +342,39 @@ public class QueryStringDecoder {
                 // continue
             }
         }
-        addParam(s, nameStart, valueStart, i, params, charset);
-        return params;
+        if (nameStart < i) {
+            index = addParam(index, size, nameStart, valueStart, i);
+            size += 3;
+        }
+        return size == index.length ? index : Arrays.copyOf(index, size);
     }
 
-    private static boolean addParam(String s, int nameStart, int valueStart, int valueEnd,
-                                    Map<String, List<String>> params, Charset charset) {
-        if (nameStart >= valueEnd) {
-            return false;
+    private static int[] addParam(int[] index, int size, int nameStart, int valueStart, int valueEnd) {
+        if (size == index.length) {
+            index = Arrays.copyOf(index, size << 1);
         }
         if (valueStart <= nameStart) {
             valueStart = valueEnd + 1;
         }
-        String name = decodeComponent(s, nameStart, valueStart - 1, charset, false);
-        String value = decodeComponent(s, valueStart, valueEnd, charset, false);
-        List<String> values = params.get(name);
-        if (values == null) {
-            values = new ArrayList<String>(1);  // Often there's only 1 value.
-            params.put(name, values);
+        index[size] = nameStart;
+        index[size + 1] = valueStart;
+        index[size + 2] = valueEnd;
+        return index;
+    }
+
+    private static boolean nameEquals(String s, int from, int toExcluded, String name, Charset charset) {
+        int nameLen = name.length();
+        for (int i = from; i < toExcluded; i++) {
+            char c = s.charAt(i);
+            if (c == '%' || c == '+') {
+                // Everything before the first escaped character is taken as is, so only decode if needed.
+                return name.equals(decodeComponent(s, from, toExcluded, charset, false));
+            }
+            if (i - from >= nameLen || c != name.charAt(i - from)) {
+                return false;
+            }
         }
-        values.add(value);
-        return true;
+        return toExcluded - from == nameLen;
     }
 
     /**
@@ -390,4 +478,15 @@ public class QueryStringDecoder {
         }
         return len;
     }
+
+    /**
+     * Receives the decoded key-value parameter pairs passed by
+     * {@link QueryStringDecoder#forEachParameter(ParameterVisitor)}.
+     */
+    public interface ParameterVisitor {
+        /**
+         * @return {@code true} to continue with the next parameter, {@code false} to stop
+         */
+        boolean visit(String name, String value);
+    }
 }
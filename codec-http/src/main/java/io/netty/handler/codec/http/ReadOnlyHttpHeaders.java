@@ -40,11 +40,12 @@ import static io.netty.util.AsciiString.contentEqualsIgnoreCase;
  * arrays may be modified it is the caller's responsibility to supply this class with a copy of the array.
  * <p>
  * This may be a good alternative to {@link DefaultHttpHeaders} if your have a fixed set of headers which will not
- * change.
+ * change. The HTTP/1.x encoders cache the encoded form of an instance, so writing it again only needs a single copy.
  */
 @UnstableApi
 public final class ReadOnlyHttpHeaders extends HttpHeaders {
     private final CharSequence[] nameValuePairs;
+    private volatile byte[] encoded;
 
     /**
      * Create a new instance.
@@ -63,6 +64,18 @@ public final class ReadOnlyHttpHeaders extends HttpHeaders {
         this.nameValuePairs = nameValuePairs;
     }
 
+    /**
+     * Returns the headers as they are written on the wire by HTTP/1.x, i.e. {@code name: value\r\n} for each
+     * header. The returned array must not be modified.
+     */
+    byte[] encoded() {
+        byte[] encoded = this.encoded;
+        if (encoded == null) {
+            this.encoded = encoded = HttpHeadersEncoder.encodeHeaders(this);
+        }
+        return encoded;
+    }
+
     private static IllegalArgumentException newInvalidArraySizeException() {
         return new IllegalArgumentException("nameValuePairs must be arrays of [name, value] pairs");
     }
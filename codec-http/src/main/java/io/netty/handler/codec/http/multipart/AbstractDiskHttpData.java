@@ -156,7 +156,6 @@ public abstract class AbstractDiskHttpData extends AbstractHttpData {
                     throw new IOException("Out of size: " + (size + localsize) +
                             " > " + definedSize);
                 }
-                ByteBuffer byteBuffer = buffer.nioBufferCount() == 1 ? buffer.nioBuffer() : buffer.copy().nioBuffer();
                 int written = 0;
                 if (file == null) {
                     file = tempFile();
@@ -165,8 +164,17 @@ public abstract class AbstractDiskHttpData extends AbstractHttpData {
                     RandomAccessFile accessFile = new RandomAccessFile(file, "rw");
                     fileChannel = accessFile.getChannel();
                 }
-                while (written < localsize) {
-                    written += fileChannel.write(byteBuffer);
+                if (buffer.nioBufferCount() == 1) {
+                    ByteBuffer byteBuffer = buffer.nioBuffer();
+                    while (written < localsize) {
+                        written += fileChannel.write(byteBuffer);
+                    }
+                } else {
+                    // gathering write, so composite buffers do not need to be copied first
+                    ByteBuffer[] byteBuffers = buffer.nioBuffers();
+                    while (written < localsize) {
+                        written += fileChannel.write(byteBuffers);
+                    }
                 }
                 size += localsize;
                 buffer.readerIndex(buffer.readerIndex() + written);
@@ -16,6 +16,9 @@
 package io.netty.handler.codec.http.multipart;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpConstants;
+
+import java.util.Arrays;
 
 /**
  * Shared Static object between HttpMessageDecoder, HttpPostRequestDecoder and HttpPostRequestEncoder
@@ -122,6 +125,98 @@ final class HttpPostBodyUtil {
         }
     }
 
+    /**
+     * Finds a multipart delimiter that starts a new line using the Boyer-Moore-Horspool algorithm, so that most
+     * bytes of a body part are skipped instead of being compared one by one.
+     */
+    static final class DelimiterFinder {
+        private final String delimiter;
+        // LF followed by the delimiter
+        private final byte[] pattern;
+        private final int[] skipTable = new int[256];
+
+        DelimiterFinder(String delimiter) {
+            this.delimiter = delimiter;
+            int length = delimiter.length() + 1;
+            pattern = new byte[length];
+            pattern[0] = HttpConstants.LF;
+            for (int i = 1; i < length; i++) {
+                pattern[i] = (byte) delimiter.charAt(i - 1);
+            }
+            Arrays.fill(skipTable, length);
+            for (int i = 0; i < length - 1; i++) {
+                skipTable[pattern[i] & 0xFF] = length - 1 - i;
+            }
+        }
+
+        String delimiter() {
+            return delimiter;
+        }
+
+        /**
+         * Returns the number of bytes at the end of a searched range that may hold the start of a delimiter
+         * which is completed by more data.
+         */
+        int maxPartialMatch() {
+            return pattern.length - 1;
+        }
+
+        /**
+         * Returns the index of the LF that precedes the delimiter in the range {@code [fromIndex, toIndex)} of the
+         * buffer, or {@code -1} if the range does not contain the delimiter.
+         */
+        int indexOf(ByteBuf buffer, int fromIndex, int toIndex) {
+            final byte[] pattern = this.pattern;
+            final int last = pattern.length - 1;
+            if (buffer.hasArray()) {
+                final byte[] array = buffer.array();
+                final int offset = buffer.arrayOffset();
+                final int end = toIndex + offset - last;
+                int i = fromIndex + offset;
+                while (i < end) {
+                    int j = last;
+                    while (array[i + j] == pattern[j]) {
+                        if (j == 0) {
+                            return i - offset;
+                        }
+                        j--;
+                    }
+                    i += skipTable[array[i + last] & 0xFF];
+                }
+            } else {
+                final int end = toIndex - last;
+                int i = fromIndex;
+                while (i < end) {
+                    int j = last;
+                    while (buffer.getByte(i + j) == pattern[j]) {
+                        if (j == 0) {
+                            return i;
+                        }
+                        j--;
+                    }
+                    i += skipTable[buffer.getByte(i + last) & 0xFF];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns {@code true} if the delimiter, without the preceding LF, starts at {@code index}.
+         */
+        boolean isDelimiterAt(ByteBuf buffer, int index, int toIndex) {
+            final int length = pattern.length - 1;
+            if (toIndex - index < length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buffer.getByte(index + i) != pattern[i + 1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     /**
      * Find the first non whitespace
      * @return the rank of the first non whitespace
@@ -23,6 +23,7 @@ import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.multipart.HttpPostBodyUtil.DelimiterFinder;
 import io.netty.handler.codec.http.multipart.HttpPostBodyUtil.SeekAheadOptimize;
 import io.netty.handler.codec.http.multipart.HttpPostBodyUtil.TransferEncodingMechanism;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder.EndOfDataDecoderException;
@@ -128,6 +129,12 @@ public class HttpPostMultipartRequestDecoder implements InterfaceHttpPostRequest
 
     private int discardThreshold = HttpPostRequestDecoder.DEFAULT_DISCARD_THRESHOLD;
 
+    /**
+     * Cached delimiter finders for the data boundary and the current mixed boundary
+     */
+    private DelimiterFinder dataDelimiterFinder;
+    private DelimiterFinder mixedDelimiterFinder;
+
     /**
      *
      * @param request
@@ -321,13 +328,16 @@ public class HttpPostMultipartRequestDecoder implements InterfaceHttpPostRequest
     public HttpPostMultipartRequestDecoder offer(HttpContent content) {
         checkDestroyed();
 
-        // Maybe we should better not copy here for performance reasons but this will need
-        // more care by the caller to release the content in a correct manner later
-        // So maybe something to optimize on a later stage
         ByteBuf buf = content.content();
         if (undecodedChunk == null) {
-            undecodedChunk = buf.copy();
+            undecodedChunk = buf.alloc().buffer(buf.readableBytes()).writeBytes(buf);
         } else {
+            // Reclaim the already decoded bytes before growing the buffer, as long as no HttpData still holds
+            // a slice of it.
+            if (undecodedChunk.refCnt() == 1 && undecodedChunk.writableBytes() < buf.readableBytes() &&
+                    undecodedChunk.readerIndex() > 0) {
+                undecodedChunk.discardReadBytes();
+            }
             undecodedChunk.writeBytes(buf);
         }
         if (content instanceof LastHttpContent) {
@@ -335,7 +345,15 @@ public class HttpPostMultipartRequestDecoder implements InterfaceHttpPostRequest
         }
         parseBody();
         if (undecodedChunk != null && undecodedChunk.writerIndex() > discardThreshold) {
-            undecodedChunk.discardReadBytes();
+            if (undecodedChunk.refCnt() == 1) {
+                undecodedChunk.discardReadBytes();
+            } else {
+                // Still referenced by slices given to HttpData, so move the remaining bytes to a new buffer.
+                ByteBuf buffer = undecodedChunk.alloc().buffer(undecodedChunk.readableBytes());
+                buffer.writeBytes(undecodedChunk);
+                undecodedChunk.release();
+                undecodedChunk = buffer;
+            }
         }
         return this;
     }
@@ -1287,35 +1305,32 @@ public class HttpPostMultipartRequestDecoder implements InterfaceHttpPostRequest
      * @return {@code true} if the last chunk is loaded (boundary delimiter found), {@code false} if need more chunks
      * @throws ErrorDataDecoderException
      */
-    private static boolean loadDataMultipartStandard(ByteBuf undecodedChunk, String delimiter, HttpData httpData) {
+    private boolean loadDataMultipart(ByteBuf undecodedChunk, String delimiter, HttpData httpData) {
+        final DelimiterFinder finder = delimiterFinder(delimiter);
         final int startReaderIndex = undecodedChunk.readerIndex();
-        final int delimeterLength = delimiter.length();
-        int index = 0;
-        int lastPosition = startReaderIndex;
-        byte prevByte = HttpConstants.LF;
-        boolean delimiterFound = false;
-        while (undecodedChunk.isReadable()) {
-            final byte nextByte = undecodedChunk.readByte();
-            // Check the delimiter
-            if (prevByte == HttpConstants.LF && nextByte == delimiter.codePointAt(index)) {
-                index++;
-                if (delimeterLength == index) {
-                    delimiterFound = true;
-                    break;
-                }
-                continue;
+        final int writerIndex = undecodedChunk.writerIndex();
+        int lastPosition;
+        boolean delimiterFound;
+        if (httpData.length() == 0 && finder.isDelimiterAt(undecodedChunk, startReaderIndex, writerIndex)) {
+            // empty value directly followed by the delimiter
+            lastPosition = startReaderIndex;
+            delimiterFound = true;
+        } else {
+            lastPosition = finder.indexOf(undecodedChunk, startReaderIndex, writerIndex);
+            delimiterFound = lastPosition >= 0;
+            if (!delimiterFound) {
+                // Keep the bytes that may be the beginning of the delimiter for the next chunk.
+                lastPosition = Math.max(startReaderIndex, writerIndex - finder.maxPartialMatch());
             }
-            lastPosition = undecodedChunk.readerIndex();
-            if (nextByte == HttpConstants.LF) {
-                index = 0;
-                lastPosition -= (prevByte == HttpConstants.CR)? 2 : 1;
+            if (lastPosition > startReaderIndex && undecodedChunk.getByte(lastPosition - 1) == HttpConstants.CR) {
+                lastPosition--;
             }
-            prevByte = nextByte;
-        }
-        if (prevByte == HttpConstants.CR) {
-            lastPosition--;
         }
-        ByteBuf content = undecodedChunk.copy(startReaderIndex, lastPosition - startReaderIndex);
+        final int length = lastPosition - startReaderIndex;
+        // Data that is kept in memory gets its own copy so the undecoded buffer can still be compacted, while
+        // data that goes to disk is written straight from the undecoded buffer.
+        final ByteBuf content = httpData.isInMemory() ? undecodedChunk.copy(startReaderIndex, length)
+                : undecodedChunk.retainedSlice(startReaderIndex, length);
         try {
             httpData.addContent(content, delimiterFound);
         } catch (IOException e) {
@@ -1325,53 +1340,17 @@ public class HttpPostMultipartRequestDecoder implements InterfaceHttpPostRequest
         return delimiterFound;
     }
 
-    /**
-     * Load the field value from a Multipart request
-     *
-     * @return {@code true} if the last chunk is loaded (boundary delimiter found), {@code false} if need more chunks
-     * @throws ErrorDataDecoderException
-     */
-    private static boolean loadDataMultipart(ByteBuf undecodedChunk, String delimiter, HttpData httpData) {
-        if (!undecodedChunk.hasArray()) {
-            return loadDataMultipartStandard(undecodedChunk, delimiter, httpData);
-        }
-        final SeekAheadOptimize sao = new SeekAheadOptimize(undecodedChunk);
-        final int startReaderIndex = undecodedChunk.readerIndex();
-        final int delimeterLength = delimiter.length();
-        int index = 0;
-        int lastRealPos = sao.pos;
-        byte prevByte = HttpConstants.LF;
-        boolean delimiterFound = false;
-        while (sao.pos < sao.limit) {
-            final byte nextByte = sao.bytes[sao.pos++];
-            // Check the delimiter
-            if (prevByte == HttpConstants.LF && nextByte == delimiter.codePointAt(index)) {
-                index++;
-                if (delimeterLength == index) {
-                    delimiterFound = true;
-                    break;
-                }
-                continue;
-            }
-            lastRealPos = sao.pos;
-            if (nextByte == HttpConstants.LF) {
-                index = 0;
-                lastRealPos -= (prevByte == HttpConstants.CR)? 2 : 1;
+    private DelimiterFinder delimiterFinder(String delimiter) {
+        if (delimiter.equals(multipartDataBoundary)) {
+            if (dataDelimiterFinder == null) {
+                dataDelimiterFinder = new DelimiterFinder(delimiter);
             }
-            prevByte = nextByte;
+            return dataDelimiterFinder;
         }
-        if (prevByte == HttpConstants.CR) {
-            lastRealPos--;
+        if (mixedDelimiterFinder == null || !mixedDelimiterFinder.delimiter().equals(delimiter)) {
+            mixedDelimiterFinder = new DelimiterFinder(delimiter);
         }
-        final int lastPosition = sao.getReadPosition(lastRealPos);
-        final ByteBuf content = undecodedChunk.copy(startReaderIndex, lastPosition - startReaderIndex);
-        try {
-            httpData.addContent(content, delimiterFound);
-        } catch (IOException e) {
-            throw new ErrorDataDecoderException(e);
-        }
-        undecodedChunk.readerIndex(lastPosition);
-        return delimiterFound;
+        return mixedDelimiterFinder;
     }
 
     /**
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * {@link ChannelPool} for HTTP/1.x client connections to a single host that only hands out connections again which
+ * can carry another request.
+ * <p>
+ * Each new connection gets a {@link HttpClientCodec} and a handler that tracks requests and responses before the
+ * given {@link ChannelPoolHandler} is notified, so the handler can add an {@code SslHandler} via
+ * {@link io.netty.channel.ChannelPipeline#addFirst(io.netty.channel.ChannelHandler...)} and its own handlers via
+ * {@link io.netty.channel.ChannelPipeline#addLast(io.netty.channel.ChannelHandler...)}.
+ * <p>
+ * A released connection is closed instead of being pooled if
+ * <ul>
+ *     <li>a response is still outstanding,</li>
+ *     <li>the request or the response asked to close the connection (including HTTP/1.0 without keep-alive) or
+ *     the protocol was switched,</li>
+ *     <li>it was idle for longer than the {@code timeout} of the server's {@code Keep-Alive} header or
+ *     {@code maxIdleTimeMillis}.</li>
+ * </ul>
+ * Pooled connections are closed once they exceed their idle time. Like {@link FixedChannelPool} the number of
+ * connections is limited and further acquires wait in a bounded queue.
+ */
+public class HttpClientChannelPool extends FixedChannelPool {
+
+    private final HttpClientPoolHandler poolHandler;
+    private final LongCounter acquireTimeNanos = PlatformDependent.newLongCounter();
+
+    /**
+     * Creates a new instance that does not limit the pending acquires and the idle time of connections.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections, it must have a remote address
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param maxConnections    the maximum number of connections
+     */
+    public HttpClientChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnections) {
+        this(bootstrap, handler, maxConnections, Integer.MAX_VALUE, -1, -1);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections, it must have a remote address
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool
+     *                              actions
+     * @param maxConnections        the maximum number of connections
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     * @param acquireTimeoutMillis  the time (in milliseconds) after which a pending acquire is failed with a
+     *                              {@link java.util.concurrent.TimeoutException}, or {@code -1} to wait forever
+     * @param maxIdleTimeMillis     the time (in milliseconds) after which a connection that was not used is closed,
+     *                              or {@code -1} to only apply the {@code Keep-Alive} timeout of the server
+     */
+    public HttpClientChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnections,
+                                 int maxPendingAcquires, long acquireTimeoutMillis, long maxIdleTimeMillis) {
+        super(bootstrap, new HttpClientPoolHandler(handler, maxIdleTimeMillis > 0 ?
+                        TimeUnit.MILLISECONDS.toNanos(maxIdleTimeMillis) : -1),
+                HttpClientConnectionTracker.HEALTH_CHECKER,
+                acquireTimeoutMillis == -1 ? null : AcquireTimeoutAction.FAIL, acquireTimeoutMillis,
+                maxConnections, maxPendingAcquires, true, true);
+        poolHandler = (HttpClientPoolHandler) handler();
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        checkNotNull(promise, "promise");
+        final long start = System.nanoTime();
+        promise.addListener(new FutureListener<Channel>() {
+            @Override
+            public void operationComplete(Future<Channel> future) {
+                if (future.isSuccess()) {
+                    acquireTimeNanos.add(System.nanoTime() - start);
+                }
+            }
+        });
+        return super.acquire(promise);
+    }
+
+    /**
+     * Returns the number of connections this pool opened.
+     */
+    public long connectCount() {
+        return poolHandler.connectCount.value();
+    }
+
+    /**
+     * Returns the number of successful acquires.
+     */
+    public long acquireCount() {
+        return poolHandler.acquireCount.value();
+    }
+
+    /**
+     * Returns the number of successful acquires that returned a connection which was used before.
+     */
+    public long reuseCount() {
+        return poolHandler.reuseCount.value();
+    }
+
+    /**
+     * Returns the ratio of acquires that returned a connection which was used before, or {@code 0} if there were
+     * no acquires yet.
+     */
+    public double reuseRatio() {
+        long acquires = acquireCount();
+        return acquires == 0 ? 0 : (double) reuseCount() / acquires;
+    }
+
+    /**
+     * Returns the total time in nanoseconds successful acquires took, including waiting for a free connection and
+     * connecting. Divide by {@link #acquireCount()} for the mean acquire latency.
+     */
+    public long totalAcquireTimeNanos() {
+        return acquireTimeNanos.value();
+    }
+}
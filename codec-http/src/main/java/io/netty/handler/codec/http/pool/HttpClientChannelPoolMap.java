@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.ChannelPoolHandler;
+
+import java.net.SocketAddress;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Keeps one {@link HttpClientChannelPool} per remote address, so the connection limit applies per host.
+ */
+public class HttpClientChannelPoolMap extends AbstractChannelPoolMap<SocketAddress, HttpClientChannelPool> {
+
+    private final Bootstrap bootstrap;
+    private final ChannelPoolHandler handler;
+    private final int maxConnectionsPerHost;
+    private final int maxPendingAcquires;
+    private final long acquireTimeoutMillis;
+    private final long maxIdleTimeMillis;
+
+    /**
+     * Creates a new instance. See
+     * {@link HttpClientChannelPool#HttpClientChannelPool(Bootstrap, ChannelPoolHandler, int, int, long, long)}
+     * for the parameters.
+     */
+    public HttpClientChannelPoolMap(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnectionsPerHost,
+                                    int maxPendingAcquires, long acquireTimeoutMillis, long maxIdleTimeMillis) {
+        this.bootstrap = checkNotNull(bootstrap, "bootstrap");
+        this.handler = checkNotNull(handler, "handler");
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.maxPendingAcquires = maxPendingAcquires;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.maxIdleTimeMillis = maxIdleTimeMillis;
+    }
+
+    @Override
+    protected HttpClientChannelPool newPool(SocketAddress key) {
+        return new HttpClientChannelPool(bootstrap.clone().remoteAddress(key), handler, maxConnectionsPerHost,
+                maxPendingAcquires, acquireTimeoutMillis, maxIdleTimeMillis);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the requests and responses of a pooled HTTP/1.x client connection to tell if it can be reused.
+ * It must be placed right after the {@link io.netty.handler.codec.http.HttpClientCodec}.
+ */
+final class HttpClientConnectionTracker extends ChannelDuplexHandler {
+
+    // HttpHeaderNames.KEEP_ALIVE is deprecated as the header is not part of HTTP/2, but HTTP/1.x servers still use
+    // it to tell how long an idle connection is kept open.
+    private static final AsciiString KEEP_ALIVE = AsciiString.cached("keep-alive");
+
+    /**
+     * {@link ChannelHealthChecker} that only accepts connections that have no outstanding response, were not closed
+     * by either side via {@code Connection: close} and did not exceed their idle timeout.
+     */
+    static final ChannelHealthChecker HEALTH_CHECKER = new ChannelHealthChecker() {
+        @Override
+        public Future<Boolean> isHealthy(Channel channel) {
+            HttpClientConnectionTracker tracker = channel.pipeline().get(HttpClientConnectionTracker.class);
+            return channel.eventLoop().newSucceededFuture(
+                    tracker != null && tracker.isReusable() ? Boolean.TRUE : Boolean.FALSE);
+        }
+    };
+
+    private final long maxIdleTimeNanos;
+    private ChannelHandlerContext ctx;
+    private int pendingResponses;
+    private boolean informational;
+    private boolean keepAlive = true;
+    private boolean used;
+    private long keepAliveTimeoutNanos = -1;
+    private long idleSinceNanos = System.nanoTime();
+    private ScheduledFuture<?> idleCloseFuture;
+
+    HttpClientConnectionTracker(long maxIdleTimeNanos) {
+        this.maxIdleTimeNanos = maxIdleTimeNanos;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof HttpRequest) {
+            pendingResponses++;
+            if (!HttpUtil.isKeepAlive((HttpRequest) msg)) {
+                keepAlive = false;
+            }
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        // Update the state before passing the message on, so a handler that releases the channel once it saw the
+        // last content will find it reusable.
+        if (msg instanceof HttpObject && ((HttpObject) msg).decoderResult().isFailure()) {
+            keepAlive = false;
+        }
+        if (msg instanceof HttpResponse) {
+            responseReceived((HttpResponse) msg);
+        }
+        if (msg instanceof LastHttpContent) {
+            if (informational) {
+                informational = false;
+            } else if (pendingResponses > 0) {
+                pendingResponses--;
+                idleSinceNanos = System.nanoTime();
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void responseReceived(HttpResponse response) {
+        HttpResponseStatus status = response.status();
+        if (status.code() == HttpResponseStatus.SWITCHING_PROTOCOLS.code()) {
+            // Not an HTTP/1.x connection anymore.
+            keepAlive = false;
+        } else if (status.codeClass() == HttpStatusClass.INFORMATIONAL) {
+            informational = true;
+        } else if (!HttpUtil.isKeepAlive(response)) {
+            keepAlive = false;
+        } else {
+            String value = response.headers().get(KEEP_ALIVE);
+            if (value != null) {
+                keepAliveTimeoutNanos = parseKeepAliveTimeoutNanos(value, keepAliveTimeoutNanos);
+            }
+        }
+    }
+
+    /**
+     * Parses the {@code timeout} parameter of a {@code Keep-Alive} header value like {@code timeout=5, max=100}.
+     */
+    static long parseKeepAliveTimeoutNanos(String value, long defaultValue) {
+        for (String param : value.split(",")) {
+            param = param.trim();
+            if (param.regionMatches(true, 0, "timeout=", 0, 8)) {
+                try {
+                    long seconds = Long.parseLong(param.substring(8).trim());
+                    if (seconds >= 0) {
+                        return TimeUnit.SECONDS.toNanos(seconds);
+                    }
+                } catch (NumberFormatException ignore) {
+                    // fall through to the default
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Returns {@code true} if another request may be sent on this connection.
+     */
+    boolean isReusable() {
+        if (!ctx.channel().isActive() || !keepAlive || pendingResponses != 0) {
+            return false;
+        }
+        long idleTimeoutNanos = idleTimeoutNanos();
+        return idleTimeoutNanos < 0 || System.nanoTime() - idleSinceNanos < idleTimeoutNanos;
+    }
+
+    private long idleTimeoutNanos() {
+        if (maxIdleTimeNanos <= 0) {
+            return keepAliveTimeoutNanos;
+        }
+        return keepAliveTimeoutNanos < 0 ? maxIdleTimeNanos : Math.min(maxIdleTimeNanos, keepAliveTimeoutNanos);
+    }
+
+    /**
+     * Called when the connection was acquired from the pool.
+     *
+     * @return {@code true} if the connection was used before
+     */
+    boolean acquired() {
+        if (idleCloseFuture != null) {
+            idleCloseFuture.cancel(false);
+            idleCloseFuture = null;
+        }
+        boolean reused = used;
+        used = true;
+        return reused;
+    }
+
+    /**
+     * Called when the connection was returned to the pool. Closes it once it was idle for too long so it does not
+     * hold on to a socket that the server will close anyway.
+     */
+    void released() {
+        long idleTimeoutNanos = idleTimeoutNanos();
+        if (idleTimeoutNanos >= 0) {
+            long delay = idleTimeoutNanos - (System.nanoTime() - idleSinceNanos);
+            idleCloseFuture = ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.channel().close();
+                }
+            }, Math.max(0, delay), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * {@link ChannelPoolHandler} that sets up the HTTP/1.x pipeline of pooled connections, closes connections that can
+ * not be reused on release and counts the pool events for the metrics of {@link HttpClientChannelPool}.
+ */
+final class HttpClientPoolHandler implements ChannelPoolHandler {
+
+    private final ChannelPoolHandler handler;
+    private final long maxIdleTimeNanos;
+    final LongCounter connectCount = PlatformDependent.newLongCounter();
+    final LongCounter acquireCount = PlatformDependent.newLongCounter();
+    final LongCounter reuseCount = PlatformDependent.newLongCounter();
+
+    HttpClientPoolHandler(ChannelPoolHandler handler, long maxIdleTimeNanos) {
+        this.handler = checkNotNull(handler, "handler");
+        this.maxIdleTimeNanos = maxIdleTimeNanos;
+    }
+
+    @Override
+    public void channelCreated(Channel ch) throws Exception {
+        connectCount.increment();
+        ch.pipeline().addLast(new HttpClientCodec(), new HttpClientConnectionTracker(maxIdleTimeNanos));
+        handler.channelCreated(ch);
+    }
+
+    @Override
+    public void channelAcquired(Channel ch) throws Exception {
+        acquireCount.increment();
+        HttpClientConnectionTracker tracker = ch.pipeline().get(HttpClientConnectionTracker.class);
+        if (tracker != null && tracker.acquired()) {
+            reuseCount.increment();
+        }
+        handler.channelAcquired(ch);
+    }
+
+    @Override
+    public void channelReleased(Channel ch) throws Exception {
+        handler.channelReleased(ch);
+        HttpClientConnectionTracker tracker = ch.pipeline().get(HttpClientConnectionTracker.class);
+        if (tracker != null && tracker.isReusable()) {
+            tracker.released();
+        } else {
+            // Not offered back to the pool, see HttpClientConnectionTracker.HEALTH_CHECKER.
+            ch.close();
+        }
+    }
+}
@@ -37,6 +37,7 @@ package io.netty.handler.codec.http.websocketx;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.util.ByteProcessor;
+import io.netty.util.internal.SWARUtil;
 
 /**
  * Checks UTF8 bytes for validity
@@ -70,7 +71,15 @@ final class Utf8Validator implements ByteProcessor {
 
     public void check(ByteBuf buffer) {
         checking = true;
-        buffer.forEachByte(this);
+        int index = buffer.readerIndex();
+        final int endIndex = buffer.writerIndex();
+        if (state == UTF8_ACCEPT) {
+            // Fast-path: US-ASCII is always valid UTF-8 and does not change the state, so skip it eight bytes at once.
+            while (endIndex - index >= 8 && !SWARUtil.containsNonAscii(buffer.getLong(index))) {
+                index += 8;
+            }
+        }
+        buffer.forEachByte(index, endIndex - index, this);
     }
 
     public void finish() {
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DiskSpillingHttpObjectAggregatorTest {
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private static byte[] content(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 7 + (i >>> 8));
+        }
+        return bytes;
+    }
+
+    private static HttpRequest newRequest() {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/upload");
+        HttpUtil.setTransferEncodingChunked(request, true);
+        return request;
+    }
+
+    private static void writeChunked(EmbeddedChannel channel, byte[] bytes, int chunkSize) {
+        assertFalse(channel.writeInbound(newRequest()));
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            ByteBuf chunk = Unpooled.wrappedBuffer(bytes, i, Math.min(chunkSize, bytes.length - i));
+            if (i + chunkSize >= bytes.length) {
+                channel.writeInbound(new DefaultLastHttpContent(chunk));
+            } else {
+                assertFalse(channel.writeInbound(new DefaultHttpContent(chunk)));
+            }
+        }
+    }
+
+    private static byte[] toArray(ByteBuf buf) {
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.getBytes(buf.readerIndex(), bytes);
+        return bytes;
+    }
+
+    private int tempFiles() {
+        return tmp.getRoot().list().length;
+    }
+
+    @Test
+    public void testSmallContentStaysInMemory() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new DiskSpillingHttpObjectAggregator(10000, false, 4096, null, tmp.getRoot()));
+        byte[] bytes = content(3000);
+        writeChunked(channel, bytes, 1000);
+        FullHttpRequest request = channel.readInbound();
+        assertArrayEquals(bytes, toArray(request.content()));
+        assertEquals(0, tempFiles());
+        request.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testLargeContentIsSpilled() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new DiskSpillingHttpObjectAggregator(100000, false, 2500, null, tmp.getRoot()));
+        byte[] bytes = content(10000);
+        writeChunked(channel, bytes, 1000);
+        FullHttpRequest request = channel.readInbound();
+        assertEquals("10000", request.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+        assertFalse(HttpUtil.isTransferEncodingChunked(request));
+        assertArrayEquals(bytes, toArray(request.content()));
+        assertEquals(1, tempFiles());
+
+        request.release();
+        assertEquals(0, tempFiles());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testMemoryBudgetIsShared() throws Exception {
+        HttpAggregatorMemoryBudget budget = new HttpAggregatorMemoryBudget(1500);
+        EmbeddedChannel first = new EmbeddedChannel(
+                new DiskSpillingHttpObjectAggregator(100000, false, 4096, budget, tmp.getRoot()));
+        EmbeddedChannel second = new EmbeddedChannel(
+                new DiskSpillingHttpObjectAggregator(100000, false, 4096, budget, tmp.getRoot()));
+
+        byte[] bytes = content(3000);
+        assertFalse(first.writeInbound(newRequest()));
+        assertFalse(first.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(bytes, 0, 2000))));
+        assertEquals(1500, budget.usedBytes());
+
+        // The budget is used up, so the second message goes to disk right away.
+        writeChunked(second, bytes, 1000);
+        FullHttpRequest secondRequest = second.readInbound();
+        assertArrayEquals(bytes, toArray(secondRequest.content()));
+        assertEquals(1500, budget.usedBytes());
+
+        assertTrue(first.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(bytes, 2000, 1000))));
+        FullHttpRequest firstRequest = first.readInbound();
+        assertArrayEquals(bytes, toArray(firstRequest.content()));
+        assertEquals(0, budget.usedBytes());
+
+        firstRequest.release();
+        secondRequest.release();
+        assertEquals(0, tempFiles());
+        assertFalse(first.finish());
+        assertFalse(second.finish());
+    }
+
+    @Test
+    public void testOversizedContentIsRejected() throws Exception {
+        HttpAggregatorMemoryBudget budget = new HttpAggregatorMemoryBudget(10000);
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new DiskSpillingHttpObjectAggregator(5000, false, 1000, budget, tmp.getRoot()));
+        assertFalse(channel.writeInbound(newRequest()));
+        byte[] bytes = content(1000);
+        for (int i = 0; i < 6; i++) {
+            assertFalse(channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(bytes))));
+        }
+        assertNull(channel.readInbound());
+        assertFalse(channel.isOpen());
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE, response.status());
+        response.release();
+        assertEquals(0, tempFiles());
+        assertEquals(0, budget.usedBytes());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testPartialMessageIsDiscardedOnClose() throws Exception {
+        HttpAggregatorMemoryBudget budget = new HttpAggregatorMemoryBudget(10000);
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new DiskSpillingHttpObjectAggregator(100000, false, 1000, budget, tmp.getRoot()));
+        assertFalse(channel.writeInbound(newRequest()));
+        assertFalse(channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer(content(3000)))));
+        assertEquals(1, tempFiles());
+        assertEquals(1000, budget.usedBytes());
+
+        assertFalse(channel.finish());
+        assertEquals(0, tempFiles());
+        assertEquals(0, budget.usedBytes());
+    }
+}
@@ -20,9 +20,14 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
 import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
 import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCountUtil;
+import org.junit.Assume;
 import org.junit.Test;
 
 import static io.netty.handler.codec.http.HttpHeadersTestUtils.of;
@@ -35,6 +40,7 @@ import static org.junit.Assert.*;
 public class HttpContentCompressorTest {
 
     @Test
+    @SuppressWarnings("deprecation")
     public void testGetTargetContentEncoding() throws Exception {
         HttpContentCompressor compressor = new HttpContentCompressor();
 
@@ -71,6 +77,161 @@ public class HttpContentCompressorTest {
         }
     }
 
+    @Test
+    public void testGetTargetContentEncodingViaDetermineEncoding() throws Exception {
+        HttpContentCompressor compressor = new HttpContentCompressor();
+
+        String[] tests = {
+            // Accept-Encoding -> Content-Encoding
+            "", null,
+            "*", "gzip",
+            "*;q=0.0", null,
+            "gzip", "gzip",
+            "compress, gzip;q=0.5", "gzip",
+            "gzip; q=0.5, identity", "gzip",
+            "gzip ; q=0.1", "gzip",
+            "gzip; q=0, deflate", "deflate",
+            " deflate ; q=0 , *;q=0.5", "gzip",
+        };
+        for (int i = 0; i < tests.length; i += 2) {
+            assertEquals(tests[i], tests[i + 1], compressor.determineEncoding(tests[i]));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDetermineWrapperMatchesWholeTokens() throws Exception {
+        HttpContentCompressor compressor = new HttpContentCompressor();
+        assertNull(compressor.determineWrapper("xgzip"));
+        assertNull(compressor.determineWrapper("gzipx, deflatey"));
+        assertEquals(ZlibWrapper.ZLIB, compressor.determineWrapper("xgzip, deflate"));
+        assertEquals(ZlibWrapper.GZIP, compressor.determineWrapper(" GZIP ;q=0.5"));
+        assertNull(compressor.determineWrapper("identity, *gzip;q=1"));
+    }
+
+    @Test
+    public void testDetermineEncodingMatchesWholeTokens() throws Exception {
+        HttpContentCompressor compressor = new HttpContentCompressor();
+        assertNull(compressor.determineEncoding("x-gzip"));
+        assertNull(compressor.determineEncoding("gzipx, deflatey"));
+        assertEquals("deflate", compressor.determineEncoding("x-gzip, deflate"));
+        assertEquals("gzip", compressor.determineEncoding(" GZIP ;q=0.5"));
+        assertNull(compressor.determineEncoding("identity, *br;q=1"));
+    }
+
+    @Test
+    public void testOverriddenDetermineWrapperIsUsed() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor() {
+            @Override
+            @Deprecated
+            protected ZlibWrapper determineWrapper(String acceptEncoding) {
+                return ZlibWrapper.ZLIB;
+            }
+        });
+        FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
+        assertTrue(ch.writeInbound(req));
+        ReferenceCountUtil.release(ch.readInbound());
+
+        ch.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("Hello", CharsetUtil.US_ASCII)));
+        HttpResponse res = ch.readOutbound();
+        assertEquals("deflate", res.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        ReferenceCountUtil.release(res);
+        for (;;) {
+            Object msg = ch.readOutbound();
+            if (msg == null) {
+                break;
+            }
+            ReferenceCountUtil.release(msg);
+        }
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testDetermineEncoding() throws Exception {
+        Assume.assumeTrue(Brotli.isAvailable() && Zstd.isAvailable());
+        HttpContentCompressor compressor = new HttpContentCompressor(StandardCompressionOptions.brotli(),
+                StandardCompressionOptions.zstd(), StandardCompressionOptions.gzip());
+
+        String[] tests = {
+            // Accept-Encoding -> Content-Encoding
+            "", null,
+            "*", "br",
+            "*;q=0.0", null,
+            "gzip, deflate, br", "br",
+            "gzip, deflate, br;q=0.5", "gzip",
+            "zstd, gzip, br", "br",
+            "zstd, gzip;q=0.8, br;q=0.9", "zstd",
+            "br;q=0, *", "zstd",
+            "deflate", null,
+            "deflate, *;q=0.1", "br",
+        };
+        for (int i = 0; i < tests.length; i += 2) {
+            assertEquals(tests[i], tests[i + 1], compressor.determineEncoding(tests[i]));
+        }
+    }
+
+    @Test
+    public void testLegacyConstructorDoesNotUseBrotli() throws Exception {
+        HttpContentCompressor compressor = new HttpContentCompressor();
+        assertEquals("gzip", compressor.determineEncoding("gzip, deflate, br"));
+        assertEquals("gzip", compressor.determineEncoding("br, zstd, *"));
+        assertNull(compressor.determineEncoding("br, zstd"));
+    }
+
+    @Test
+    public void testBrotliRoundTrip() throws Exception {
+        Assume.assumeTrue(Brotli.isAvailable());
+        testRoundTrip("br");
+    }
+
+    @Test
+    public void testZstdRoundTrip() throws Exception {
+        Assume.assumeTrue(Zstd.isAvailable());
+        testRoundTrip("zstd");
+    }
+
+    private static void testRoundTrip(String encoding) {
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor((CompressionOptions[]) null));
+        FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, encoding + ", gzip;q=0.5");
+        assertTrue(ch.writeInbound(req));
+        ReferenceCountUtil.release(ch.readInbound());
+
+        ch.writeOutbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        ch.writeOutbound(new DefaultHttpContent(Unpooled.copiedBuffer("Hell", CharsetUtil.US_ASCII)));
+        ch.writeOutbound(new DefaultHttpContent(Unpooled.copiedBuffer("o, w", CharsetUtil.US_ASCII)));
+        ch.writeOutbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("orld", CharsetUtil.US_ASCII)));
+
+        HttpResponse res = ch.readOutbound();
+        assertEquals(encoding, res.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new HttpContentDecompressor());
+        decoder.writeInbound(res);
+        for (;;) {
+            Object msg = ch.readOutbound();
+            if (msg == null) {
+                break;
+            }
+            decoder.writeInbound(msg);
+        }
+        HttpResponse decoded = decoder.readInbound();
+        assertFalse(decoded.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+        StringBuilder content = new StringBuilder();
+        for (;;) {
+            HttpContent chunk = decoder.readInbound();
+            if (chunk == null) {
+                break;
+            }
+            content.append(chunk.content().toString(CharsetUtil.US_ASCII));
+            chunk.release();
+        }
+        assertEquals("Hello, world", content.toString());
+        assertFalse(ch.finish());
+        assertFalse(decoder.finish());
+    }
+
     @Test
     public void testSplitContent() throws Exception {
         EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor());
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HttpPipeliningHandlerTest {
+
+    @Test
+    public void testResponsesWrittenInOrder() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler(16, 1024));
+        HttpPipelinedRequest first = writeRequest(channel, "/1");
+        HttpPipelinedRequest second = writeRequest(channel, "/2");
+        HttpPipelinedRequest third = writeRequest(channel, "/3");
+        assertEquals(0, first.sequence());
+        assertEquals(1, second.sequence());
+        assertEquals(2, third.sequence());
+
+        ChannelFuture thirdFuture = channel.writeAndFlush(third.response(response("3")));
+        ChannelFuture secondFuture = channel.writeAndFlush(second.response(response("2")));
+        assertNull(channel.readOutbound());
+        assertFalse(thirdFuture.isDone());
+        assertFalse(secondFuture.isDone());
+
+        channel.writeAndFlush(first.response(response("1")));
+        assertResponse(channel, "1");
+        assertResponse(channel, "2");
+        assertResponse(channel, "3");
+        assertTrue(secondFuture.isSuccess());
+        assertTrue(thirdFuture.isSuccess());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testStreamingResponses() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler(16, 1024));
+        HttpPipelinedRequest first = writeRequest(channel, "/1");
+        HttpPipelinedRequest second = writeRequest(channel, "/2");
+
+        channel.writeAndFlush(second.response(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK)));
+        channel.writeAndFlush(second.response(content("a")));
+        channel.writeAndFlush(first.response(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK)));
+        assertTrue(channel.readOutbound() instanceof HttpResponse);
+        assertNull(channel.readOutbound());
+
+        channel.writeAndFlush(first.response(LastHttpContent.EMPTY_LAST_CONTENT));
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readOutbound());
+        assertTrue(channel.readOutbound() instanceof HttpResponse);
+        assertContent(channel, "a");
+        assertNull(channel.readOutbound());
+
+        // The head of the queue is written through directly.
+        channel.writeAndFlush(second.response(content("b")));
+        assertContent(channel, "b");
+        channel.writeAndFlush(second.response(LastHttpContent.EMPTY_LAST_CONTENT));
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readOutbound());
+        assertEquals(0, ((HttpPipeliningHandler) channel.pipeline().last()).inFlight());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testMaxInFlight() {
+        ReadCounter readCounter = new ReadCounter();
+        EmbeddedChannel channel = new EmbeddedChannel(readCounter, new HttpPipeliningHandler(1, 1024));
+        channel.config().setAutoRead(false);
+        HttpPipelinedRequest first = writeRequest(channel, "/1");
+
+        DefaultHttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/2");
+        HttpContent content = content("body");
+        assertFalse(channel.writeInbound(request, content));
+        int reads = readCounter.reads;
+        channel.read();
+        assertEquals(reads, readCounter.reads);
+
+        channel.writeAndFlush(first.response(response("1")));
+        assertResponse(channel, "1");
+        HttpPipelinedRequest second = channel.readInbound();
+        assertSame(request, second.request());
+        assertEquals(1, second.sequence());
+        assertSame(content, channel.readInbound());
+        content.release();
+        assertEquals(reads + 1, readCounter.reads);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testMaxInFlightDisablesAutoRead() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler(1, 1024));
+        assertTrue(channel.config().isAutoRead());
+        HttpPipelinedRequest first = writeRequest(channel, "/1");
+
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/2");
+        assertFalse(channel.writeInbound(request));
+        assertFalse(channel.config().isAutoRead());
+
+        channel.writeAndFlush(first.response(response("1")));
+        assertResponse(channel, "1");
+        HttpPipelinedRequest second = channel.readInbound();
+        assertSame(request, second.request());
+        second.release();
+        assertTrue(channel.config().isAutoRead());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testHeldRequestsNotPassedOnReentrantly() {
+        final List<String> responded = new ArrayList<String>();
+        final int[] depth = new int[1];
+        final int[] maxDepth = new int[1];
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler(1, 1024),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        HttpPipelinedRequest request = (HttpPipelinedRequest) msg;
+                        if (request.sequence() == 0) {
+                            // Respond to the first request later, so the following ones are held back.
+                            ctx.fireChannelRead(request);
+                            return;
+                        }
+                        request.release();
+                        maxDepth[0] = Math.max(maxDepth[0], ++depth[0]);
+                        responded.add(request.request().uri());
+                        ctx.writeAndFlush(request.response(response(request.request().uri())));
+                        depth[0]--;
+                    }
+                });
+        HttpPipelinedRequest first = writeRequest(channel, "/1");
+        for (int i = 2; i <= 4; i++) {
+            assertFalse(channel.writeInbound(
+                    new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/" + i)));
+        }
+        assertTrue(responded.isEmpty());
+
+        channel.writeAndFlush(first.response(response("1")));
+        assertEquals(Arrays.asList("/2", "/3", "/4"), responded);
+        assertEquals(1, maxDepth[0]);
+        assertResponse(channel, "1");
+        assertResponse(channel, "/2");
+        assertResponse(channel, "/3");
+        assertResponse(channel, "/4");
+        assertTrue(channel.config().isAutoRead());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testMaxHeldMessages() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler(1, 1024, 2));
+        writeRequest(channel, "/1");
+
+        DefaultFullHttpRequest second = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/2");
+        DefaultFullHttpRequest third = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/3");
+        DefaultFullHttpRequest fourth = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/4");
+        assertFalse(channel.writeInbound(second, third));
+        assertTrue(channel.isOpen());
+        assertFalse(channel.writeInbound(fourth));
+        assertFalse(channel.isOpen());
+        assertEquals(0, second.refCnt());
+        assertEquals(0, third.refCnt());
+        assertEquals(0, fourth.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testMaxHeldBytes() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler(1, 4));
+        writeRequest(channel, "/1");
+
+        DefaultHttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/2");
+        HttpContent content = content("too long");
+        assertFalse(channel.writeInbound(request, content));
+        assertFalse(channel.isOpen());
+        assertEquals(0, content.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testMaxBufferedBytes() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler(16, 4));
+        writeRequest(channel, "/1");
+        HttpPipelinedRequest second = writeRequest(channel, "/2");
+
+        FullHttpResponse response = response("too long");
+        ChannelFuture future = channel.writeAndFlush(second.response(response));
+        assertTrue(future.cause() instanceof IllegalStateException);
+        assertEquals(0, response.refCnt());
+        assertFalse(channel.isOpen());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testBufferedResponsesFailedOnClose() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler(16, 1024));
+        writeRequest(channel, "/1");
+        HttpPipelinedRequest second = writeRequest(channel, "/2");
+
+        FullHttpResponse response = response("2");
+        ChannelFuture future = channel.writeAndFlush(second.response(response));
+        assertFalse(future.isDone());
+        assertFalse(channel.finish());
+        assertTrue(future.cause() instanceof ClosedChannelException);
+        assertEquals(0, response.refCnt());
+    }
+
+    @Test
+    public void testUnexpectedSequence() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPipeliningHandler(16, 1024));
+        FullHttpResponse response = response("1");
+        ChannelFuture future = channel.writeAndFlush(new HttpPipelinedResponse(response, 0));
+        assertTrue(future.cause() instanceof IllegalStateException);
+        assertEquals(0, response.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    private static HttpPipelinedRequest writeRequest(EmbeddedChannel channel, String uri) {
+        assertTrue(channel.writeInbound(
+                new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri)));
+        HttpPipelinedRequest request = channel.readInbound();
+        assertEquals(uri, request.request().uri());
+        request.release();
+        return request;
+    }
+
+    private static FullHttpResponse response(String content) {
+        return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(content, CharsetUtil.US_ASCII));
+    }
+
+    private static HttpContent content(String content) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(content, CharsetUtil.US_ASCII));
+    }
+
+    private static void assertResponse(EmbeddedChannel channel, String content) {
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(content, response.content().toString(CharsetUtil.US_ASCII));
+        response.release();
+    }
+
+    private static void assertContent(EmbeddedChannel channel, String content) {
+        HttpContent httpContent = channel.readOutbound();
+        assertEquals(content, httpContent.content().toString(CharsetUtil.US_ASCII));
+        ReferenceCountUtil.release(httpContent);
+    }
+
+    private static final class ReadCounter extends ChannelOutboundHandlerAdapter {
+        int reads;
+
+        @Override
+        public void read(ChannelHandlerContext ctx) throws Exception {
+            reads++;
+            super.read(ctx);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HttpPrecompressedFileHandlerTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = newFile("app.js", "console.log('hello world');");
+    }
+
+    @Test
+    public void testServesAcceptedVariant() throws IOException {
+        File gz = newFile("app.js.gz", "gz");
+        assertResponse("gzip, deflate", gz, "gzip");
+    }
+
+    @Test
+    public void testPrefersBrotliForEqualQuality() throws IOException {
+        newFile("app.js.gz", "gz");
+        File br = newFile("app.js.br", "br");
+        assertResponse("gzip, deflate, br", br, "br");
+    }
+
+    @Test
+    public void testPrefersHigherQuality() throws IOException {
+        File zst = newFile("app.js.zst", "zstd");
+        newFile("app.js.br", "br");
+        assertResponse("br;q=0.5, zstd", zst, "zstd");
+    }
+
+    @Test
+    public void testFallsBackToNextVariant() throws IOException {
+        File gz = newFile("app.js.gz", "gz");
+        assertResponse("br, gzip;q=0.5", gz, "gzip");
+    }
+
+    @Test
+    public void testServesFileIfNoVariantAccepted() throws IOException {
+        newFile("app.js.gz", "gz");
+        assertResponse("identity, gzip;q=0", file, null);
+        assertResponse(null, file, null);
+    }
+
+    @Test
+    public void testMatchesWholeTokens() throws IOException {
+        newFile("app.js.gz", "gz");
+        assertResponse("x-gzip", file, null);
+    }
+
+    @Test
+    public void testServesVariantIfIdentityRefused() throws IOException {
+        File gz = newFile("app.js.gz", "gz");
+        assertResponse("identity;q=0, gzip;q=0.5", gz, "gzip");
+    }
+
+    @Test
+    public void testNotAcceptable() throws IOException {
+        assertNotAcceptable("identity;q=0");
+        assertNotAcceptable("*;q=0");
+        assertNotAcceptable("gzip, *;q=0");
+    }
+
+    private void assertNotAcceptable(String acceptEncoding) {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPrecompressedFileHandler());
+        writeRequest(channel, acceptEncoding);
+
+        ChannelFuture future = channel.writeAndFlush(
+                new HttpFileResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, file));
+        assertTrue(future.isSuccess());
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(HttpResponseStatus.NOT_ACCEPTABLE, response.status());
+        assertEquals(0, HttpUtil.getContentLength(response));
+        response.release();
+        assertNull(channel.readOutbound());
+        assertTrue(channel.isOpen());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testMissingFile() throws IOException {
+        assertTrue(file.delete());
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPrecompressedFileHandler());
+        writeRequest(channel, "gzip");
+
+        ChannelFuture future = channel.writeAndFlush(
+                new HttpFileResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, file));
+        assertTrue(future.cause() instanceof FileNotFoundException);
+        FullHttpResponse response = channel.readOutbound();
+        assertEquals(HttpResponseStatus.NOT_FOUND, response.status());
+        assertEquals(0, HttpUtil.getContentLength(response));
+        assertEquals("close", response.headers().get(HttpHeaderNames.CONNECTION));
+        response.release();
+        assertNull(channel.readOutbound());
+        assertFalse(channel.isOpen());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testIgnoresStaleVariant() throws IOException {
+        File gz = newFile("app.js.gz", "gz");
+        assertTrue(gz.setLastModified(file.lastModified() - 10000));
+        assertResponse("gzip", file, null);
+    }
+
+    @Test
+    public void testHeadRequest() throws IOException {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPrecompressedFileHandler());
+        assertTrue(channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.HEAD, "/")));
+        ((FullHttpRequest) channel.readInbound()).release();
+
+        channel.writeAndFlush(new HttpFileResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, file));
+        HttpResponse response = channel.readOutbound();
+        assertEquals(file.length(), HttpUtil.getContentLength(response));
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readOutbound());
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testMarksIdentityForContentEncoder() throws IOException {
+        newFile("app.js.gz", "gz");
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpContentCompressor(), new HttpPrecompressedFileHandler());
+        writeRequest(channel, "deflate");
+
+        channel.writeAndFlush(new HttpFileResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, file));
+        HttpResponse response = channel.readOutbound();
+        assertEquals("identity", response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(file.length(), HttpUtil.getContentLength(response));
+        DefaultFileRegion region = channel.readOutbound();
+        assertEquals(file.length(), region.count());
+        region.release();
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    private void assertResponse(String acceptEncoding, File expectedFile, String expectedEncoding) {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPrecompressedFileHandler());
+        writeRequest(channel, acceptEncoding);
+
+        channel.writeAndFlush(new HttpFileResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, file));
+        HttpResponse response = channel.readOutbound();
+        assertEquals(expectedEncoding, response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        assertEquals(expectedFile.length(), HttpUtil.getContentLength(response));
+        assertEquals("accept-encoding", response.headers().get(HttpHeaderNames.VARY));
+
+        DefaultFileRegion region = channel.readOutbound();
+        assertEquals(expectedFile.length(), region.count());
+        region.release();
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readOutbound());
+        assertNull(channel.readOutbound());
+        assertFalse(channel.finish());
+    }
+
+    private static void writeRequest(EmbeddedChannel channel, String acceptEncoding) {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/app.js");
+        if (acceptEncoding != null) {
+            request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        }
+        assertTrue(channel.writeInbound(request));
+        ((FullHttpRequest) channel.readInbound()).release();
+    }
+
+    private File newFile(String name, String content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes(CharsetUtil.US_ASCII));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
@@ -22,7 +22,9 @@ import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.*;
 import static io.netty.handler.codec.http.HttpHeadersTestUtils.of;
@@ -33,6 +35,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -79,8 +82,23 @@ public class HttpRequestDecoderTest {
         testDecodeWholeRequestAtOnce(CONTENT_MIXED_DELIMITERS);
     }
 
+    @Test
+    public void testDecodeWholeRequestAtOnceAsciiHeaders() {
+        testDecodeWholeRequestAtOnce(CONTENT_CRLF_DELIMITERS, true);
+        testDecodeWholeRequestAtOnce(CONTENT_LF_DELIMITERS, true);
+        testDecodeWholeRequestAtOnce(CONTENT_MIXED_DELIMITERS, true);
+    }
+
+    private static HttpRequestDecoder newDecoder(boolean asciiHeaders) {
+        return new HttpRequestDecoder(4096, 8192, 8192, true, 128, asciiHeaders);
+    }
+
     private static void testDecodeWholeRequestAtOnce(byte[] content) {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        testDecodeWholeRequestAtOnce(content, false);
+    }
+
+    private static void testDecodeWholeRequestAtOnce(byte[] content, boolean asciiHeaders) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(asciiHeaders));
         assertTrue(channel.writeInbound(Unpooled.copiedBuffer(content)));
         HttpRequest req = channel.readInbound();
         assertNotNull(req);
@@ -128,14 +146,26 @@ public class HttpRequestDecoderTest {
         testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS);
     }
 
+    @Test
+    public void testDecodeWholeRequestInMultipleStepsAsciiHeaders() {
+        testDecodeWholeRequestInMultipleSteps(CONTENT_CRLF_DELIMITERS, true);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_LF_DELIMITERS, true);
+        testDecodeWholeRequestInMultipleSteps(CONTENT_MIXED_DELIMITERS, true);
+    }
+
     private static void testDecodeWholeRequestInMultipleSteps(byte[] content) {
+        testDecodeWholeRequestInMultipleSteps(content, false);
+    }
+
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, boolean asciiHeaders) {
         for (int i = 1; i < content.length; i++) {
-            testDecodeWholeRequestInMultipleSteps(content, i);
+            testDecodeWholeRequestInMultipleSteps(content, i, asciiHeaders);
         }
     }
 
-    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize) {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+    private static void testDecodeWholeRequestInMultipleSteps(byte[] content, int fragmentSize,
+                                                              boolean asciiHeaders) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(asciiHeaders));
         int headerLength = content.length - CONTENT_LENGTH;
 
         // split up the header
@@ -177,7 +207,16 @@ public class HttpRequestDecoderTest {
 
     @Test
     public void testMultiLineHeader() {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        testMultiLineHeader(false);
+    }
+
+    @Test
+    public void testMultiLineHeaderAsciiHeaders() {
+        testMultiLineHeader(true);
+    }
+
+    private static void testMultiLineHeader(boolean asciiHeaders) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(asciiHeaders));
         String crlf = "\r\n";
         String request =  "GET /some/path HTTP/1.1" + crlf +
                 "Host: localhost" + crlf +
@@ -200,7 +239,16 @@ public class HttpRequestDecoderTest {
 
     @Test
     public void testEmptyHeaderValue() {
-        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        testEmptyHeaderValue(false);
+    }
+
+    @Test
+    public void testEmptyHeaderValueAsciiHeaders() {
+        testEmptyHeaderValue(true);
+    }
+
+    private static void testEmptyHeaderValue(boolean asciiHeaders) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(asciiHeaders));
         String crlf = "\r\n";
         String request =  "GET /some/path HTTP/1.1" + crlf +
                 "Host: localhost" + crlf +
@@ -210,6 +258,37 @@ public class HttpRequestDecoderTest {
         assertEquals("", req.headers().get(of("EmptyHeader")));
     }
 
+    @Test
+    public void testCarriageReturnInsideHeaderLine() {
+        String request = "GET /some/path HTTP/1.1\r\n" +
+                "Host: local\rhost\r\n" +
+                "X-Fo\ro: bar \r\r\n" +
+                "X-Folded: a\r\n" +
+                " \rb\r\n" +
+                "\r\r\n";
+        HttpHeaders headers = decodeHeaders(request, false);
+        HttpHeaders asciiHeaders = decodeHeaders(request, true);
+
+        assertEquals("localhost", headers.get(of("Host")));
+        assertEquals("bar", headers.get(of("X-Foo")));
+        assertEquals("a b", headers.get(of("X-Folded")));
+        assertEquals(headers.size(), asciiHeaders.size());
+        for (Map.Entry<String, String> header : headers) {
+            assertEquals(header.getKey(), header.getValue(), asciiHeaders.get(header.getKey()));
+        }
+    }
+
+    private static HttpHeaders decodeHeaders(String request, boolean asciiHeaders) {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(asciiHeaders));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(request, CharsetUtil.US_ASCII)));
+        HttpRequest req = channel.readInbound();
+        assertTrue(req.decoderResult().isSuccess());
+        LastHttpContent last = channel.readInbound();
+        last.release();
+        assertFalse(channel.finish());
+        return req.headers();
+    }
+
     @Test
     public void test100Continue() {
         HttpRequestDecoder decoder = new HttpRequestDecoder();
@@ -321,6 +400,82 @@ public class HttpRequestDecoderTest {
         assertFalse(channel.finish());
     }
 
+    @Test
+    public void testTooLargeHeadersAsciiHeaders() {
+        String requestStr = "GET /some/path HTTP/1.1\r\n" +
+                "Host: localhost1\r\n\r\n";
+        byte[] request = requestStr.getBytes(CharsetUtil.US_ASCII);
+
+        // Once at the end of the header block and once while still waiting for it.
+        for (int fragmentSize : new int[] { request.length, 1 }) {
+            EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder(1024, 10, 1024, true, 128, true));
+            for (int i = 0; i < request.length; i += fragmentSize) {
+                channel.writeInbound(Unpooled.copiedBuffer(request, i, Math.min(fragmentSize, request.length - i)));
+            }
+            HttpRequest req = channel.readInbound();
+            assertTrue(req.decoderResult().isFailure());
+            assertTrue(req.decoderResult().cause() instanceof TooLongFrameException);
+            assertFalse(channel.finish());
+        }
+    }
+
+    @Test
+    public void testWellKnownHeaderNamesAsciiHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(true));
+        String requestStr = "GET /some/path HTTP/1.1\r\n" +
+                "host: localhost\r\n" +
+                "Content-Type:text/plain \r\n" +
+                "X-Custom: a\r\n" +
+                "CONTENT-LENGTH: 0\r\n\r\n";
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII)));
+        HttpRequest req = channel.readInbound();
+        assertTrue(req.decoderResult().isSuccess());
+
+        Iterator<Map.Entry<CharSequence, CharSequence>> entries = req.headers().iteratorCharSequence();
+        Map.Entry<CharSequence, CharSequence> entry = entries.next();
+        assertSame(HOST, entry.getKey());
+        assertEquals(new AsciiString("localhost"), entry.getValue());
+        entry = entries.next();
+        CharSequence contentType = entry.getKey();
+        assertEquals(new AsciiString("Content-Type"), contentType);
+        assertEquals(new AsciiString("text/plain"), entry.getValue());
+        entry = entries.next();
+        assertEquals(new AsciiString("X-Custom"), entry.getKey());
+        entry = entries.next();
+        // Not a well known form so it keeps the case it was sent in.
+        assertEquals(new AsciiString("CONTENT-LENGTH"), entry.getKey());
+        assertFalse(entries.hasNext());
+
+        LastHttpContent c = channel.readInbound();
+        c.release();
+
+        // The capitalized form is shared between messages as well.
+        assertSame(contentType, getOnlyHeaderName(channel, "Content-Type"));
+        assertFalse(channel.finish());
+    }
+
+    private static CharSequence getOnlyHeaderName(EmbeddedChannel channel, String name) {
+        String requestStr = "GET / HTTP/1.1\r\n" + name + ": x\r\n\r\n";
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII)));
+        HttpRequest req = channel.readInbound();
+        LastHttpContent c = channel.readInbound();
+        c.release();
+        return req.headers().iteratorCharSequence().next().getKey();
+    }
+
+    @Test
+    public void testWhitespaceAsciiHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(newDecoder(true));
+        String requestStr = "GET /some/path HTTP/1.1\r\n" +
+                "Transfer-Encoding : chunked\r\n" +
+                "Host: netty.io\n\r\n";
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII)));
+        HttpRequest request = channel.readInbound();
+        assertTrue(request.decoderResult().isFailure());
+        assertTrue(request.decoderResult().cause() instanceof IllegalArgumentException);
+        assertFalse(channel.finish());
+    }
+
     @Test
     public void testWhitespace() {
         String requestStr = "GET /some/path HTTP/1.1\r\n" +
@@ -397,4 +397,73 @@ public class HttpResponseEncoderTest {
         assertEquals(responseText.toString(), written.toString());
         assertFalse(channel.finish());
     }
+
+    @Test
+    public void testRepeatedHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        String server = "netty";
+        String expected = "HTTP/1.1 200 OK\r\n" +
+                "content-type: application/json\r\n" +
+                "server: netty\r\n" +
+                "content-length: 0\r\n\r\n";
+        // The first write fills the cache and the following ones are served from it.
+        for (int i = 0; i < 4; i++) {
+            HttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+            response.headers().set(HttpHeaderNames.SERVER, server);
+            response.headers().set(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(0));
+            assertTrue(channel.writeOutbound(response));
+            assertEquals(expected, readOutbound(channel));
+        }
+
+        // Different value instance with the same index in the cache.
+        HttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        response.headers().set(HttpHeaderNames.SERVER, new String(server));
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(0));
+        assertTrue(channel.writeOutbound(response));
+        assertEquals(expected, readOutbound(channel));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testReadOnlyHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        HttpHeaders headers = new ReadOnlyHttpHeaders(true,
+                HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN,
+                HttpHeaderNames.CONTENT_LENGTH, "0");
+        for (int i = 0; i < 2; i++) {
+            assertTrue(channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.NOT_FOUND, Unpooled.EMPTY_BUFFER, headers, EmptyHttpHeaders.INSTANCE)));
+            assertEquals("HTTP/1.1 404 Not Found\r\n" +
+                    "content-type: text/plain\r\n" +
+                    "content-length: 0\r\n\r\n", readOutbound(channel));
+        }
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testCustomStatus() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+        assertTrue(channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                new HttpResponseStatus(200, "Fine"))));
+        assertEquals("HTTP/1.1 200 Fine\r\n\r\n", readOutbound(channel));
+        assertTrue(channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_0,
+                HttpResponseStatus.OK)));
+        assertEquals("HTTP/1.0 200 OK\r\n\r\n", readOutbound(channel));
+        assertFalse(channel.finish());
+    }
+
+    private static String readOutbound(EmbeddedChannel channel) {
+        StringBuilder written = new StringBuilder();
+        for (;;) {
+            ByteBuf buffer = channel.readOutbound();
+            if (buffer == null) {
+                break;
+            }
+            written.append(buffer.toString(CharsetUtil.US_ASCII));
+            buffer.release();
+        }
+        return written.toString();
+    }
 }
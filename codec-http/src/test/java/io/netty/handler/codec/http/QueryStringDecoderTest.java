@@ -21,6 +21,7 @@ import org.junit.Test;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -374,4 +375,63 @@ public class QueryStringDecoderTest {
         Assert.assertEquals("", empty.rawPath());
         Assert.assertEquals("", empty.rawQuery());
     }
+
+    @Test
+    public void testParameter() {
+        QueryStringDecoder d = new QueryStringDecoder("/foo?a=1&b%20c=2&a=3&d&e=%41+b&+f=4&=5&g=#h=6");
+        Assert.assertEquals("1", d.parameter("a"));
+        Assert.assertEquals("2", d.parameter("b c"));
+        Assert.assertEquals("", d.parameter("d"));
+        Assert.assertEquals("A b", d.parameter("e"));
+        Assert.assertEquals("4", d.parameter(" f"));
+        Assert.assertEquals("", d.parameter("g"));
+        Assert.assertNull(d.parameter("b"));
+        Assert.assertNull(d.parameter("h"));
+        Assert.assertNull(d.parameter("ab"));
+
+        // Same answers once the parameter map was decoded.
+        Map<String, List<String>> params = d.parameters();
+        for (Entry<String, List<String>> entry : params.entrySet()) {
+            Assert.assertEquals(entry.getValue().get(0), d.parameter(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testParameterHashDos() {
+        StringBuilder buf = new StringBuilder();
+        buf.append('?');
+        for (int i = 0; i < 2048; i++) {
+            buf.append(i);
+            buf.append('=');
+            buf.append(i);
+            buf.append('&');
+        }
+        QueryStringDecoder d = new QueryStringDecoder(buf.toString(), CharsetUtil.UTF_8, true, 100);
+        Assert.assertEquals("99", d.parameter("99"));
+        Assert.assertNull(d.parameter("100"));
+    }
+
+    @Test
+    public void testForEachParameter() {
+        QueryStringDecoder d = new QueryStringDecoder("/foo?a=1&b%20c=2&a=3;d&e=%41+b", CharsetUtil.UTF_8);
+        final List<String> visited = new ArrayList<String>();
+        Assert.assertTrue(d.forEachParameter(new QueryStringDecoder.ParameterVisitor() {
+            @Override
+            public boolean visit(String name, String value) {
+                visited.add(name + '=' + value);
+                return true;
+            }
+        }));
+        Assert.assertEquals("[a=1, b c=2, a=3, d=, e=A b]", visited.toString());
+
+        visited.clear();
+        Assert.assertFalse(d.forEachParameter(new QueryStringDecoder.ParameterVisitor() {
+            @Override
+            public boolean visit(String name, String value) {
+                visited.add(name);
+                return visited.size() < 2;
+            }
+        }));
+        Assert.assertEquals("[a, b c]", visited.toString());
+    }
 }
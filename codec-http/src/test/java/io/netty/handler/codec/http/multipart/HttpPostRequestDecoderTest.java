@@ -768,4 +768,77 @@ public class HttpPostRequestDecoderTest {
         request.headers().set(HttpHeaderNames.CONTENT_TYPE, multipartDataValue);
         assertTrue(HttpPostRequestDecoder.isMultipart(request));
     }
+
+    @Test
+    public void testMultipartSplitAtEveryPosition() throws Exception {
+        final String boundary = "8WqK2dTdb3";
+        // contains partial delimiters that must not end the values
+        final String value = "a\r\n--8WqK2\r\n-\r\r\n--8WqK2dTdb";
+        final String fileContent = "\r\n--8WqK2dTdbX\n--8WqK2dTdb\r";
+        final String body = "--" + boundary + "\r\n" +
+                "Content-Disposition: form-data; name=\"field\"\r\n" +
+                "\r\n" +
+                value + "\r\n" +
+                "--" + boundary + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"file.txt\"\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "\r\n" +
+                fileContent + "\r\n" +
+                "--" + boundary + "--\r\n";
+        final byte[] bytes = body.getBytes(CharsetUtil.US_ASCII);
+
+        for (boolean useDisk : new boolean[] { false, true }) {
+            for (int split = 0; split <= bytes.length; split++) {
+                final DefaultHttpRequest req = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+                req.headers().add(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=" + boundary);
+                req.headers().add(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+                final HttpPostRequestDecoder decoder =
+                        new HttpPostRequestDecoder(new DefaultHttpDataFactory(useDisk), req);
+                decoder.offer(new DefaultHttpContent(Unpooled.wrappedBuffer(bytes, 0, split)));
+                decoder.offer(new DefaultLastHttpContent(Unpooled.wrappedBuffer(bytes, split, bytes.length - split)));
+
+                assertEquals(2, decoder.getBodyHttpDatas().size());
+                assertEquals(value, ((Attribute) decoder.getBodyHttpData("field")).getValue());
+                FileUpload upload = (FileUpload) decoder.getBodyHttpData("file");
+                assertEquals(fileContent, upload.getString(CharsetUtil.US_ASCII));
+                decoder.destroy();
+            }
+        }
+    }
+
+    @Test
+    public void testLargeFileUploadToDisk() throws Exception {
+        final String boundary = "Gq4Rp6LmZ0";
+        final byte[] fileContent = new byte[1024 * 1024];
+        for (int i = 0; i < fileContent.length; i++) {
+            fileContent[i] = (byte) (i * 31 + (i >>> 8));
+        }
+        final ByteBuf body = Unpooled.buffer();
+        body.writeCharSequence("--" + boundary + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"file.bin\"\r\n" +
+                "Content-Type: application/octet-stream\r\n" +
+                "\r\n", CharsetUtil.US_ASCII);
+        body.writeBytes(fileContent);
+        body.writeCharSequence("\r\n--" + boundary + "--\r\n", CharsetUtil.US_ASCII);
+
+        final DefaultHttpRequest req = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+        req.headers().add(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=" + boundary);
+        req.headers().add(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        final HttpPostRequestDecoder decoder = new HttpPostRequestDecoder(new DefaultHttpDataFactory(true), req);
+        while (body.readableBytes() > 8192) {
+            ByteBuf chunk = Unpooled.directBuffer(8192).writeBytes(body, 8192);
+            decoder.offer(new DefaultHttpContent(chunk));
+            chunk.release();
+        }
+        ByteBuf chunk = Unpooled.directBuffer(body.readableBytes()).writeBytes(body);
+        decoder.offer(new DefaultLastHttpContent(chunk));
+        chunk.release();
+        body.release();
+
+        FileUpload upload = (FileUpload) decoder.getBodyHttpData("file");
+        assertFalse(upload.isInMemory());
+        assertTrue(upload.isCompleted());
+        assertTrue(Arrays.equals(fileContent, upload.get()));
+        decoder.destroy();
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HttpClientChannelPoolTest {
+
+    private static EventLoopGroup group;
+
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<String>();
+    private LocalAddress address;
+    private Channel serverChannel;
+    private Bootstrap bootstrap;
+    private AbstractChannelPoolHandler poolHandler;
+
+    @BeforeClass
+    public static void createEventLoop() {
+        group = new DefaultEventLoopGroup();
+    }
+
+    @AfterClass
+    public static void destroyEventLoop() {
+        group.shutdownGracefully();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        address = new LocalAddress(HttpClientChannelPoolTest.class.getSimpleName() + System.nanoTime());
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new HttpServerCodec(), new HttpObjectAggregator(1024),
+                                new SimpleChannelInboundHandler<FullHttpRequest>() {
+                            @Override
+                            protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+                                respond(ctx, request.uri());
+                            }
+                        });
+                    }
+                }).bind(address).sync().channel();
+        bootstrap = new Bootstrap().group(group).channel(LocalChannel.class).remoteAddress(address);
+        poolHandler = new AbstractChannelPoolHandler() {
+            @Override
+            public void channelCreated(Channel ch) {
+                ch.pipeline().addLast(new HttpObjectAggregator(1024),
+                        new SimpleChannelInboundHandler<FullHttpResponse>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+                        responses.add(response.content().toString(CharsetUtil.US_ASCII));
+                    }
+                });
+            }
+        };
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        serverChannel.close().sync();
+    }
+
+    private static void respond(ChannelHandlerContext ctx, String uri) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(uri, CharsetUtil.US_ASCII));
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        if ("/close".equals(uri)) {
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        } else {
+            if ("/timeout0".equals(uri)) {
+                response.headers().set("keep-alive", "timeout=0, max=100");
+            }
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    private Channel request(HttpClientChannelPool pool, String uri) throws Exception {
+        Channel ch = pool.acquire().sync().getNow();
+        ch.writeAndFlush(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri));
+        assertEquals(uri, responses.poll(5, TimeUnit.SECONDS));
+        pool.release(ch).sync();
+        return ch;
+    }
+
+    @Test
+    public void testReusesConnection() throws Exception {
+        HttpClientChannelPool pool = new HttpClientChannelPool(bootstrap, poolHandler, 2);
+        Channel ch1 = request(pool, "/");
+        Channel ch2 = request(pool, "/");
+        assertSame(ch1, ch2);
+        assertTrue(ch1.isActive());
+        assertEquals(1, pool.connectCount());
+        assertEquals(2, pool.acquireCount());
+        assertEquals(1, pool.reuseCount());
+        assertEquals(0.5, pool.reuseRatio(), 0.0);
+        assertTrue(pool.totalAcquireTimeNanos() > 0);
+        pool.close();
+    }
+
+    @Test
+    public void testConnectionCloseIsNotReused() throws Exception {
+        HttpClientChannelPool pool = new HttpClientChannelPool(bootstrap, poolHandler, 2);
+        Channel ch1 = request(pool, "/close");
+        assertTrue(ch1.closeFuture().await(5, TimeUnit.SECONDS));
+        Channel ch2 = request(pool, "/");
+        assertNotSame(ch1, ch2);
+        assertEquals(2, pool.connectCount());
+        assertEquals(0, pool.reuseCount());
+        pool.close();
+    }
+
+    @Test
+    public void testKeepAliveTimeoutIsHonored() throws Exception {
+        HttpClientChannelPool pool = new HttpClientChannelPool(bootstrap, poolHandler, 2);
+        Channel ch1 = request(pool, "/timeout0");
+        assertTrue(ch1.closeFuture().await(5, TimeUnit.SECONDS));
+        Channel ch2 = request(pool, "/");
+        assertNotSame(ch1, ch2);
+        pool.close();
+    }
+
+    @Test
+    public void testReleaseBeforeResponseClosesConnection() throws Exception {
+        final HttpClientChannelPool pool = new HttpClientChannelPool(bootstrap, poolHandler, 2);
+        final Channel ch = pool.acquire().sync().getNow();
+        ch.eventLoop().submit(new Runnable() {
+            @Override
+            public void run() {
+                ch.writeAndFlush(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"));
+                pool.release(ch);
+            }
+        }).sync();
+        assertTrue(ch.closeFuture().await(5, TimeUnit.SECONDS));
+        pool.close();
+    }
+
+    @Test
+    public void testIdleConnectionIsClosed() throws Exception {
+        HttpClientChannelPool pool = new HttpClientChannelPool(bootstrap, poolHandler, 2, Integer.MAX_VALUE, -1, 50);
+        Channel ch = request(pool, "/");
+        assertTrue(ch.closeFuture().await(5, TimeUnit.SECONDS));
+        assertNotSame(ch, request(pool, "/"));
+        pool.close();
+    }
+
+    @Test
+    public void testMaxConnectionsPerHost() throws Exception {
+        HttpClientChannelPoolMap poolMap = new HttpClientChannelPoolMap(bootstrap, poolHandler, 1, 10, -1, -1);
+        HttpClientChannelPool pool = poolMap.get(address);
+        assertSame(pool, poolMap.get(address));
+
+        Channel ch = pool.acquire().sync().getNow();
+        Future<Channel> pending = pool.acquire();
+        assertFalse(pending.await(100, TimeUnit.MILLISECONDS));
+
+        ch.writeAndFlush(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"));
+        assertEquals("/", responses.poll(5, TimeUnit.SECONDS));
+        pool.release(ch).sync();
+        assertSame(ch, pending.sync().getNow());
+        pool.release(ch).sync();
+        poolMap.close();
+    }
+}
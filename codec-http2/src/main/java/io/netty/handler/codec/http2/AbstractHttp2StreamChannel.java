@@ -120,13 +120,6 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         }
     }
 
-    private final ChannelFutureListener windowUpdateFrameWriteListener = new ChannelFutureListener() {
-        @Override
-        public void operationComplete(ChannelFuture future) {
-            windowUpdateFrameWriteComplete(future, AbstractHttp2StreamChannel.this);
-        }
-    };
-
     /**
      * The current status of the read-processing for a {@link AbstractHttp2StreamChannel}.
      */
@@ -149,7 +142,9 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
 
     private final AbstractHttp2StreamChannel.Http2StreamChannelConfig config = new Http2StreamChannelConfig(this);
     private final AbstractHttp2StreamChannel.Http2ChannelUnsafe unsafe = new Http2ChannelUnsafe();
-    private final ChannelId channelId;
+    private final int channelIdSequence;
+    // Created on first use, as most short lived streams never ask for it.
+    private ChannelId channelId;
     private final ChannelPipeline pipeline;
     private final DefaultHttp2FrameStream stream;
     private final ChannelPromise closePromise;
@@ -161,6 +156,7 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
 
     // Cached to reduce GC
     private Runnable fireChannelWritabilityChangedTask;
+    private ChannelFutureListener windowUpdateFrameWriteListener;
 
     private boolean outboundClosed;
     private int flowControlledBytes;
@@ -195,7 +191,7 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
         };
 
         closePromise = pipeline.newPromise();
-        channelId = new Http2StreamChannelId(parent().id(), id);
+        channelIdSequence = id;
 
         if (inboundHandler != null) {
             // Add the handler to the pipeline now that we are registered.
@@ -326,6 +322,11 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
 
     @Override
     public ChannelId id() {
+        ChannelId channelId = this.channelId;
+        if (channelId == null) {
+            // Racing threads create equal ids, so there is no need to synchronize.
+            this.channelId = channelId = new Http2StreamChannelId(parent().id(), channelIdSequence);
+        }
         return channelId;
     }
 
@@ -848,7 +849,16 @@ abstract class AbstractHttp2StreamChannel extends DefaultAttributeMap implements
                 if (future.isDone()) {
                     windowUpdateFrameWriteComplete(future, AbstractHttp2StreamChannel.this);
                 } else {
-                    future.addListener(windowUpdateFrameWriteListener);
+                    ChannelFutureListener listener = windowUpdateFrameWriteListener;
+                    if (listener == null) {
+                        windowUpdateFrameWriteListener = listener = new ChannelFutureListener() {
+                            @Override
+                            public void operationComplete(ChannelFuture future) {
+                                windowUpdateFrameWriteComplete(future, AbstractHttp2StreamChannel.this);
+                            }
+                        };
+                    }
+                    future.addListener(listener);
                     writeDoneAndNoFlush = true;
                 }
             }
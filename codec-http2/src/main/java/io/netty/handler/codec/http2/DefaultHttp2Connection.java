@@ -18,9 +18,6 @@ package io.netty.handler.codec.http2;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http2.Http2Stream.State;
-import io.netty.util.collection.IntObjectHashMap;
-import io.netty.util.collection.IntObjectMap;
-import io.netty.util.collection.IntObjectMap.PrimitiveEntry;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.Promise;
 import io.netty.util.concurrent.UnaryPromiseNotifier;
@@ -33,10 +30,8 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Queue;
-import java.util.Set;
 
 import static io.netty.handler.codec.http2.Http2CodecUtil.CONNECTION_STREAM_ID;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_RESERVED_STREAMS;
@@ -64,14 +59,14 @@ import static java.lang.Integer.MAX_VALUE;
 public class DefaultHttp2Connection implements Http2Connection {
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(DefaultHttp2Connection.class);
     // Fields accessed by inner classes
-    final IntObjectMap<Http2Stream> streamMap = new IntObjectHashMap<Http2Stream>();
+    final Http2StreamSlotMap streamMap = new Http2StreamSlotMap();
     final PropertyKeyRegistry propertyKeyRegistry = new PropertyKeyRegistry();
     final ConnectionStream connectionStream = new ConnectionStream();
     final DefaultEndpoint<Http2LocalFlowController> localEndpoint;
     final DefaultEndpoint<Http2RemoteFlowController> remoteEndpoint;
 
     /**
-     * We chose a {@link List} over a {@link Set} to avoid allocating an {@link Iterator} objects when iterating over
+     * We chose a {@link List} over a {@code Set} to avoid allocating an {@link Iterator} objects when iterating over
      * the listeners.
      * <p>
      * Initial size of 4 because the default configuration currently has 3 listeners
@@ -104,9 +99,6 @@ public class DefaultHttp2Connection implements Http2Connection {
         // [2] https://tools.ietf.org/html/rfc7540#section-8.2.2
         localEndpoint = new DefaultEndpoint<Http2LocalFlowController>(server, server ? MAX_VALUE : maxReservedStreams);
         remoteEndpoint = new DefaultEndpoint<Http2RemoteFlowController>(!server, maxReservedStreams);
-
-        // Add the connection stream to the map.
-        streamMap.put(connectionStream.id(), connectionStream);
     }
 
     /**
@@ -137,32 +129,27 @@ public class DefaultHttp2Connection implements Http2Connection {
             return promise;
         }
 
-        Iterator<PrimitiveEntry<Http2Stream>> itr = streamMap.entries().iterator();
+        Iterator<Http2Stream> itr = streamMap.iterator();
         // We must take care while iterating the streamMap as to not modify while iterating in case there are other code
         // paths iterating over the active streams.
         if (activeStreams.allowModifications()) {
             activeStreams.incrementPendingIterations();
             try {
                 while (itr.hasNext()) {
-                    DefaultStream stream = (DefaultStream) itr.next().value();
-                    if (stream.id() != CONNECTION_STREAM_ID) {
-                        // If modifications of the activeStream map is allowed, then a stream close operation will also
-                        // modify the streamMap. Pass the iterator in so that remove will be called to prevent
-                        // concurrent modification exceptions.
-                        stream.close(itr);
-                    }
+                    DefaultStream stream = (DefaultStream) itr.next();
+                    // If modifications of the activeStream map is allowed, then a stream close operation will also
+                    // modify the streamMap. Pass the iterator in so that remove will be called to prevent
+                    // concurrent modification exceptions.
+                    stream.close(itr);
                 }
             } finally {
                 activeStreams.decrementPendingIterations();
             }
         } else {
             while (itr.hasNext()) {
-                Http2Stream stream = itr.next().value();
-                if (stream.id() != CONNECTION_STREAM_ID) {
-                    // We are not allowed to make modifications, so the close calls will be executed after this
-                    // iteration completes.
-                    stream.close();
-                }
+                // We are not allowed to make modifications, so the close calls will be executed after this
+                // iteration completes.
+                itr.next().close();
             }
         }
         return closePromise;
@@ -190,7 +177,8 @@ public class DefaultHttp2Connection implements Http2Connection {
 
     @Override
     public Http2Stream stream(int streamId) {
-        return streamMap.get(streamId);
+        // The connection stream is never removed, so it is kept out of the streamMap.
+        return streamId == CONNECTION_STREAM_ID ? connectionStream : streamMap.get(streamId);
     }
 
     @Override
@@ -289,10 +277,10 @@ public class DefaultHttp2Connection implements Http2Connection {
     }
 
     /**
-     * Determine if {@link #streamMap} only contains the connection stream.
+     * Determine if {@link #streamMap} contains no streams besides the connection stream.
      */
     private boolean isStreamMapEmpty() {
-        return streamMap.size() == 1;
+        return streamMap.size() == 0;
     }
 
     /**
@@ -387,13 +375,21 @@ public class DefaultHttp2Connection implements Http2Connection {
         private static final byte META_STATE_RECV_HEADERS = 1 << 4;
         private static final byte META_STATE_RECV_TRAILERS = 1 << 5;
         private final int id;
-        private final PropertyMap properties = new PropertyMap();
+        // Property values indexed by DefaultPropertyKey.index. Keys are usually all registered before the first
+        // stream is created, so this is sized once and never needs to grow.
+        private Object[] properties;
         private State state;
         private byte metaState;
+        // Links of the intrusive list of active streams, see ActiveStreams.
+        DefaultStream prevActive;
+        DefaultStream nextActive;
+        boolean active;
 
         DefaultStream(int id, State state) {
             this.id = id;
             this.state = state;
+            int numKeys = propertyKeyRegistry.size();
+            properties = numKeys == 0 ? EmptyArrays.EMPTY_OBJECTS : new Object[numKeys];
         }
 
         @Override
@@ -466,17 +462,33 @@ public class DefaultHttp2Connection implements Http2Connection {
 
         @Override
         public final <V> V setProperty(PropertyKey key, V value) {
-            return properties.add(verifyKey(key), value);
+            int index = verifyKey(key).index;
+            if (index >= properties.length) {
+                properties = Arrays.copyOf(properties, propertyKeyRegistry.size());
+            }
+            @SuppressWarnings("unchecked")
+            V prevValue = (V) properties[index];
+            properties[index] = value;
+            return prevValue;
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         public final <V> V getProperty(PropertyKey key) {
-            return properties.get(verifyKey(key));
+            int index = verifyKey(key).index;
+            return index < properties.length ? (V) properties[index] : null;
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         public final <V> V removeProperty(PropertyKey key) {
-            return properties.remove(verifyKey(key));
+            int index = verifyKey(key).index;
+            if (index >= properties.length) {
+                return null;
+            }
+            V prevValue = (V) properties[index];
+            properties[index] = null;
+            return prevValue;
         }
 
         @Override
@@ -557,45 +569,6 @@ public class DefaultHttp2Connection implements Http2Connection {
         final boolean isLocal() {
             return localEndpoint.isValidStreamId(id);
         }
-
-        /**
-         * Provides the lazy initialization for the {@link DefaultStream} data map.
-         */
-        private class PropertyMap {
-            Object[] values = EmptyArrays.EMPTY_OBJECTS;
-
-            <V> V add(DefaultPropertyKey key, V value) {
-                resizeIfNecessary(key.index);
-                @SuppressWarnings("unchecked")
-                V prevValue = (V) values[key.index];
-                values[key.index] = value;
-                return prevValue;
-            }
-
-            @SuppressWarnings("unchecked")
-            <V> V get(DefaultPropertyKey key) {
-                if (key.index >= values.length) {
-                    return null;
-                }
-                return (V) values[key.index];
-            }
-
-            @SuppressWarnings("unchecked")
-            <V> V remove(DefaultPropertyKey key) {
-                V prevValue = null;
-                if (key.index < values.length) {
-                    prevValue = (V) values[key.index];
-                    values[key.index] = null;
-                }
-                return prevValue;
-            }
-
-            void resizeIfNecessary(int index) {
-                if (index >= values.length) {
-                    values = Arrays.copyOf(values, propertyKeyRegistry.size());
-                }
-            }
-        }
     }
 
     /**
@@ -794,7 +767,7 @@ public class DefaultHttp2Connection implements Http2Connection {
 
         private void addStream(DefaultStream stream) {
             // Add the stream to the map and priority tree.
-            streamMap.put(stream.id(), stream);
+            streamMap.put(stream);
 
             // Notify the listeners of the event.
             for (int i = 0; i < listeners.size(); i++) {
@@ -927,7 +900,11 @@ public class DefaultHttp2Connection implements Http2Connection {
     private final class ActiveStreams {
         private final List<Listener> listeners;
         private final Queue<Event> pendingEvents = new ArrayDeque<Event>(4);
-        private final Set<Http2Stream> streams = new LinkedHashSet<Http2Stream>();
+        // The active streams are linked through their own fields in activation order, so activating and
+        // deactivating a stream does not allocate.
+        private DefaultStream head;
+        private DefaultStream tail;
+        private int size;
         private int pendingIterations;
 
         ActiveStreams(List<Listener> listeners) {
@@ -935,7 +912,7 @@ public class DefaultHttp2Connection implements Http2Connection {
         }
 
         public int size() {
-            return streams.size();
+            return size;
         }
 
         public void activate(final DefaultStream stream) {
@@ -967,7 +944,7 @@ public class DefaultHttp2Connection implements Http2Connection {
         public Http2Stream forEachActiveStream(Http2StreamVisitor visitor) throws Http2Exception {
             incrementPendingIterations();
             try {
-                for (Http2Stream stream : streams) {
+                for (DefaultStream stream = head; stream != null; stream = stream.nextActive) {
                     if (!visitor.visit(stream)) {
                         return stream;
                     }
@@ -979,7 +956,7 @@ public class DefaultHttp2Connection implements Http2Connection {
         }
 
         void addToActiveStreams(DefaultStream stream) {
-            if (streams.add(stream)) {
+            if (link(stream)) {
                 // Update the number of active streams initiated by the endpoint.
                 stream.createdBy().numActiveStreams++;
 
@@ -994,7 +971,7 @@ public class DefaultHttp2Connection implements Http2Connection {
         }
 
         void removeFromActiveStreams(DefaultStream stream, Iterator<?> itr) {
-            if (streams.remove(stream)) {
+            if (unlink(stream)) {
                 // Update the number of active streams initiated by the endpoint.
                 stream.createdBy().numActiveStreams--;
                 notifyClosed(stream);
@@ -1002,6 +979,44 @@ public class DefaultHttp2Connection implements Http2Connection {
             removeStream(stream, itr);
         }
 
+        private boolean link(DefaultStream stream) {
+            if (stream.active) {
+                return false;
+            }
+            stream.active = true;
+            stream.prevActive = tail;
+            if (tail == null) {
+                head = stream;
+            } else {
+                tail.nextActive = stream;
+            }
+            tail = stream;
+            size++;
+            return true;
+        }
+
+        private boolean unlink(DefaultStream stream) {
+            if (!stream.active) {
+                return false;
+            }
+            stream.active = false;
+            DefaultStream prev = stream.prevActive;
+            DefaultStream next = stream.nextActive;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.nextActive = next;
+            }
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.prevActive = prev;
+            }
+            stream.prevActive = stream.nextActive = null;
+            size--;
+            return true;
+        }
+
         boolean allowModifications() {
             return pendingIterations == 0;
         }
@@ -490,6 +490,18 @@ public class DefaultHttp2ConnectionDecoder implements Http2ConnectionDecoder {
 
         @Override
         public void onPingAckRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
+            Http2LocalFlowController flowController = flowController();
+            if (flowController instanceof DefaultHttp2LocalFlowController) {
+                // The PING may have been sent to estimate the bandwidth-delay product for window auto-tuning.
+                int initialWindowSize = ((DefaultHttp2LocalFlowController) flowController).bdpPingAckRead(data);
+                if (initialWindowSize > 0) {
+                    encoder.writeSettings(ctx, new Http2Settings().initialWindowSize(initialWindowSize),
+                            ctx.newPromise());
+                }
+                if (initialWindowSize >= 0) {
+                    return;
+                }
+            }
             listener.onPingAckRead(ctx, data);
         }
 
@@ -31,6 +31,7 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
 
     private final HpackDecoder hpackDecoder;
     private final boolean validateHeaders;
+    private final boolean readOnlyHeaders;
     private long maxHeaderListSizeGoAway;
 
     /**
@@ -73,13 +74,37 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
         this(validateHeaders, new HpackDecoder(maxHeaderListSize));
     }
 
+    /**
+     * Create a new instance.
+     * @param validateHeaders {@code true} to validate headers are valid according to the RFC.
+     * @param maxHeaderListSize This is the only setting that can be configured before notifying the peer.
+     *  This is because <a href="https://tools.ietf.org/html/rfc7540#section-6.5.1">SETTINGS_MAX_HEADER_LIST_SIZE</a>
+     *  allows a lower than advertised limit from being enforced, and the default limit is unlimited
+     *  (which is dangerous).
+     * @param readOnlyHeaders {@code true} to decode into {@link ReadOnlyHttp2Headers} which keep the decoded
+     *  fields in arrays and only hash the names when they are looked up. This is cheaper if only a few headers are
+     *  inspected, but the headers can not be modified afterwards and {@link #newHeaders()} is not used.
+     */
+    public DefaultHttp2HeadersDecoder(boolean validateHeaders, long maxHeaderListSize, boolean readOnlyHeaders) {
+        this(validateHeaders, readOnlyHeaders, new HpackDecoder(maxHeaderListSize));
+    }
+
     /**
      * Exposed Used for testing only! Default values used in the initial settings frame are overridden intentionally
      * for testing but violate the RFC if used outside the scope of testing.
      */
     DefaultHttp2HeadersDecoder(boolean validateHeaders, HpackDecoder hpackDecoder) {
+        this(validateHeaders, false, hpackDecoder);
+    }
+
+    /**
+     * Exposed Used for testing only! Default values used in the initial settings frame are overridden intentionally
+     * for testing but violate the RFC if used outside the scope of testing.
+     */
+    DefaultHttp2HeadersDecoder(boolean validateHeaders, boolean readOnlyHeaders, HpackDecoder hpackDecoder) {
         this.hpackDecoder = ObjectUtil.checkNotNull(hpackDecoder, "hpackDecoder");
         this.validateHeaders = validateHeaders;
+        this.readOnlyHeaders = readOnlyHeaders;
         this.maxHeaderListSizeGoAway =
                 Http2CodecUtil.calculateMaxHeaderListSizeGoAway(hpackDecoder.getMaxHeaderListSize());
     }
@@ -122,8 +147,13 @@ public class DefaultHttp2HeadersDecoder implements Http2HeadersDecoder, Http2Hea
     @Override
     public Http2Headers decodeHeaders(int streamId, ByteBuf headerBlock) throws Http2Exception {
         try {
-            final Http2Headers headers = newHeaders();
-            hpackDecoder.decode(streamId, headerBlock, headers, validateHeaders);
+            final Http2Headers headers;
+            if (readOnlyHeaders) {
+                headers = hpackDecoder.decodeReadOnly(streamId, headerBlock, numberOfHeadersGuess(), validateHeaders);
+            } else {
+                headers = newHeaders();
+                hpackDecoder.decode(streamId, headerBlock, headers, validateHeaders);
+            }
             headerArraySizeAccumulator = HEADERS_COUNT_WEIGHT_NEW * headers.size() +
                                          HEADERS_COUNT_WEIGHT_HISTORICAL * headerArraySizeAccumulator;
             return headers;
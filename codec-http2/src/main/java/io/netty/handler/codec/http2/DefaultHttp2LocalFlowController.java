@@ -56,6 +56,15 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
     private float windowUpdateRatio;
     private int initialWindowSize = DEFAULT_WINDOW_SIZE;
 
+    // State of the window auto-tuning, see maxAutoTunedWindowSize(int).
+    private int maxAutoTunedWindowSize;
+    private int autoTunedWindowSize;
+    private boolean bdpPingInFlight;
+    private long bdpPingData;
+    private long bdpPingSentNanos;
+    private long bdpBytes;
+    private double maxBandwidth;
+
     public DefaultHttp2LocalFlowController(Http2Connection connection) {
         this(connection, DEFAULT_WINDOW_UPDATE_RATIO, false);
     }
@@ -263,11 +272,107 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
         return state(stream).windowUpdateRatio();
     }
 
+    /**
+     * Enables auto-tuning of the flow control windows, which is disabled by default.
+     * <p>
+     * When enabled the bandwidth-delay product of the connection is estimated by sending a {@code PING} while
+     * {@code DATA} is received and counting the bytes that arrive until it is acknowledged. If the peer used most of
+     * the window during that round trip and the measured bandwidth increased, the connection window and the
+     * {@code SETTINGS_INITIAL_WINDOW_SIZE} are grown to twice the bytes received, up to {@code maxWindowSize}.
+     * Windows are never shrunk by auto-tuning.
+     * <p>
+     * Auto-tuning requires the {@code PING} acknowledgements to be passed to {@link #bdpPingAckRead(long)}, which
+     * {@link DefaultHttp2ConnectionDecoder} does. Every auto-tuning {@code PING} carries a new random payload and
+     * only the first acknowledgement with that payload is consumed, all other {@code PING} acknowledgements are
+     * passed on to the application as before. The {@code SETTINGS} frames that announce the grown window are
+     * acknowledged like any other and so are visible to the application.
+     * @param maxWindowSize the upper bound of the auto-tuned windows or {@code 0} to disable auto-tuning.
+     */
+    public void maxAutoTunedWindowSize(int maxWindowSize) {
+        assert ctx == null || ctx.executor().inEventLoop();
+        if (maxWindowSize < 0 || maxWindowSize > MAX_INITIAL_WINDOW_SIZE) {
+            throw new IllegalArgumentException("maxWindowSize: " + maxWindowSize +
+                    " (expected: 0-" + MAX_INITIAL_WINDOW_SIZE + ')');
+        }
+        maxAutoTunedWindowSize = maxWindowSize;
+    }
+
+    /**
+     * The upper bound of the auto-tuned windows or {@code 0} if auto-tuning is disabled.
+     * @see #maxAutoTunedWindowSize(int)
+     */
+    public int maxAutoTunedWindowSize() {
+        return maxAutoTunedWindowSize;
+    }
+
+    /**
+     * Called when a {@code PING} acknowledgement was read.
+     *
+     * @param data the payload of the acknowledged {@code PING}.
+     * @return {@code -1} if the {@code PING} was not sent by the window auto-tuning and must be passed on to the
+     * application, {@code 0} if the windows stay as they are or the new initial window size for streams which must
+     * be announced to the peer via {@code SETTINGS_INITIAL_WINDOW_SIZE}.
+     * @throws Http2Exception if the connection window could not be grown.
+     */
+    int bdpPingAckRead(long data) throws Http2Exception {
+        assert ctx != null && ctx.executor().inEventLoop();
+        if (!bdpPingInFlight || data != bdpPingData) {
+            return -1;
+        }
+        bdpPingInFlight = false;
+        long rttNanos = max(1, System.nanoTime() - bdpPingSentNanos);
+        long bytes = bdpBytes;
+        bdpBytes = 0;
+
+        // Only grow if the peer used at least two thirds of the window during the round trip, which means it was
+        // most likely blocked by flow control, and the bandwidth increased. The latter prevents growing the windows
+        // because of increased latency caused by queues which fill up along the path.
+        int window = max(initialWindowSize, autoTunedWindowSize);
+        double bandwidth = (double) bytes / rttNanos;
+        if (bytes * 3 < window * 2L || bandwidth <= maxBandwidth) {
+            return 0;
+        }
+        maxBandwidth = bandwidth;
+        int newWindow = (int) min(maxAutoTunedWindowSize, bytes * 2);
+        if (newWindow <= window) {
+            return 0;
+        }
+        autoTunedWindowSize = newWindow;
+
+        // Grow the connection window right away instead of waiting for the next WINDOW_UPDATE, as the peer is most
+        // likely blocked on it.
+        FlowState connectionState = connectionState();
+        int delta = newWindow - connectionState.initialWindowSize();
+        if (delta > 0) {
+            connectionState.incrementInitialStreamWindow(delta);
+            connectionState.incrementFlowControlWindows(delta);
+            frameWriter.writeWindowUpdate(ctx, CONNECTION_STREAM_ID, delta, ctx.newPromise());
+        }
+        return newWindow;
+    }
+
+    private void sampleBandwidthDelayProduct(int dataLength) {
+        if (bdpPingInFlight) {
+            bdpBytes += dataLength;
+        } else if (max(initialWindowSize, autoTunedWindowSize) < maxAutoTunedWindowSize) {
+            bdpPingInFlight = true;
+            bdpBytes = 0;
+            // A random payload makes it very unlikely that the acknowledgement of a PING sent by the application
+            // is taken for this one.
+            bdpPingData = PlatformDependent.threadLocalRandom().nextLong();
+            bdpPingSentNanos = System.nanoTime();
+            frameWriter.writePing(ctx, false, bdpPingData, ctx.newPromise());
+        }
+    }
+
     @Override
     public void receiveFlowControlledFrame(Http2Stream stream, ByteBuf data, int padding,
             boolean endOfStream) throws Http2Exception {
         assert ctx != null && ctx.executor().inEventLoop();
         int dataLength = data.readableBytes() + padding;
+        if (maxAutoTunedWindowSize != 0) {
+            sampleBandwidthDelayProduct(dataLength);
+        }
 
         // Apply the connection-level flow control
         FlowState connectionState = connectionState();
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.internal.UnstableApi;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MIN_ALLOCATION_CHUNK;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT;
+import static io.netty.handler.codec.http2.Http2CodecUtil.streamableBytes;
+import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
+import static io.netty.handler.codec.http2.Http2Exception.connectionError;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A {@link StreamByteDistributor} that schedules streams with weighted deficit round robin. It ignores the
+ * dependency tree but respects the weights of the streams approximately: every time a stream gets its turn it may
+ * write a quantum of bytes that is proportional to its weight.
+ * <p>
+ * Scheduling a stream is {@code O(1)} regardless of the number of active streams, which makes this distributor
+ * cheaper than {@link WeightedFairQueueByteDistributor} if there are many streams, while unlike
+ * {@link UniformStreamByteDistributor} streams with a higher weight get a larger share of the connection.
+ */
+@UnstableApi
+public final class DeficitRoundRobinStreamByteDistributor implements StreamByteDistributor {
+    private final Http2Connection connection;
+    private final Http2Connection.PropertyKey stateKey;
+    private final Deque<State> queue = new ArrayDeque<State>(4);
+
+    /**
+     * The number of bytes a stream with the default weight may write per turn at least.
+     */
+    private int quantum = DEFAULT_MIN_ALLOCATION_CHUNK;
+    private long totalStreamableBytes;
+
+    public DeficitRoundRobinStreamByteDistributor(Http2Connection connection) {
+        this.connection = checkNotNull(connection, "connection");
+
+        // Add a state for the connection.
+        stateKey = connection.newKey();
+        Http2Stream connectionStream = connection.connectionStream();
+        connectionStream.setProperty(stateKey, new State(connectionStream));
+
+        // Register for notification of new streams.
+        connection.addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamAdded(Http2Stream stream) {
+                stream.setProperty(stateKey, new State(stream));
+            }
+
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                state(stream).close();
+            }
+        });
+    }
+
+    /**
+     * Sets the minimum number of bytes that a stream with the default weight may write per turn. Streams with a
+     * different weight get a proportionally larger or smaller quantum. Defaults to 1KiB.
+     *
+     * @param quantum the minimum number of bytes a stream with the default weight may write per turn.
+     * Must be > 0.
+     */
+    public void quantum(int quantum) {
+        this.quantum = checkPositive(quantum, "quantum");
+    }
+
+    @Override
+    public void updateStreamableBytes(StreamState streamState) {
+        state(streamState.stream()).updateStreamableBytes(streamableBytes(streamState),
+                                                          streamState.hasFrame(),
+                                                          streamState.windowSize());
+    }
+
+    @Override
+    public void updateDependencyTree(int childStreamId, int parentStreamId, short weight, boolean exclusive) {
+        // Only the weight is used, the dependency is ignored.
+        Http2Stream stream = connection.stream(childStreamId);
+        if (stream != null) {
+            state(stream).weight = weight;
+        }
+    }
+
+    @Override
+    public boolean distribute(int maxBytes, Writer writer) throws Http2Exception {
+        final int size = queue.size();
+        if (size == 0) {
+            return totalStreamableBytes > 0;
+        }
+
+        // Like UniformStreamByteDistributor use larger quanta if there are only few streams so the frames do not
+        // get smaller than necessary.
+        final int baseQuantum = max(quantum, maxBytes / size);
+
+        State state = queue.pollFirst();
+        do {
+            state.enqueued = false;
+            if (state.windowNegative || !state.hasFrame) {
+                // Either the window went negative or the stream was closed while it was queued. As removal from the
+                // middle of the queue is O(n) such states are only dropped once they reach the head.
+                state.deficit = 0;
+                continue;
+            }
+            if (maxBytes == 0 && state.streamableBytes > 0) {
+                // Stop at the first state that can't send. Add this state back to the head of the queue so it can
+                // use the rest of its deficit first when more bytes can be written. Note that empty frames at the
+                // head of the queue will always be written, assuming the stream window is not negative.
+                queue.addFirst(state);
+                state.enqueued = true;
+                break;
+            }
+
+            // Start a new turn if the stream used up its deficit of the last one.
+            if (state.deficit == 0) {
+                state.deficit = state.quantum(baseQuantum);
+            }
+            int chunk = min(state.deficit, min(maxBytes, state.streamableBytes));
+            maxBytes -= chunk;
+            state.deficit -= chunk;
+
+            // Write the allocated bytes, this enqueues the state at the tail if it has more to write.
+            state.write(chunk, writer);
+
+            if (state.enqueued && state.deficit > 0 && maxBytes == 0 && queue.peekLast() == state) {
+                // The turn of the stream was cut short, continue it first the next time.
+                queue.pollLast();
+                queue.addFirst(state);
+            } else {
+                state.deficit = 0;
+            }
+        } while ((state = queue.pollFirst()) != null);
+
+        return totalStreamableBytes > 0;
+    }
+
+    private State state(Http2Stream stream) {
+        return checkNotNull(stream, "stream").getProperty(stateKey);
+    }
+
+    /**
+     * The remote flow control state for a single stream.
+     */
+    private final class State {
+        final Http2Stream stream;
+        short weight = DEFAULT_PRIORITY_WEIGHT;
+        int streamableBytes;
+        int deficit;
+        boolean hasFrame;
+        boolean windowNegative;
+        boolean enqueued;
+        boolean writing;
+
+        State(Http2Stream stream) {
+            this.stream = stream;
+        }
+
+        int quantum(int baseQuantum) {
+            return (int) max(1, min(Integer.MAX_VALUE, (long) baseQuantum * weight / DEFAULT_PRIORITY_WEIGHT));
+        }
+
+        void updateStreamableBytes(int newStreamableBytes, boolean hasFrame, int windowSize) {
+            assert hasFrame || newStreamableBytes == 0 :
+                "hasFrame: " + hasFrame + " newStreamableBytes: " + newStreamableBytes;
+
+            int delta = newStreamableBytes - streamableBytes;
+            if (delta != 0) {
+                streamableBytes = newStreamableBytes;
+                totalStreamableBytes += delta;
+            }
+            this.hasFrame = hasFrame;
+            // Same restrictions as in UniformStreamByteDistributor: never queue a state with a negative window but
+            // leave it in the queue if it is already queued, and only queue a state with an empty window if it is
+            // not writing, in which case it already had the chance to write zero length frames.
+            windowNegative = windowSize < 0;
+            if (hasFrame && (windowSize > 0 || (windowSize == 0 && !writing))) {
+                addToQueue();
+            }
+        }
+
+        /**
+         * Write any allocated bytes for the given stream and updates the streamable bytes,
+         * assuming all of the bytes will be written.
+         */
+        void write(int numBytes, Writer writer) throws Http2Exception {
+            writing = true;
+            try {
+                // Write the allocated bytes.
+                writer.write(stream, numBytes);
+            } catch (Throwable t) {
+                throw connectionError(INTERNAL_ERROR, t, "byte distribution write error");
+            } finally {
+                writing = false;
+            }
+        }
+
+        void addToQueue() {
+            if (!enqueued) {
+                enqueued = true;
+                queue.addLast(this);
+            }
+        }
+
+        void close() {
+            // Clear the streamable bytes, the state is dropped from the queue once it reaches the head.
+            updateStreamableBytes(0, false, 0);
+        }
+    }
+}
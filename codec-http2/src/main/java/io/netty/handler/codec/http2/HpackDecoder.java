@@ -35,6 +35,9 @@ import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http2.HpackUtil.IndexType;
 import io.netty.util.AsciiString;
 
+import java.util.Arrays;
+
+import static io.netty.handler.codec.http2.DefaultHttp2Headers.HTTP2_NAME_VALIDATOR;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_LIST_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_TABLE_SIZE;
@@ -48,8 +51,10 @@ import static io.netty.handler.codec.http2.Http2Exception.streamError;
 import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.getPseudoHeader;
 import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.hasPseudoHeaderFormat;
 import static io.netty.util.AsciiString.EMPTY_STRING;
+import static io.netty.util.internal.EmptyArrays.EMPTY_ASCII_STRINGS;
 import static io.netty.util.internal.ObjectUtil.checkPositive;
 import static io.netty.util.internal.ThrowableUtil.unknownStackTrace;
+import static java.lang.Math.max;
 
 final class HpackDecoder {
     private static final Http2Exception DECODE_ULE_128_DECOMPRESSION_EXCEPTION = unknownStackTrace(
@@ -133,6 +138,22 @@ final class HpackDecoder {
         sink.finish();
     }
 
+    /**
+     * Decode the header block into a {@link ReadOnlyHttp2Headers} which references the decoded names and values
+     * directly instead of copying them into hash buckets. The names are hashed lazily when they are looked up.
+     * <p>
+     * This method assumes the entire header block is contained in {@code in}.
+     * @param headersSizeHint an estimate of the number of header fields in the block.
+     */
+    ReadOnlyHttp2Headers decodeReadOnly(int streamId, ByteBuf in, int headersSizeHint, boolean validateHeaders)
+            throws Http2Exception {
+        ReadOnlyHttp2HeadersSink sink =
+                new ReadOnlyHttp2HeadersSink(streamId, headersSizeHint, maxHeaderListSize, validateHeaders);
+        decode(in, sink);
+        sink.finish();
+        return sink.headers();
+    }
+
     private void decode(ByteBuf in, Sink sink) throws Http2Exception {
         int index = 0;
         int nameLength = 0;
@@ -523,18 +544,16 @@ final class HpackDecoder {
         void finish() throws Http2Exception;
     }
 
-    private static final class Http2HeadersSink implements Sink {
-        private final Http2Headers headers;
+    private abstract static class AbstractHeadersSink implements Sink {
         private final long maxHeaderListSize;
         private final int streamId;
-        private final boolean validate;
+        final boolean validate;
         private long headersLength;
         private boolean exceededMaxLength;
         private HeaderType previousType;
         private Http2Exception validationException;
 
-        Http2HeadersSink(int streamId, Http2Headers headers, long maxHeaderListSize, boolean validate) {
-            this.headers = headers;
+        AbstractHeadersSink(int streamId, long maxHeaderListSize, boolean validate) {
             this.maxHeaderListSize = maxHeaderListSize;
             this.streamId = streamId;
             this.validate = validate;
@@ -568,7 +587,70 @@ final class HpackDecoder {
                 }
             }
 
+            addHeader(name, value);
+        }
+
+        abstract void addHeader(CharSequence name, CharSequence value);
+    }
+
+    private static final class Http2HeadersSink extends AbstractHeadersSink {
+        private final Http2Headers headers;
+
+        Http2HeadersSink(int streamId, Http2Headers headers, long maxHeaderListSize, boolean validate) {
+            super(streamId, maxHeaderListSize, validate);
+            this.headers = headers;
+        }
+
+        @Override
+        void addHeader(CharSequence name, CharSequence value) {
             headers.add(name, value);
         }
     }
+
+    private static final class ReadOnlyHttp2HeadersSink extends AbstractHeadersSink {
+        private AsciiString[] pseudoHeaders = EMPTY_ASCII_STRINGS;
+        private int pseudoHeadersLength;
+        private AsciiString[] otherHeaders;
+        private int otherHeadersLength;
+
+        ReadOnlyHttp2HeadersSink(int streamId, int headersSizeHint, long maxHeaderListSize, boolean validate) {
+            super(streamId, maxHeaderListSize, validate);
+            otherHeaders = new AsciiString[max(headersSizeHint, 4) << 1];
+        }
+
+        @Override
+        void addHeader(CharSequence name, CharSequence value) {
+            if (validate) {
+                // Same check DefaultHttp2Headers does when a header is added. The hash code is not computed here
+                // but only once the name is looked up.
+                HTTP2_NAME_VALIDATOR.validateName(name);
+            }
+            if (hasPseudoHeaderFormat(name)) {
+                if (pseudoHeadersLength == pseudoHeaders.length) {
+                    // There are at most 5 pseudo-headers, so start with room for 4 and grow once if needed.
+                    pseudoHeaders = Arrays.copyOf(pseudoHeaders, max(8, pseudoHeadersLength << 1));
+                }
+                pseudoHeaders[pseudoHeadersLength++] = AsciiString.of(name);
+                pseudoHeaders[pseudoHeadersLength++] = AsciiString.of(value);
+            } else {
+                if (otherHeadersLength == otherHeaders.length) {
+                    otherHeaders = Arrays.copyOf(otherHeaders, otherHeadersLength << 1);
+                }
+                otherHeaders[otherHeadersLength++] = AsciiString.of(name);
+                otherHeaders[otherHeadersLength++] = AsciiString.of(value);
+            }
+        }
+
+        ReadOnlyHttp2Headers headers() {
+            return ReadOnlyHttp2Headers.decoded(trim(pseudoHeaders, pseudoHeadersLength),
+                                                trim(otherHeaders, otherHeadersLength));
+        }
+
+        private static AsciiString[] trim(AsciiString[] array, int length) {
+            if (length == 0) {
+                return EMPTY_ASCII_STRINGS;
+            }
+            return length == array.length ? array : Arrays.copyOf(array, length);
+        }
+    }
 }
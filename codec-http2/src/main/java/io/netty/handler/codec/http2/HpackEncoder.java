@@ -32,6 +32,7 @@
 package io.netty.handler.codec.http2;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http2.HpackUtil.IndexType;
 import io.netty.handler.codec.http2.Http2HeadersEncoder.SensitivityDetector;
 import io.netty.util.AsciiString;
@@ -51,6 +52,7 @@ import static io.netty.handler.codec.http2.Http2CodecUtil.headerListSizeExceeded
 import static io.netty.handler.codec.http2.Http2Error.PROTOCOL_ERROR;
 import static io.netty.handler.codec.http2.Http2Exception.connectionError;
 import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
@@ -63,6 +65,10 @@ import static java.lang.Math.min;
  */
 final class HpackEncoder {
     static final int HUFF_CODE_THRESHOLD = 512;
+    static final int DEFAULT_BLOCK_CACHE_SIZE = 4;
+    // Header sets that are larger than this are unlikely to repeat exactly, so they are never cached.
+    private static final int MAX_CACHED_BLOCK_FIELDS = 16;
+    private static final int MAX_CACHED_BLOCK_BYTES = 1024;
     // a linked hash map of header fields
     private final HeaderEntry[] headerFields;
     private final HeaderEntry head = new HeaderEntry(-1, AsciiString.EMPTY_STRING,
@@ -71,6 +77,10 @@ final class HpackEncoder {
     private final byte hashMask;
     private final boolean ignoreMaxHeaderListSize;
     private final int huffCodeThreshold;
+    private final EncodedHeaderBlock[] blockCache;
+    private int nextBlockCacheSlot;
+    // Incremented each time the dynamic table is modified, which changes the indexes cached blocks refer to.
+    private int dynamicTableVersion;
     private long size;
     private long maxHeaderTableSize;
     private long maxHeaderListSize;
@@ -93,6 +103,17 @@ final class HpackEncoder {
      * Creates a new encoder.
      */
     HpackEncoder(boolean ignoreMaxHeaderListSize, int arraySizeHint, int huffCodeThreshold) {
+        this(ignoreMaxHeaderListSize, arraySizeHint, huffCodeThreshold, DEFAULT_BLOCK_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new encoder.
+     *
+     * @param blockCacheSize the number of encoded header blocks to remember. A header set which is encoded again
+     *                       while the dynamic table did not change since it was remembered is copied instead of
+     *                       being encoded field by field. {@code 0} disables the cache.
+     */
+    HpackEncoder(boolean ignoreMaxHeaderListSize, int arraySizeHint, int huffCodeThreshold, int blockCacheSize) {
         this.ignoreMaxHeaderListSize = ignoreMaxHeaderListSize;
         maxHeaderTableSize = DEFAULT_HEADER_TABLE_SIZE;
         maxHeaderListSize = MAX_HEADER_LIST_SIZE;
@@ -102,6 +123,7 @@ final class HpackEncoder {
         hashMask = (byte) (headerFields.length - 1);
         head.before = head.after = head;
         this.huffCodeThreshold = huffCodeThreshold;
+        blockCache = new EncodedHeaderBlock[checkPositiveOrZero(blockCacheSize, "blockCacheSize")];
     }
 
     /**
@@ -111,11 +133,125 @@ final class HpackEncoder {
      */
     public void encodeHeaders(int streamId, ByteBuf out, Http2Headers headers, SensitivityDetector sensitivityDetector)
             throws Http2Exception {
+        if (headers instanceof ReadOnlyHttp2Headers && ((ReadOnlyHttp2Headers) headers).isPreEncoded()) {
+            ReadOnlyHttp2Headers preEncoded = (ReadOnlyHttp2Headers) headers;
+            writeEncodedBlock(streamId, out, preEncoded.hpackFragment(), preEncoded.hpackHeaderListSize());
+            return;
+        }
+        EncodedHeaderBlock cached = findCachedBlock(headers, sensitivityDetector);
+        if (cached != null) {
+            writeEncodedBlock(streamId, out, cached.encoded, cached.headerListSize);
+            return;
+        }
+
+        int version = dynamicTableVersion;
+        int startIndex = out.writerIndex();
         if (ignoreMaxHeaderListSize) {
             encodeHeadersIgnoreMaxHeaderListSize(out, headers, sensitivityDetector);
         } else {
             encodeHeadersEnforceMaxHeaderListSize(streamId, out, headers, sensitivityDetector);
         }
+        if (version == dynamicTableVersion) {
+            // The block neither added nor evicted entries, so the same bytes are valid until the table changes.
+            cacheBlock(out, startIndex, headers, sensitivityDetector);
+        }
+    }
+
+    private void writeEncodedBlock(int streamId, ByteBuf out, byte[] encoded, long headerListSize)
+            throws Http2Exception {
+        if (!ignoreMaxHeaderListSize && headerListSize > maxHeaderListSize) {
+            headerListSizeExceeded(streamId, maxHeaderListSize, false);
+        }
+        out.writeBytes(encoded);
+    }
+
+    private EncodedHeaderBlock findCachedBlock(Http2Headers headers, SensitivityDetector sensitivityDetector) {
+        int fields = headers.size();
+        if (fields > MAX_CACHED_BLOCK_FIELDS) {
+            return null;
+        }
+        for (EncodedHeaderBlock block : blockCache) {
+            if (block != null && block.matches(headers, fields, sensitivityDetector, dynamicTableVersion)) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    private void cacheBlock(ByteBuf out, int startIndex, Http2Headers headers,
+                            SensitivityDetector sensitivityDetector) {
+        int fields = headers.size();
+        int encodedLength = out.writerIndex() - startIndex;
+        if (blockCache.length == 0 || fields > MAX_CACHED_BLOCK_FIELDS || encodedLength > MAX_CACHED_BLOCK_BYTES) {
+            return;
+        }
+        CharSequence[] namesAndValues = new CharSequence[fields << 1];
+        long headerListSize = 0;
+        int i = 0;
+        for (Map.Entry<CharSequence, CharSequence> header : headers) {
+            CharSequence name = header.getKey();
+            CharSequence value = header.getValue();
+            if (sensitivityDetector.isSensitive(name, value)) {
+                // Never keep sensitive values around longer than needed.
+                return;
+            }
+            namesAndValues[i++] = immutableCopy(name);
+            namesAndValues[i++] = immutableCopy(value);
+            headerListSize += HpackHeaderField.sizeOf(name, value);
+        }
+        byte[] encoded = new byte[encodedLength];
+        out.getBytes(startIndex, encoded);
+        blockCache[nextBlockCacheSlot] = new EncodedHeaderBlock(namesAndValues, sensitivityDetector,
+                dynamicTableVersion, headerListSize, encoded);
+        nextBlockCacheSlot = (nextBlockCacheSlot + 1) % blockCache.length;
+    }
+
+    /**
+     * Returns a copy of {@code seq} that can not change afterwards, as the caller may reuse a mutable instance like
+     * a {@link StringBuilder} or an {@link AsciiString} over a reused array for the next headers.
+     */
+    private static CharSequence immutableCopy(CharSequence seq) {
+        if (seq instanceof String) {
+            return seq;
+        }
+        if (seq instanceof AsciiString) {
+            AsciiString ascii = (AsciiString) seq;
+            return new AsciiString(ascii.array(), ascii.arrayOffset(), ascii.length(), true);
+        }
+        return seq.toString();
+    }
+
+    /**
+     * Encodes the header fields without referencing or modifying any dynamic table, so that the result is valid at
+     * any point of any connection. Fields are represented by their static table index if possible, and as literals
+     * without indexing otherwise.
+     */
+    static byte[] encodeStateless(Http2Headers headers) {
+        HpackHuffmanEncoder huffmanEncoder = new HpackHuffmanEncoder();
+        ByteBuf out = Unpooled.buffer();
+        try {
+            for (Map.Entry<CharSequence, CharSequence> header : headers) {
+                CharSequence name = header.getKey();
+                CharSequence value = header.getValue();
+                int staticTableIndex = HpackStaticTable.getIndexInsensitive(name, value);
+                if (staticTableIndex != -1) {
+                    encodeInteger(out, 0x80, 7, staticTableIndex);
+                } else {
+                    int nameIndex = HpackStaticTable.getIndex(name);
+                    encodeInteger(out, 0x00, 4, nameIndex == -1 ? 0 : nameIndex);
+                    if (nameIndex == -1) {
+                        // The fragment is encoded only once, so always pick the shortest representation.
+                        encodeStringLiteral(out, name, huffmanEncoder, 0);
+                    }
+                    encodeStringLiteral(out, value, huffmanEncoder, 0);
+                }
+            }
+            byte[] encoded = new byte[out.readableBytes()];
+            out.readBytes(encoded);
+            return encoded;
+        } finally {
+            out.release();
+        }
     }
 
     private void encodeHeadersEnforceMaxHeaderListSize(int streamId, ByteBuf out, Http2Headers headers,
@@ -178,21 +314,24 @@ final class HpackEncoder {
             return;
         }
 
+        // Fields of the static table are never added to the dynamic table, so look there first. This is a single
+        // lookup in a perfect hash table and the result always fits into a single byte.
+        int staticTableIndex = HpackStaticTable.getIndexInsensitive(name, value);
+        if (staticTableIndex != -1) {
+            // Section 6.1. Indexed Header Field Representation
+            encodeInteger(out, 0x80, 7, staticTableIndex);
+            return;
+        }
+
         HeaderEntry headerField = getEntryInsensitive(name, value);
         if (headerField != null) {
             int index = getIndex(headerField.index) + HpackStaticTable.length;
             // Section 6.1. Indexed Header Field Representation
             encodeInteger(out, 0x80, 7, index);
         } else {
-            int staticTableIndex = HpackStaticTable.getIndexInsensitive(name, value);
-            if (staticTableIndex != -1) {
-                // Section 6.1. Indexed Header Field Representation
-                encodeInteger(out, 0x80, 7, staticTableIndex);
-            } else {
-                ensureCapacity(headerSize);
-                encodeLiteral(out, name, value, IndexType.INCREMENTAL, getNameIndex(name));
-                add(name, value, headerSize);
-            }
+            ensureCapacity(headerSize);
+            encodeLiteral(out, name, value, IndexType.INCREMENTAL, getNameIndex(name));
+            add(name, value, headerSize);
         }
     }
 
@@ -208,6 +347,8 @@ final class HpackEncoder {
             return;
         }
         this.maxHeaderTableSize = maxHeaderTableSize;
+        // The size limit decides how fields are represented, so blocks encoded for the old limit are stale.
+        dynamicTableVersion++;
         ensureCapacity(0);
         // Casting to integer is safe as we verified the maxHeaderTableSize is a valid unsigned int.
         encodeInteger(out, 0x20, 5, maxHeaderTableSize);
@@ -261,11 +402,16 @@ final class HpackEncoder {
      * Encode string literal according to Section 5.2.
      */
     private void encodeStringLiteral(ByteBuf out, CharSequence string) {
+        encodeStringLiteral(out, string, hpackHuffmanEncoder, huffCodeThreshold);
+    }
+
+    private static void encodeStringLiteral(ByteBuf out, CharSequence string, HpackHuffmanEncoder huffmanEncoder,
+                                            int huffCodeThreshold) {
         int huffmanLength;
         if (string.length() >= huffCodeThreshold
-                && (huffmanLength = hpackHuffmanEncoder.getEncodedLength(string)) < string.length()) {
+                && (huffmanLength = huffmanEncoder.getEncodedLength(string)) < string.length()) {
             encodeInteger(out, 0x80, 7, huffmanLength);
-            hpackHuffmanEncoder.encode(out, string);
+            huffmanEncoder.encode(out, string);
         } else {
             encodeInteger(out, 0x00, 7, string.length());
             if (string instanceof AsciiString) {
@@ -424,6 +570,7 @@ final class HpackEncoder {
         headerFields[i] = e;
         e.addBefore(head);
         size += headerSize;
+        dynamicTableVersion++;
     }
 
     /**
@@ -448,6 +595,7 @@ final class HpackEncoder {
                 }
                 eldest.remove();
                 size -= eldest.size();
+                dynamicTableVersion++;
                 return eldest;
             }
             prev = e;
@@ -463,6 +611,7 @@ final class HpackEncoder {
         Arrays.fill(headerFields, null);
         head.before = head.after = head;
         size = 0;
+        dynamicTableVersion++;
     }
 
     /**
@@ -472,6 +621,50 @@ final class HpackEncoder {
         return h & hashMask;
     }
 
+    /**
+     * A header block that was encoded before, together with the header fields and the dynamic table state it was
+     * encoded for.
+     */
+    private static final class EncodedHeaderBlock {
+        final CharSequence[] namesAndValues;
+        final SensitivityDetector sensitivityDetector;
+        final int dynamicTableVersion;
+        final long headerListSize;
+        final byte[] encoded;
+
+        EncodedHeaderBlock(CharSequence[] namesAndValues, SensitivityDetector sensitivityDetector,
+                           int dynamicTableVersion, long headerListSize, byte[] encoded) {
+            this.namesAndValues = namesAndValues;
+            this.sensitivityDetector = sensitivityDetector;
+            this.dynamicTableVersion = dynamicTableVersion;
+            this.headerListSize = headerListSize;
+            this.encoded = encoded;
+        }
+
+        boolean matches(Http2Headers headers, int fields, SensitivityDetector sensitivityDetector,
+                        int dynamicTableVersion) {
+            if (this.dynamicTableVersion != dynamicTableVersion || this.sensitivityDetector != sensitivityDetector
+                    || namesAndValues.length != fields << 1) {
+                return false;
+            }
+            int i = 0;
+            for (Map.Entry<CharSequence, CharSequence> header : headers) {
+                CharSequence name = header.getKey();
+                CharSequence value = header.getValue();
+                CharSequence cachedName = namesAndValues[i++];
+                CharSequence cachedValue = namesAndValues[i++];
+                // The cached fields are immutable copies, so they are only identical to the given ones if those can not
+                // have changed either. Values may be sensitive even though the cached ones are not, so compare them
+                // in constant time.
+                if (name != cachedName && !equalsVariableTime(name, cachedName) ||
+                        value != cachedValue && equalsConstantTime(value, cachedValue) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     /**
      * A linked hash map HpackHeaderField entry.
      */
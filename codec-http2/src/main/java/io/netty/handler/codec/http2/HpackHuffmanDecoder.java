@@ -34,6 +34,7 @@ package io.netty.handler.codec.http2;
 import io.netty.buffer.ByteBuf;
 import io.netty.util.AsciiString;
 import io.netty.util.ByteProcessor;
+import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.ThrowableUtil;
 
 import static io.netty.handler.codec.http2.Http2Error.COMPRESSION_ERROR;
@@ -4665,15 +4666,34 @@ final class HpackHuffmanDecoder implements ByteProcessor {
             (0 << 16) + (HUFFMAN_FAIL << 8) + 0,
     };
 
+    // Flags of the entries of ByteTableHolder.BYTE_TABLE.
+    private static final int BYTE_FAIL = 1 << 27;
+    private static final int BYTE_COMPLETE = 1 << 26;
+    private static final int BYTE_SYMBOLS_SHIFT = 24;
+
+    private static final boolean USE_BYTE_TABLE =
+            SystemPropertyUtil.getBoolean("io.netty.http2.huffmanDecoderByteTable", true);
+
     private static final Http2Exception BAD_ENCODING = ThrowableUtil.unknownStackTrace(
             Http2Exception.newStatic(COMPRESSION_ERROR, "HPACK - Bad Encoding",
                     Http2Exception.ShutdownHint.HARD_SHUTDOWN), HpackHuffmanDecoder.class, "decode(..)");
 
+    private final int[] byteTable;
     private byte[] dest;
     private int k;
     private int state;
 
-    HpackHuffmanDecoder() { }
+    HpackHuffmanDecoder() {
+        this(USE_BYTE_TABLE);
+    }
+
+    /**
+     * @param useByteTable {@code true} to decode a byte per table lookup, {@code false} to decode a nibble per
+     *                     lookup which needs far less memory for the tables.
+     */
+    HpackHuffmanDecoder(boolean useByteTable) {
+        byteTable = useByteTable ? ByteTableHolder.BYTE_TABLE : null;
+    }
 
     /**
      * Decompresses the given Huffman coded string literal.
@@ -4686,6 +4706,9 @@ final class HpackHuffmanDecoder implements ByteProcessor {
         if (length == 0) {
             return AsciiString.EMPTY_STRING;
         }
+        if (byteTable != null && buf.hasArray()) {
+            return decodeArray(buf, length);
+        }
         dest = new byte[length * 8 / 5];
         try {
             int readerIndex = buf.readerIndex();
@@ -4695,7 +4718,7 @@ final class HpackHuffmanDecoder implements ByteProcessor {
             if (endIndex == -1) {
                 // We did consume the requested length
                 buf.readerIndex(readerIndex + length);
-                if ((state & HUFFMAN_COMPLETE_SHIFT) != HUFFMAN_COMPLETE_SHIFT) {
+                if (!isComplete()) {
                     throw BAD_ENCODING;
                 }
                 return new AsciiString(dest, 0, k, false);
@@ -4712,14 +4735,72 @@ final class HpackHuffmanDecoder implements ByteProcessor {
         }
     }
 
+    /**
+     * Decodes straight from the backing array, keeping all state in locals.
+     */
+    private AsciiString decodeArray(ByteBuf buf, int length) throws Http2Exception {
+        int[] byteTable = this.byteTable;
+        byte[] src = buf.array();
+        int readerIndex = buf.readerIndex();
+        int offset = buf.arrayOffset() + readerIndex;
+        byte[] dest = new byte[length * 8 / 5];
+        int k = 0;
+        int entry = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            // (entry >>> 16 & 0xFF) << 8 selects the row of the node the previous byte ended in.
+            entry = byteTable[entry >>> 8 & 0xFF00 | src[i] & 0xFF];
+            if ((entry & BYTE_FAIL) != 0) {
+                buf.readerIndex(readerIndex + i - offset);
+                throw BAD_ENCODING;
+            }
+            int symbols = entry >>> BYTE_SYMBOLS_SHIFT & 0x3;
+            if (symbols != 0) {
+                dest[k++] = (byte) entry;
+                if (symbols == 2) {
+                    dest[k++] = (byte) (entry >>> 8);
+                }
+            }
+        }
+        buf.readerIndex(readerIndex + length);
+        if ((entry & BYTE_COMPLETE) == 0) {
+            throw BAD_ENCODING;
+        }
+        return new AsciiString(dest, 0, k, false);
+    }
+
+    private boolean isComplete() {
+        if (byteTable != null) {
+            return (state & BYTE_COMPLETE) != 0;
+        }
+        return (state & HUFFMAN_COMPLETE_SHIFT) == HUFFMAN_COMPLETE_SHIFT;
+    }
+
     /**
      * <strong>This should never be called from anything but this class itself!</strong>
      */
     @Override
     public boolean process(byte input) {
+        if (byteTable != null) {
+            return processByte(input);
+        }
         return processNibble(input >> 4) && processNibble(input);
     }
 
+    private boolean processByte(byte input) {
+        state = byteTable[state >>> 8 & 0xFF00 | input & 0xFF];
+        if ((state & BYTE_FAIL) != 0) {
+            return false;
+        }
+        int symbols = state >>> BYTE_SYMBOLS_SHIFT & 0x3;
+        if (symbols != 0) {
+            dest[k++] = (byte) state;
+            if (symbols == 2) {
+                dest[k++] = (byte) (state >>> 8);
+            }
+        }
+        return true;
+    }
+
     private boolean processNibble(int input) {
         // The high nibble of the flags byte of each row is always zero
         // (low nibble after shifting row by 12), since there are only 3 flag bits
@@ -4734,4 +4815,57 @@ final class HpackHuffmanDecoder implements ByteProcessor {
         }
         return true;
     }
+
+    /**
+     * Holds the byte table so it is only built, and its 256 KiB only allocated, if it is used.
+     */
+    private static final class ByteTableHolder {
+        /**
+         * A table of ints indexed by {@code node << 8 | input} that decodes a whole byte per lookup. It is derived
+         * from {@link #HUFFS} by running both nibbles of each byte through every node, and packed as:
+         *
+         * fail<<27 + complete<<26 + symbols<<24 + node<<16 + second symbol<<8 + first symbol
+         *
+         * As the shortest code is 5 bits long at most two symbols are completed per byte.
+         */
+        static final int[] BYTE_TABLE = createByteTable();
+
+        private static int[] createByteTable() {
+            int nodes = HUFFS.length >>> 4;
+            assert nodes == 256 : nodes;
+            int[] table = new int[nodes << 8];
+            for (int node = 0; node < nodes; node++) {
+                for (int input = 0; input < 256; input++) {
+                    int first = HUFFS[node << 4 | input >>> 4];
+                    if ((first & HUFFMAN_FAIL_SHIFT) != 0) {
+                        table[node << 8 | input] = BYTE_FAIL;
+                        continue;
+                    }
+                    int second = HUFFS[(first >>> 16) << 4 | input & 0x0F];
+                    if ((second & HUFFMAN_FAIL_SHIFT) != 0) {
+                        table[node << 8 | input] = BYTE_FAIL;
+                        continue;
+                    }
+                    int entry = (second >>> 16) << 16;
+                    int symbols = 0;
+                    if ((first & HUFFMAN_EMIT_SYMBOL_SHIFT) != 0) {
+                        entry |= first & 0xFF;
+                        symbols++;
+                    }
+                    if ((second & HUFFMAN_EMIT_SYMBOL_SHIFT) != 0) {
+                        entry |= (second & 0xFF) << (symbols << 3);
+                        symbols++;
+                    }
+                    if ((second & HUFFMAN_COMPLETE_SHIFT) != 0) {
+                        entry |= BYTE_COMPLETE;
+                    }
+                    table[node << 8 | input] = entry | symbols << BYTE_SYMBOLS_SHIFT;
+                }
+            }
+            return table;
+        }
+
+        private ByteTableHolder() {
+        }
+    }
 }
@@ -31,13 +31,11 @@
  */
 package io.netty.handler.codec.http2;
 
-import io.netty.handler.codec.UnsupportedValueConverter;
 import io.netty.util.AsciiString;
 
 import java.util.Arrays;
 import java.util.List;
 
-import static io.netty.handler.codec.http2.HpackUtil.equalsConstantTime;
 import static io.netty.handler.codec.http2.HpackUtil.equalsVariableTime;
 
 final class HpackStaticTable {
@@ -116,13 +114,20 @@ final class HpackStaticTable {
         return new HpackHeaderField(AsciiString.cached(name), AsciiString.cached(value));
     }
 
-    private static final CharSequenceMap<Integer> STATIC_INDEX_BY_NAME = createMap();
-
     /**
      * The number of header fields in the static table.
      */
     static final int length = STATIC_TABLE.size();
 
+    // The header names of the static table are stored in an open table that has a single name per bucket. The
+    // multiplier used to spread the hash is searched for when the class is initialized, so a lookup is one hash
+    // computation and at most one name comparison, without chaining or boxing.
+    private static final int NAME_TABLE_BITS = 9;
+    private static final int NAME_TABLE_SHIFT = 32 - NAME_TABLE_BITS;
+    private static final int NAME_TABLE_MAX_SEARCH = 1 << 16;
+    private static final NameIndex[] NAME_TABLE = new NameIndex[1 << NAME_TABLE_BITS];
+    private static final int NAME_MULTIPLIER = createNameTable();
+
     /**
      * Return the header field at the given index value.
      */
@@ -135,11 +140,8 @@ final class HpackStaticTable {
      * -1 if the header field name is not in the static table.
      */
     static int getIndex(CharSequence name) {
-        Integer index = STATIC_INDEX_BY_NAME.get(name);
-        if (index == null) {
-            return -1;
-        }
-        return index;
+        NameIndex nameIndex = getNameIndex(name);
+        return nameIndex == null ? -1 : nameIndex.index;
     }
 
     /**
@@ -147,37 +149,91 @@ final class HpackStaticTable {
      * header field is not in the static table.
      */
     static int getIndexInsensitive(CharSequence name, CharSequence value) {
-        int index = getIndex(name);
-        if (index == -1) {
+        NameIndex nameIndex = getNameIndex(name);
+        if (nameIndex == null) {
             return -1;
         }
 
         // Note this assumes all entries for a given header field are sequential.
-        while (index <= length) {
-            HpackHeaderField entry = getEntry(index);
-            if (equalsVariableTime(name, entry.name) && equalsVariableTime(value, entry.value)) {
+        int index = nameIndex.index;
+        int end = index + nameIndex.count;
+        for (; index < end; index++) {
+            if (equalsVariableTime(value, getEntry(index).value)) {
                 return index;
             }
-            index++;
         }
-
         return -1;
     }
 
-    // create a map CharSequenceMap header name to index value to allow quick lookup
-    private static CharSequenceMap<Integer> createMap() {
-        int length = STATIC_TABLE.size();
-        @SuppressWarnings("unchecked")
-        CharSequenceMap<Integer> ret = new CharSequenceMap<Integer>(true,
-                UnsupportedValueConverter.<Integer>instance(), length);
-        // Iterate through the static table in reverse order to
-        // save the smallest index for a given name in the map.
-        for (int index = length; index > 0; index--) {
-            HpackHeaderField entry = getEntry(index);
-            CharSequence name = entry.name;
-            ret.set(name, index);
+    private static NameIndex getNameIndex(CharSequence name) {
+        NameIndex nameIndex = NAME_TABLE[bucket(hash(name), NAME_MULTIPLIER)];
+        return nameIndex != null && equalsVariableTime(name, nameIndex.name) ? nameIndex : null;
+    }
+
+    private static int hash(CharSequence name) {
+        int h = 0;
+        if (name instanceof AsciiString) {
+            AsciiString asciiName = (AsciiString) name;
+            byte[] array = asciiName.array();
+            for (int i = asciiName.arrayOffset(), end = i + asciiName.length(); i < end; i++) {
+                h = h * 31 + (array[i] & 0xFF);
+            }
+        } else {
+            for (int i = 0; i < name.length(); i++) {
+                h = h * 31 + (name.charAt(i) & 0xFF);
+            }
+        }
+        return h;
+    }
+
+    private static int bucket(int hash, int multiplier) {
+        return (hash * multiplier) >>> NAME_TABLE_SHIFT;
+    }
+
+    // Finds a multiplier which maps every header name of the static table to its own bucket and fills the table.
+    private static int createNameTable() {
+        int[] hashes = new int[length];
+        for (int i = 0; i < length; i++) {
+            hashes[i] = hash(STATIC_TABLE.get(i).name);
+        }
+        int multiplier = 0x9E3779B9;
+        for (int attempt = 0; attempt < NAME_TABLE_MAX_SEARCH; attempt++, multiplier += 2) {
+            if (fillNameTable(hashes, multiplier)) {
+                return multiplier;
+            }
+        }
+        throw new IllegalStateException("no collision free multiplier found for the static table");
+    }
+
+    private static boolean fillNameTable(int[] hashes, int multiplier) {
+        Arrays.fill(NAME_TABLE, null);
+        for (int i = 0; i < length; i++) {
+            CharSequence name = STATIC_TABLE.get(i).name;
+            int bucket = bucket(hashes[i], multiplier);
+            NameIndex nameIndex = NAME_TABLE[bucket];
+            if (nameIndex == null) {
+                NAME_TABLE[bucket] = new NameIndex(name, i + 1);
+            } else if (equalsVariableTime(name, nameIndex.name)) {
+                nameIndex.count++;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The lowest index of a header name in the static table and the number of entries that share the name.
+     */
+    private static final class NameIndex {
+        final CharSequence name;
+        final int index;
+        int count = 1;
+
+        NameIndex(CharSequence name, int index) {
+            this.name = name;
+            this.index = index;
         }
-        return ret;
     }
 
     // singleton
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Forwards {@code DATA} frames that are read by one {@link Http2ConnectionHandler} to a stream of another
+ * {@link Http2ConnectionHandler}, as done by HTTP/2 to HTTP/2 proxies.
+ * <p>
+ * The payload is not copied: the inbound buffer is retained and written as is by the outbound connection. The flow
+ * control windows of both connections are tied together, the forwarded bytes are only returned to the inbound flow
+ * control window once they were written to the outbound connection. A slow outbound peer therefore exerts
+ * backpressure on the inbound peer, and the memory used per stream is bounded by the inbound stream window.
+ * <p>
+ * Both connections may be served by different event loops. A forwarder is used for a single pair of connections:
+ * <pre>
+ * public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream) {
+ *     return forwarder.forward(streamId, outboundStreamId(streamId), data, padding, endOfStream);
+ * }
+ * </pre>
+ */
+@UnstableApi
+public final class Http2DataForwarder {
+    private final ChannelHandlerContext inboundCtx;
+    private final Http2ConnectionHandler inbound;
+    private final ChannelHandlerContext outboundCtx;
+    private final Http2ConnectionHandler outbound;
+
+    // Only accessed from the event loop of the inbound connection.
+    private boolean inboundFlushScheduled;
+    // Only accessed from the event loop of the outbound connection.
+    private boolean outboundFlushScheduled;
+
+    private final Runnable inboundFlushTask = new Runnable() {
+        @Override
+        public void run() {
+            inboundFlushScheduled = false;
+            inbound.flush(inboundCtx);
+        }
+    };
+
+    private final Runnable outboundFlushTask = new Runnable() {
+        @Override
+        public void run() {
+            outboundFlushScheduled = false;
+            // Flush through the handler so the flow controller writes the pending bytes first.
+            outbound.flush(outboundCtx);
+        }
+    };
+
+    /**
+     * Creates a new instance.
+     *
+     * @param inboundCtx the {@link ChannelHandlerContext} of the {@link Http2ConnectionHandler} that reads the
+     * {@code DATA} frames.
+     * @param outboundCtx the {@link ChannelHandlerContext} of the {@link Http2ConnectionHandler} that writes the
+     * {@code DATA} frames.
+     */
+    public Http2DataForwarder(ChannelHandlerContext inboundCtx, ChannelHandlerContext outboundCtx) {
+        this.inboundCtx = checkNotNull(inboundCtx, "inboundCtx");
+        this.outboundCtx = checkNotNull(outboundCtx, "outboundCtx");
+        inbound = connectionHandler(inboundCtx, "inboundCtx");
+        outbound = connectionHandler(outboundCtx, "outboundCtx");
+    }
+
+    private static Http2ConnectionHandler connectionHandler(ChannelHandlerContext ctx, String name) {
+        if (!(ctx.handler() instanceof Http2ConnectionHandler)) {
+            throw new IllegalArgumentException(name + " must belong to a " +
+                    Http2ConnectionHandler.class.getSimpleName() + ": " + ctx.handler());
+        }
+        return (Http2ConnectionHandler) ctx.handler();
+    }
+
+    /**
+     * Forwards a {@code DATA} frame that was read by the inbound connection to the outbound connection. Must be
+     * called from {@link Http2FrameListener#onDataRead(ChannelHandlerContext, int, ByteBuf, int, boolean)} of the
+     * inbound connection, which must return the result of this method.
+     * <p>
+     * The padding is not forwarded. If writing the frame fails the bytes are returned to the inbound flow control
+     * window nevertheless, resetting the streams is up to the caller.
+     *
+     * @param inboundStreamId the id of the stream the frame was read from.
+     * @param outboundStreamId the id of the stream to write the frame to, which must have been opened already.
+     * @param data the payload of the frame, which is retained by this method.
+     * @param padding the number of padding bytes of the frame.
+     * @param endOfStream whether the frame is the last one of the stream.
+     * @return the number of bytes that were processed immediately.
+     */
+    public int forward(final int inboundStreamId, final int outboundStreamId, ByteBuf data, int padding,
+                       final boolean endOfStream) {
+        assert inboundCtx.executor().inEventLoop();
+        final ByteBuf payload = data.retain();
+        EventExecutor executor = outboundCtx.executor();
+        if (executor.inEventLoop()) {
+            write(inboundStreamId, outboundStreamId, payload, endOfStream);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    write(inboundStreamId, outboundStreamId, payload, endOfStream);
+                }
+            });
+        }
+        // The padding is not forwarded and so can be returned right away.
+        return padding;
+    }
+
+    private void write(int inboundStreamId, int outboundStreamId, ByteBuf payload, boolean endOfStream) {
+        int bytes = payload.readableBytes();
+        ChannelPromise promise = outboundCtx.newPromise();
+        if (bytes > 0) {
+            promise.addListener(new ConsumeBytesListener(inboundStreamId, bytes));
+        }
+        outbound.encoder().writeData(outboundCtx, outboundStreamId, payload, 0, endOfStream, promise);
+
+        // Flush once all frames of the current read were written instead of once per frame.
+        if (!outboundFlushScheduled) {
+            outboundFlushScheduled = true;
+            outboundCtx.executor().execute(outboundFlushTask);
+        }
+    }
+
+    private void consumeBytes(int inboundStreamId, int bytes) {
+        assert inboundCtx.executor().inEventLoop();
+        try {
+            // A closed or removed stream already returned its unconsumed bytes to the connection window.
+            Http2Stream stream = inbound.connection().stream(inboundStreamId);
+            if (inbound.decoder().flowController().consumeBytes(stream, bytes) && !inboundFlushScheduled) {
+                inboundFlushScheduled = true;
+                inboundCtx.executor().execute(inboundFlushTask);
+            }
+        } catch (Http2Exception e) {
+            inbound.onError(inboundCtx, true, e);
+        }
+    }
+
+    /**
+     * Returns the forwarded bytes to the inbound flow control window once they were written.
+     */
+    private final class ConsumeBytesListener implements ChannelFutureListener, Runnable {
+        private final int inboundStreamId;
+        private final int bytes;
+
+        ConsumeBytesListener(int inboundStreamId, int bytes) {
+            this.inboundStreamId = inboundStreamId;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            EventExecutor executor = inboundCtx.executor();
+            if (executor.inEventLoop()) {
+                run();
+            } else {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            consumeBytes(inboundStreamId, bytes);
+        }
+    }
+}
@@ -641,7 +641,7 @@ public class Http2FrameCodec extends Http2ConnectionHandler {
 
     private void onHttp2StreamWritabilityChanged(ChannelHandlerContext ctx, DefaultHttp2FrameStream stream,
                                          @SuppressWarnings("unused") boolean writable) {
-        ctx.fireUserEventTriggered(stream.writabilityChanged);
+        ctx.fireUserEventTriggered(stream.writabilityChanged());
     }
 
     void onHttp2StreamStateChanged(ChannelHandlerContext ctx, DefaultHttp2FrameStream stream) {
@@ -678,7 +678,8 @@ public class Http2FrameCodec extends Http2ConnectionHandler {
         volatile Http2Stream stream;
 
         final Http2FrameStreamEvent stateChanged = Http2FrameStreamEvent.stateChanged(this);
-        final Http2FrameStreamEvent writabilityChanged = Http2FrameStreamEvent.writabilityChanged(this);
+        // Created on first use, as most streams never change their writability.
+        private Http2FrameStreamEvent writabilityChanged;
 
         Channel attachment;
 
@@ -689,6 +690,14 @@ public class Http2FrameCodec extends Http2ConnectionHandler {
             return this;
         }
 
+        Http2FrameStreamEvent writabilityChanged() {
+            Http2FrameStreamEvent event = writabilityChanged;
+            if (event == null) {
+                writabilityChanged = event = Http2FrameStreamEvent.writabilityChanged(this);
+            }
+            return event;
+        }
+
         @Override
         public int id() {
             Http2Stream stream = this.stream;
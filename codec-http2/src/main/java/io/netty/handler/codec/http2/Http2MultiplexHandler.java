@@ -235,12 +235,10 @@ public final class Http2MultiplexHandler extends Http2ChannelDuplexHandler {
                         } else {
                             ch = new Http2MultiplexHandlerStreamChannel(stream, inboundStreamHandler);
                         }
-                        ChannelFuture future = ctx.channel().eventLoop().register(ch);
-                        if (future.isDone()) {
-                            registerDone(future);
-                        } else {
-                            future.addListener(CHILD_CHANNEL_REGISTRATION_LISTENER);
-                        }
+                        // We are on the event loop and registering a child channel completes synchronously and can
+                        // only fail if it was registered before, which a new channel is not. So skip the promise
+                        // EventLoop.register(Channel) would allocate for every stream.
+                        ch.unsafe().register(ctx.channel().eventLoop(), ch.unsafe().voidPromise());
                         break;
                     case CLOSED:
                         AbstractHttp2StreamChannel channel = (AbstractHttp2StreamChannel) stream.attachment;
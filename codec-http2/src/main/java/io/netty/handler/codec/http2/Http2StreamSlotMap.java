@@ -0,0 +1,251 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A map of {@link Http2Stream}s by id which makes use of how HTTP/2 allocates stream ids.
+ * <p>
+ * Each endpoint creates streams with increasing odd or even ids, so at any time the streams that exist mostly
+ * belong to a window of recently created ids. Streams are kept in one array per id parity and indexed by the id
+ * modulo the array length, which needs neither hashing nor probing and allocates nothing per stream. The array is
+ * doubled when an id collides with an existing stream while it is at least half full. Other collisions, typically
+ * caused by a few long lived streams far behind the window, are kept in a small overflow map.
+ */
+final class Http2StreamSlotMap implements Iterable<Http2Stream> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 16;
+
+    private final Slots odd = new Slots();
+    private final Slots even = new Slots();
+
+    int size() {
+        return odd.size() + even.size();
+    }
+
+    Http2Stream get(int streamId) {
+        return slots(streamId).get(streamId);
+    }
+
+    /**
+     * Adds the stream and returns the stream which was mapped to the same id before, if any.
+     */
+    Http2Stream put(Http2Stream stream) {
+        return slots(stream.id()).put(stream);
+    }
+
+    Http2Stream remove(int streamId) {
+        return slots(streamId).remove(streamId);
+    }
+
+    /**
+     * Returns an iterator over all streams, which supports {@link Iterator#remove()}. The map must not be modified
+     * by other means while iterating.
+     */
+    @Override
+    public Iterator<Http2Stream> iterator() {
+        return new Iterator<Http2Stream>() {
+            private Iterator<Http2Stream> current = odd.iterator();
+            private boolean evenStarted;
+
+            @Override
+            public boolean hasNext() {
+                if (current.hasNext()) {
+                    return true;
+                }
+                if (!evenStarted) {
+                    evenStarted = true;
+                    current = even.iterator();
+                    return current.hasNext();
+                }
+                return false;
+            }
+
+            @Override
+            public Http2Stream next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+
+            @Override
+            public void remove() {
+                current.remove();
+            }
+        };
+    }
+
+    private Slots slots(int streamId) {
+        return (streamId & 1) != 0 ? odd : even;
+    }
+
+    private static final class Slots {
+        private Http2Stream[] slots = new Http2Stream[INITIAL_CAPACITY];
+        private int slotCount;
+        private IntObjectMap<Http2Stream> overflow;
+
+        int size() {
+            return overflow == null ? slotCount : slotCount + overflow.size();
+        }
+
+        private int index(int streamId) {
+            return (streamId >>> 1) & (slots.length - 1);
+        }
+
+        Http2Stream get(int streamId) {
+            Http2Stream stream = slots[index(streamId)];
+            if (stream != null && stream.id() == streamId) {
+                return stream;
+            }
+            return overflow == null ? null : overflow.get(streamId);
+        }
+
+        Http2Stream put(Http2Stream stream) {
+            int streamId = stream.id();
+            int index = index(streamId);
+            Http2Stream current = slots[index];
+            if (current == null) {
+                slots[index] = stream;
+                slotCount++;
+                return overflow == null ? null : overflow.remove(streamId);
+            }
+            if (current.id() == streamId) {
+                slots[index] = stream;
+                return current;
+            }
+            if (slotCount >= slots.length >>> 1 && slots.length < MAX_CAPACITY) {
+                grow();
+                return put(stream);
+            }
+            if (overflow == null) {
+                overflow = new IntObjectHashMap<Http2Stream>();
+            }
+            return overflow.put(streamId, stream);
+        }
+
+        Http2Stream remove(int streamId) {
+            int index = index(streamId);
+            Http2Stream stream = slots[index];
+            if (stream != null && stream.id() == streamId) {
+                slots[index] = null;
+                slotCount--;
+                return stream;
+            }
+            return overflow == null ? null : overflow.remove(streamId);
+        }
+
+        private void grow() {
+            Http2Stream[] oldSlots = slots;
+            slots = new Http2Stream[oldSlots.length << 1];
+            slotCount = 0;
+            for (Http2Stream stream : oldSlots) {
+                if (stream != null) {
+                    place(stream);
+                }
+            }
+            if (overflow != null) {
+                // Streams which did not fit before may have a free slot now.
+                for (Iterator<Http2Stream> itr = overflow.values().iterator(); itr.hasNext();) {
+                    Http2Stream stream = itr.next();
+                    int index = index(stream.id());
+                    if (slots[index] == null) {
+                        slots[index] = stream;
+                        slotCount++;
+                        itr.remove();
+                    }
+                }
+            }
+        }
+
+        private void place(Http2Stream stream) {
+            int index = index(stream.id());
+            if (slots[index] == null) {
+                slots[index] = stream;
+                slotCount++;
+            } else {
+                if (overflow == null) {
+                    overflow = new IntObjectHashMap<Http2Stream>();
+                }
+                overflow.put(stream.id(), stream);
+            }
+        }
+
+        Iterator<Http2Stream> iterator() {
+            return new Iterator<Http2Stream>() {
+                private int nextIndex = -1;
+                private int lastIndex = -1;
+                private Iterator<Http2Stream> overflowIterator;
+
+                @Override
+                public boolean hasNext() {
+                    if (overflowIterator != null) {
+                        return overflowIterator.hasNext();
+                    }
+                    if (nextIndex < 0) {
+                        nextIndex = findNext(lastIndex + 1);
+                    }
+                    if (nextIndex < slots.length) {
+                        return true;
+                    }
+                    if (overflow == null) {
+                        return false;
+                    }
+                    overflowIterator = overflow.values().iterator();
+                    return overflowIterator.hasNext();
+                }
+
+                @Override
+                public Http2Stream next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    if (overflowIterator != null) {
+                        return overflowIterator.next();
+                    }
+                    lastIndex = nextIndex;
+                    nextIndex = -1;
+                    return slots[lastIndex];
+                }
+
+                @Override
+                public void remove() {
+                    if (overflowIterator != null) {
+                        overflowIterator.remove();
+                        return;
+                    }
+                    if (lastIndex < 0 || slots[lastIndex] == null) {
+                        throw new IllegalStateException();
+                    }
+                    slots[lastIndex] = null;
+                    slotCount--;
+                }
+
+                private int findNext(int index) {
+                    while (index < slots.length && slots[index] == null) {
+                        index++;
+                    }
+                    return index;
+                }
+            };
+        }
+    }
+}
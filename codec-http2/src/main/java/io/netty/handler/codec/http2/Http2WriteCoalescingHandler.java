@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.PromiseNotifier;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * Serializes all {@link ByteBuf}s that are written between two flushes into a single buffer.
+ * <p>
+ * {@link DefaultHttp2FrameWriter} writes each frame header, and often each frame payload, as a buffer of its own.
+ * For traffic that consists of many small messages this results in many tiny writes, each of them taking up an entry
+ * of the {@link io.netty.channel.ChannelOutboundBuffer} and an {@code iovec} when writing to the socket. This handler
+ * copies buffers of up to {@code copyThreshold} bytes into one pooled buffer and only appends larger buffers, usually
+ * big {@code DATA} payloads, by reference through a {@link CompositeByteBuf}. The coalesced buffer is written when
+ * the channel is flushed or once it holds {@code maxBatchSize} bytes, so the channel's writability still reflects the
+ * pending data.
+ * <p>
+ * Place this handler between the {@link Http2ConnectionHandler} and the transport, or the {@code SslHandler} if
+ * TLS is used:
+ * <pre>
+ * {@link ChannelPipeline} p = ...;
+ * p.addLast(new Http2WriteCoalescingHandler());
+ * p.addLast(http2ConnectionHandler);
+ * </pre>
+ * Messages which are not a {@link ByteBuf} are passed on in order, after the data written before them.
+ */
+@UnstableApi
+public class Http2WriteCoalescingHandler extends ChannelOutboundHandlerAdapter {
+    public static final int DEFAULT_COPY_THRESHOLD = 1024;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final int copyThreshold;
+    private final int maxBatchSize;
+    private final List<ChannelPromise> promises = new ArrayList<ChannelPromise>();
+    // The buffer small writes are currently copied into.
+    private ByteBuf buffer;
+    // Only used once a buffer was appended by reference, holds everything written before it and that buffer.
+    private CompositeByteBuf composite;
+    private int batchSize;
+
+    /**
+     * Creates a new instance with {@link #DEFAULT_COPY_THRESHOLD} and {@link #DEFAULT_MAX_BATCH_SIZE}.
+     */
+    public Http2WriteCoalescingHandler() {
+        this(DEFAULT_COPY_THRESHOLD, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param copyThreshold buffers with up to this many readable bytes are copied, larger ones are appended by
+     *                      reference.
+     * @param maxBatchSize the number of bytes after which the coalesced buffer is written even without a flush.
+     */
+    public Http2WriteCoalescingHandler(int copyThreshold, int maxBatchSize) {
+        this.copyThreshold = checkPositiveOrZero(copyThreshold, "copyThreshold");
+        this.maxBatchSize = checkPositive(maxBatchSize, "maxBatchSize");
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!(msg instanceof ByteBuf)) {
+            writeBatch(ctx);
+            ctx.write(msg, promise);
+            return;
+        }
+        ByteBuf buf = (ByteBuf) msg;
+        int readableBytes = buf.readableBytes();
+        try {
+            if (readableBytes <= copyThreshold) {
+                if (buffer == null) {
+                    buffer = ctx.alloc().ioBuffer(Math.max(INITIAL_BUFFER_SIZE, readableBytes));
+                }
+                try {
+                    buffer.writeBytes(buf, buf.readerIndex(), readableBytes);
+                } finally {
+                    buf.release();
+                }
+            } else {
+                // addComponent(...) releases the buffer if it fails.
+                if (composite == null) {
+                    composite = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+                }
+                if (buffer != null) {
+                    composite.addComponent(true, buffer);
+                    buffer = null;
+                }
+                composite.addComponent(true, buf);
+            }
+        } catch (Throwable cause) {
+            promise.setFailure(cause);
+            return;
+        }
+        if (!promise.isVoid()) {
+            promises.add(promise);
+        }
+        batchSize += readableBytes;
+        if (batchSize >= maxBatchSize) {
+            writeBatch(ctx);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        writeBatch(ctx);
+        ctx.flush();
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        writeBatch(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        writeBatch(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        writeBatch(ctx);
+    }
+
+    private void writeBatch(ChannelHandlerContext ctx) {
+        ByteBuf batch;
+        if (composite != null) {
+            if (buffer != null) {
+                composite.addComponent(true, buffer);
+            }
+            batch = composite;
+        } else if (buffer != null) {
+            batch = buffer;
+        } else {
+            return;
+        }
+        buffer = null;
+        composite = null;
+        batchSize = 0;
+
+        ChannelPromise batchPromise;
+        if (promises.isEmpty()) {
+            batchPromise = ctx.voidPromise();
+        } else if (promises.size() == 1) {
+            batchPromise = promises.get(0);
+        } else {
+            batchPromise = ctx.newPromise();
+            batchPromise.addListener(new PromiseNotifier<Void, ChannelFuture>(
+                    promises.toArray(new ChannelPromise[0])));
+        }
+        promises.clear();
+        ctx.write(batch, batchPromise);
+    }
+}
@@ -46,6 +46,8 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
     private static final byte PSEUDO_HEADER_TOKEN = (byte) ':';
     private final AsciiString[] pseudoHeaders;
     private final AsciiString[] otherHeaders;
+    private final byte[] hpackFragment;
+    private final long hpackHeaderListSize;
 
     /**
      * Used to create read only object designed to represent trailers.
@@ -112,6 +114,14 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
                                         otherHeaders);
     }
 
+    /**
+     * Wraps the header fields decoded by {@link HpackDecoder}, which has already validated them as requested, without
+     * copying the arrays.
+     */
+    static ReadOnlyHttp2Headers decoded(AsciiString[] pseudoHeaders, AsciiString[] otherHeaders) {
+        return new ReadOnlyHttp2Headers(false, pseudoHeaders, otherHeaders);
+    }
+
     private ReadOnlyHttp2Headers(boolean validateHeaders, AsciiString[] pseudoHeaders, AsciiString... otherHeaders) {
         assert (pseudoHeaders.length & 1) == 0; // pseudoHeaders are only set internally so assert should be enough.
         if ((otherHeaders.length & 1) != 0) {
@@ -122,6 +132,51 @@ public final class ReadOnlyHttp2Headers implements Http2Headers {
         }
         this.pseudoHeaders = pseudoHeaders;
         this.otherHeaders = otherHeaders;
+        hpackFragment = null;
+        hpackHeaderListSize = 0;
+    }
+
+    private ReadOnlyHttp2Headers(ReadOnlyHttp2Headers headers) {
+        pseudoHeaders = headers.pseudoHeaders;
+        otherHeaders = headers.otherHeaders;
+        hpackFragment = HpackEncoder.encodeStateless(headers);
+        long headerListSize = 0;
+        for (int i = 0; i < pseudoHeaders.length; i += 2) {
+            headerListSize += HpackHeaderField.sizeOf(pseudoHeaders[i], pseudoHeaders[i + 1]);
+        }
+        for (int i = 0; i < otherHeaders.length; i += 2) {
+            headerListSize += HpackHeaderField.sizeOf(otherHeaders[i], otherHeaders[i + 1]);
+        }
+        hpackHeaderListSize = headerListSize;
+    }
+
+    /**
+     * Returns a copy of these headers which carries its own HPACK encoded representation. The representation is
+     * computed once and only uses the static table and literals without indexing, so it is valid for every
+     * connection and is written as is instead of being encoded each time these headers are sent.
+     * <p>
+     * This trades the compression a connection's dynamic table would provide for the CPU time spent on encoding,
+     * which pays off for large fixed header sets that are sent on many connections. The
+     * {@link Http2HeadersEncoder.SensitivityDetector} is not consulted for pre-encoded headers, so they should not
+     * contain sensitive values.
+     */
+    public ReadOnlyHttp2Headers preEncoded() {
+        return isPreEncoded() ? this : new ReadOnlyHttp2Headers(this);
+    }
+
+    /**
+     * Returns {@code true} if these headers were created by {@link #preEncoded()}.
+     */
+    public boolean isPreEncoded() {
+        return hpackFragment != null;
+    }
+
+    byte[] hpackFragment() {
+        return hpackFragment;
+    }
+
+    long hpackHeaderListSize() {
+        return hpackHeaderListSize;
     }
 
     private static IllegalArgumentException newInvalidArraySizeException() {
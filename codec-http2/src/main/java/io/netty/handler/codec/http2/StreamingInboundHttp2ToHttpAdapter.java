@@ -0,0 +1,279 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpMessage;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.buffer.Unpooled.EMPTY_BUFFER;
+import static io.netty.handler.codec.http2.Http2Error.PROTOCOL_ERROR;
+import static io.netty.handler.codec.http2.Http2Exception.connectionError;
+import static io.netty.handler.codec.http2.Http2Exception.streamError;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * A streaming variant of {@link InboundHttp2ToHttpAdapter}. Instead of aggregating a whole message into a
+ * {@link FullHttpMessage} it fires an {@link HttpRequest} or {@link HttpResponse} as soon as the {@code HEADERS} of
+ * a stream are read, followed by an {@link HttpContent} for every {@code DATA} frame and a {@link LastHttpContent}
+ * that carries the trailers, if any. A message that has no body is fired as a {@link FullHttpMessage}.
+ * <p>
+ * As the messages of all streams of the connection are fired through the same pipeline, the content objects are
+ * instances of {@link StreamHttpContent} and {@link StreamLastHttpContent} which provide the id of their stream. The
+ * id of the stream of a message is stored in the {@link HttpConversionUtil.ExtensionHeaderNames#STREAM_ID} header.
+ * <p>
+ * The {@code DATA} frames are not buffered, so arbitrarily large bodies can flow through without aggregation. Like
+ * {@link InboundHttp2ToHttpAdapter} the bytes are returned to the flow control window as soon as they were fired.
+ */
+@UnstableApi
+public class StreamingInboundHttp2ToHttpAdapter extends Http2EventAdapter {
+    private final Http2Connection.PropertyKey messageKey;
+    protected final Http2Connection connection;
+    protected final boolean validateHttpHeaders;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param connection the {@link Http2Connection} the frames are read from.
+     * @param validateHttpHeaders {@code true} to validate the HTTP/1.x headers.
+     */
+    public StreamingInboundHttp2ToHttpAdapter(Http2Connection connection, boolean validateHttpHeaders) {
+        this.connection = checkNotNull(connection, "connection");
+        this.validateHttpHeaders = validateHttpHeaders;
+        messageKey = connection.newKey();
+    }
+
+    @Override
+    public void onStreamRemoved(Http2Stream stream) {
+        stream.removeProperty(messageKey);
+    }
+
+    @Override
+    public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding, boolean endOfStream)
+            throws Http2Exception {
+        Http2Stream stream = connection.stream(streamId);
+        if (stream.getProperty(messageKey) == null) {
+            throw connectionError(PROTOCOL_ERROR, "Data Frame received for unknown stream id %d", streamId);
+        }
+
+        final int dataReadableBytes = data.readableBytes();
+        if (endOfStream) {
+            stream.removeProperty(messageKey);
+            ctx.fireChannelRead(new StreamLastHttpContent(streamId, data.retain(), validateHttpHeaders));
+        } else if (dataReadableBytes > 0) {
+            ctx.fireChannelRead(new StreamHttpContent(streamId, data.retain()));
+        }
+
+        // All bytes have been processed.
+        return dataReadableBytes + padding;
+    }
+
+    @Override
+    public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int padding,
+                              boolean endOfStream) throws Http2Exception {
+        HttpMessage msg = processHeaders(ctx, streamId, headers, endOfStream);
+        if (msg != null) {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Override
+    public void onHeadersRead(ChannelHandlerContext ctx, int streamId, Http2Headers headers, int streamDependency,
+                              short weight, boolean exclusive, int padding, boolean endOfStream)
+            throws Http2Exception {
+        HttpMessage msg = processHeaders(ctx, streamId, headers, endOfStream);
+        if (msg != null) {
+            // Add headers for dependency and weight.
+            // See https://github.com/netty/netty/issues/5866
+            if (streamDependency != Http2CodecUtil.CONNECTION_STREAM_ID) {
+                msg.headers().setInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_DEPENDENCY_ID.text(),
+                        streamDependency);
+            }
+            msg.headers().setShort(HttpConversionUtil.ExtensionHeaderNames.STREAM_WEIGHT.text(), weight);
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    /**
+     * Translates the {@code headers} into a new message, or fires them as trailers if the message of the stream
+     * was started already.
+     *
+     * @return the message that must be fired or {@code null} if the trailers were fired.
+     */
+    private HttpMessage processHeaders(ChannelHandlerContext ctx, int streamId, Http2Headers headers,
+                                       boolean endOfStream) throws Http2Exception {
+        Http2Stream stream = connection.stream(streamId);
+        if (stream.getProperty(messageKey) != null) {
+            if (!endOfStream) {
+                throw streamError(streamId, PROTOCOL_ERROR,
+                        "Trailers received without end of stream for stream id %d", streamId);
+            }
+            LastHttpContent trailers = new StreamLastHttpContent(streamId, EMPTY_BUFFER, validateHttpHeaders);
+            HttpConversionUtil.addHttp2ToHttpHeaders(streamId, headers, trailers.trailingHeaders(),
+                    HttpVersion.HTTP_1_1, true, connection.isServer());
+            stream.removeProperty(messageKey);
+            ctx.fireChannelRead(trailers);
+            return null;
+        }
+
+        if (endOfStream || isInformational(headers)) {
+            // There is no body, and informational responses are followed by another response on the same stream.
+            FullHttpMessage msg = newFullMessage(streamId, headers, ctx);
+            HttpUtil.setContentLength(msg, 0);
+            return msg;
+        }
+
+        HttpMessage msg = connection.isServer() ?
+                HttpConversionUtil.toHttpRequest(streamId, headers, validateHttpHeaders) :
+                HttpConversionUtil.toHttpResponse(streamId, headers, validateHttpHeaders);
+        if (!HttpUtil.isContentLengthSet(msg)) {
+            msg.headers().add(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        }
+        stream.setProperty(messageKey, Boolean.TRUE);
+        return msg;
+    }
+
+    private boolean isInformational(Http2Headers headers) throws Http2Exception {
+        return !connection.isServer() && headers.status() != null &&
+                HttpConversionUtil.parseStatus(headers.status()).codeClass() == HttpStatusClass.INFORMATIONAL;
+    }
+
+    private FullHttpMessage newFullMessage(int streamId, Http2Headers headers, ChannelHandlerContext ctx)
+            throws Http2Exception {
+        return connection.isServer() ?
+                HttpConversionUtil.toFullHttpRequest(streamId, headers, ctx.alloc(), validateHttpHeaders) :
+                HttpConversionUtil.toFullHttpResponse(streamId, headers, ctx.alloc(), validateHttpHeaders);
+    }
+
+    @Override
+    public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode) throws Http2Exception {
+        Http2Stream stream = connection.stream(streamId);
+        if (stream != null) {
+            stream.removeProperty(messageKey);
+        }
+        ctx.fireExceptionCaught(Http2Exception.streamError(streamId, Http2Error.valueOf(errorCode),
+                "HTTP/2 to HTTP layer caught stream reset"));
+    }
+
+    @Override
+    public void onPushPromiseRead(ChannelHandlerContext ctx, int streamId, int promisedStreamId,
+                                  Http2Headers headers, int padding) throws Http2Exception {
+        // The promised request is fired as a full request, the response follows on the promised stream.
+        FullHttpRequest msg = HttpConversionUtil.toFullHttpRequest(promisedStreamId, headers, ctx.alloc(),
+                validateHttpHeaders);
+        HttpUtil.setContentLength(msg, 0);
+        msg.headers().setInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_PROMISE_ID.text(), streamId);
+        msg.headers().setShort(HttpConversionUtil.ExtensionHeaderNames.STREAM_WEIGHT.text(),
+                Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT);
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * An {@link HttpContent} that was read from the stream with the id {@link #streamId()}.
+     */
+    public static final class StreamHttpContent extends DefaultHttpContent {
+        private final int streamId;
+
+        StreamHttpContent(int streamId, ByteBuf content) {
+            super(content);
+            this.streamId = streamId;
+        }
+
+        /**
+         * Returns the id of the stream this content was read from.
+         */
+        public int streamId() {
+            return streamId;
+        }
+
+        @Override
+        public StreamHttpContent copy() {
+            return replace(content().copy());
+        }
+
+        @Override
+        public StreamHttpContent duplicate() {
+            return replace(content().duplicate());
+        }
+
+        @Override
+        public StreamHttpContent retainedDuplicate() {
+            return replace(content().retainedDuplicate());
+        }
+
+        @Override
+        public StreamHttpContent replace(ByteBuf content) {
+            return new StreamHttpContent(streamId, content);
+        }
+    }
+
+    /**
+     * A {@link LastHttpContent} that was read from the stream with the id {@link #streamId()}.
+     */
+    public static final class StreamLastHttpContent extends DefaultLastHttpContent {
+        private final int streamId;
+        private final boolean validateHeaders;
+
+        StreamLastHttpContent(int streamId, ByteBuf content, boolean validateHeaders) {
+            super(content, validateHeaders);
+            this.streamId = streamId;
+            this.validateHeaders = validateHeaders;
+        }
+
+        /**
+         * Returns the id of the stream this content was read from.
+         */
+        public int streamId() {
+            return streamId;
+        }
+
+        @Override
+        public StreamLastHttpContent copy() {
+            return replace(content().copy());
+        }
+
+        @Override
+        public StreamLastHttpContent duplicate() {
+            return replace(content().duplicate());
+        }
+
+        @Override
+        public StreamLastHttpContent retainedDuplicate() {
+            return replace(content().retainedDuplicate());
+        }
+
+        @Override
+        public StreamLastHttpContent replace(ByteBuf content) {
+            StreamLastHttpContent dup = new StreamLastHttpContent(streamId, content, validateHeaders);
+            dup.trailingHeaders().set(trailingHeaders());
+            return dup;
+        }
+    }
+}
@@ -58,6 +58,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.isNull;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -740,6 +741,16 @@ public class DefaultHttp2ConnectionDecoderTest {
         verify(listener).onPingAckRead(eq(ctx), eq(0L));
     }
 
+    @Test
+    public void pingAckForWindowAutoTuningShouldSendSettings() throws Exception {
+        DefaultHttp2LocalFlowController tunedFlow = mock(DefaultHttp2LocalFlowController.class);
+        when(local.flowController()).thenReturn(tunedFlow);
+        when(tunedFlow.bdpPingAckRead(42L)).thenReturn(1 << 20);
+        decode().onPingAckRead(ctx, 42L);
+        verify(encoder).writeSettings(eq(ctx), eq(new Http2Settings().initialWindowSize(1 << 20)), eq(promise));
+        verify(listener, never()).onPingAckRead(eq(ctx), any(long.class));
+    }
+
     @Test
     public void pingReadShouldReplyWithAck() throws Exception {
         decode().onPingRead(ctx, 0L);
@@ -28,6 +28,8 @@ import static io.netty.handler.codec.http2.Http2TestUtil.newTestEncoder;
 import static io.netty.handler.codec.http2.Http2TestUtil.randomBytes;
 import static io.netty.util.CharsetUtil.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -113,6 +115,80 @@ public class DefaultHttp2HeadersDecoderTest {
         }
     }
 
+    @Test
+    public void decodeReadOnlyShouldSucceed() throws Exception {
+        decoder = new DefaultHttp2HeadersDecoder(true, MAX_HEADER_LIST_SIZE, true);
+        byte[][] entries = new byte[2 * 23][];
+        int i = 0;
+        entries[i++] = b(":method");
+        entries[i++] = b("GET");
+        entries[i++] = b(":path");
+        entries[i++] = b("/index.html");
+        entries[i++] = b(":authority");
+        entries[i++] = b("netty.io");
+        for (int j = 0; i < entries.length; j++) {
+            entries[i++] = b("key" + j);
+            entries[i++] = b("value" + j);
+        }
+        ByteBuf buf = encode(entries);
+        try {
+            Http2Headers headers = decoder.decodeHeaders(0, buf);
+            assertTrue(headers instanceof ReadOnlyHttp2Headers);
+            assertEquals(23, headers.size());
+            assertEquals("GET", headers.method().toString());
+            assertEquals("/index.html", headers.path().toString());
+            assertEquals("netty.io", headers.authority().toString());
+            assertNull(headers.status());
+            assertEquals("value0", headers.get("key0").toString());
+            assertEquals("value19", headers.get("KEY19").toString());
+            assertNull(headers.get("key20"));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void decodeReadOnlyInvalidNameShouldFail() throws Exception {
+        decoder = new DefaultHttp2HeadersDecoder(true, MAX_HEADER_LIST_SIZE, true);
+        ByteBuf buf = encode(b(":method"), b("GET"), b("Akey"), b("avalue"));
+        try {
+            decoder.decodeHeaders(1, buf);
+            fail();
+        } catch (Http2Exception e) {
+            assertEquals(Http2Error.PROTOCOL_ERROR, e.error());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void decodeReadOnlyMixedPseudoHeadersShouldFail() throws Exception {
+        decoder = new DefaultHttp2HeadersDecoder(true, MAX_HEADER_LIST_SIZE, true);
+        ByteBuf buf = encode(b(":method"), b("GET"), b(":status"), b("200"));
+        try {
+            decoder.decodeHeaders(1, buf);
+            fail();
+        } catch (Http2Exception.StreamException e) {
+            assertEquals(1, e.streamId());
+            assertEquals(Http2Error.PROTOCOL_ERROR, e.error());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void decodeReadOnlyWithoutValidationShouldKeepInvalidNames() throws Exception {
+        decoder = new DefaultHttp2HeadersDecoder(false, MAX_HEADER_LIST_SIZE, true);
+        ByteBuf buf = encode(b("Akey"), b("avalue"));
+        try {
+            Http2Headers headers = decoder.decodeHeaders(1, buf);
+            assertEquals(1, headers.size());
+            assertEquals("avalue", headers.get("akey").toString());
+        } finally {
+            buf.release();
+        }
+    }
+
     private static byte[] b(String string) {
         return string.getBytes(UTF_8);
     }
@@ -20,10 +20,13 @@ import static io.netty.handler.codec.http2.Http2CodecUtil.CONNECTION_STREAM_ID;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -41,6 +44,7 @@ import io.netty.util.concurrent.EventExecutor;
 import junit.framework.AssertionFailedError;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.invocation.InvocationOnMock;
@@ -347,6 +351,88 @@ public class DefaultHttp2LocalFlowControllerTest {
         assertFalse(controller.consumeBytes(connection.stream(STREAM_ID), -1));
     }
 
+    @Test
+    public void autoTuningShouldBeDisabledByDefault() throws Http2Exception {
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        verify(frameWriter, never()).writePing(any(ChannelHandlerContext.class), anyBoolean(), anyLong(),
+                any(ChannelPromise.class));
+        assertEquals(-1, controller.bdpPingAckRead(0));
+    }
+
+    @Test
+    public void autoTuningShouldGrowWindowsIfMostOfTheWindowIsUsed() throws Http2Exception {
+        controller.maxAutoTunedWindowSize(DEFAULT_WINDOW_SIZE * 4);
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        long data = verifyBdpPingSent();
+
+        // Only one PING is in flight at a time.
+        receiveFlowControlledFrame(STREAM_ID, DEFAULT_WINDOW_SIZE - 10, 0, false);
+        verify(frameWriter).writePing(any(ChannelHandlerContext.class), anyBoolean(), anyLong(),
+                any(ChannelPromise.class));
+
+        int newWindowSize = 2 * (DEFAULT_WINDOW_SIZE - 10);
+        assertEquals(newWindowSize, controller.bdpPingAckRead(data));
+        verifyWindowUpdateSent(CONNECTION_STREAM_ID, newWindowSize - DEFAULT_WINDOW_SIZE);
+        assertEquals(newWindowSize, controller.initialWindowSize(connection.connectionStream()));
+
+        // The initial window size of the streams only changes once the SETTINGS are acknowledged.
+        assertEquals(DEFAULT_WINDOW_SIZE, controller.initialWindowSize());
+    }
+
+    @Test
+    public void autoTuningShouldNotGrowWindowsIfLittleOfTheWindowIsUsed() throws Http2Exception {
+        controller.maxAutoTunedWindowSize(DEFAULT_WINDOW_SIZE * 4);
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        long data = verifyBdpPingSent();
+        receiveFlowControlledFrame(STREAM_ID, DEFAULT_WINDOW_SIZE / 2, 0, false);
+        assertEquals(0, controller.bdpPingAckRead(data));
+        verifyWindowUpdateNotSent();
+
+        // PINGs not sent by the auto-tuning are passed on.
+        assertEquals(-1, controller.bdpPingAckRead(data));
+        assertEquals(-1, controller.bdpPingAckRead(data + 1));
+    }
+
+    @Test
+    public void autoTuningShouldPassOnOtherPingAcks() throws Http2Exception {
+        controller.maxAutoTunedWindowSize(DEFAULT_WINDOW_SIZE * 4);
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        long data = verifyBdpPingSent();
+
+        // The acknowledgement of a PING sent by the application does not end the sample.
+        assertEquals(-1, controller.bdpPingAckRead(data + 1));
+        assertEquals(0, controller.bdpPingAckRead(data));
+
+        // The next PING carries a new payload.
+        reset(frameWriter);
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        long nextData = verifyBdpPingSent();
+        assertNotEquals(data, nextData);
+        assertEquals(-1, controller.bdpPingAckRead(data));
+        assertEquals(0, controller.bdpPingAckRead(nextData));
+    }
+
+    @Test
+    public void autoTuningShouldNotExceedMaxWindowSize() throws Http2Exception {
+        int maxWindowSize = DEFAULT_WINDOW_SIZE + 1000;
+        controller.maxAutoTunedWindowSize(maxWindowSize);
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        long data = verifyBdpPingSent();
+        receiveFlowControlledFrame(STREAM_ID, DEFAULT_WINDOW_SIZE - 10, 0, false);
+        assertEquals(maxWindowSize, controller.bdpPingAckRead(data));
+
+        // Once the maximum is reached no more PINGs are sent.
+        consumeBytes(STREAM_ID, DEFAULT_WINDOW_SIZE);
+        receiveFlowControlledFrame(STREAM_ID, 10, 0, false);
+        verify(frameWriter).writePing(any(ChannelHandlerContext.class), anyBoolean(), anyLong(),
+                any(ChannelPromise.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeMaxAutoTunedWindowSizeShouldFail() {
+        controller.maxAutoTunedWindowSize(-1);
+    }
+
     private void testRatio(float ratio, int newDefaultWindowSize, int newStreamId, boolean setStreamRatio)
             throws Http2Exception {
         int delta = newDefaultWindowSize - DEFAULT_WINDOW_SIZE;
@@ -411,6 +497,12 @@ public class DefaultHttp2LocalFlowControllerTest {
         return controller.consumeBytes(stream(streamId), numBytes);
     }
 
+    private long verifyBdpPingSent() {
+        ArgumentCaptor<Long> data = ArgumentCaptor.forClass(Long.class);
+        verify(frameWriter).writePing(eq(ctx), eq(false), data.capture(), eq(promise));
+        return data.getValue();
+    }
+
     private void verifyWindowUpdateSent(int streamId, int windowSizeIncrement) {
         verify(frameWriter).writeWindowUpdate(eq(ctx), eq(streamId), eq(windowSizeIncrement), eq(promise));
     }
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.handler.codec.http2.Http2TestUtil.TestStreamByteDistributorStreamState;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MIN_ALLOCATION_CHUNK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.same;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Tests for {@link DeficitRoundRobinStreamByteDistributor}.
+ */
+public class DeficitRoundRobinStreamByteDistributorTest {
+    private static final int CHUNK_SIZE = DEFAULT_MIN_ALLOCATION_CHUNK;
+
+    private static final int STREAM_A = 1;
+    private static final int STREAM_B = 3;
+    private static final int STREAM_C = 5;
+    private static final int STREAM_D = 7;
+
+    private Http2Connection connection;
+    private DeficitRoundRobinStreamByteDistributor distributor;
+    private IntObjectMap<TestStreamByteDistributorStreamState> stateMap;
+    private IntObjectMap<Long> written;
+
+    @Mock
+    private StreamByteDistributor.Writer writer;
+
+    @Before
+    public void setup() throws Http2Exception {
+        MockitoAnnotations.initMocks(this);
+
+        stateMap = new IntObjectHashMap<TestStreamByteDistributorStreamState>();
+        written = new IntObjectHashMap<Long>();
+        connection = new DefaultHttp2Connection(false);
+        distributor = new DeficitRoundRobinStreamByteDistributor(connection);
+
+        // Assume we always write all the allocated bytes.
+        resetWriter();
+
+        connection.local().createStream(STREAM_A, false);
+        connection.local().createStream(STREAM_B, false);
+        connection.local().createStream(STREAM_C, false);
+        connection.local().createStream(STREAM_D, false);
+    }
+
+    private Answer<Void> writeAnswer() {
+        return new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock in) throws Throwable {
+                Http2Stream stream = in.getArgument(0);
+                int numBytes = in.getArgument(1);
+                Long total = written.get(stream.id());
+                written.put(stream.id(), Long.valueOf((total == null ? 0 : total) + numBytes));
+                TestStreamByteDistributorStreamState state = stateMap.get(stream.id());
+                state.pendingBytes -= numBytes;
+                state.hasFrame = state.pendingBytes > 0;
+                distributor.updateStreamableBytes(state);
+                return null;
+            }
+        };
+    }
+
+    private void resetWriter() {
+        reset(writer);
+        doAnswer(writeAnswer()).when(writer).write(any(Http2Stream.class), anyInt());
+    }
+
+    @Test
+    public void bytesUnassignedAfterProcessing() throws Http2Exception {
+        initState(STREAM_A, 1, true);
+        initState(STREAM_B, 2, true);
+        initState(STREAM_C, 3, true);
+        initState(STREAM_D, 4, true);
+
+        assertFalse(write(10));
+        verifyWrite(STREAM_A, 1);
+        verifyWrite(STREAM_B, 2);
+        verifyWrite(STREAM_C, 3);
+        verifyWrite(STREAM_D, 4);
+        verifyNoMoreInteractions(writer);
+
+        assertFalse(write(10));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void connectionErrorForWriterException() throws Http2Exception {
+        initState(STREAM_A, 1, true);
+
+        Exception fakeException = new RuntimeException("Fake exception");
+        doThrow(fakeException).when(writer).write(same(stream(STREAM_A)), eq(1));
+
+        try {
+            write(10);
+            fail("Expected an exception");
+        } catch (Http2Exception e) {
+            assertFalse(Http2Exception.isStreamError(e));
+            assertEquals(Http2Error.INTERNAL_ERROR, e.error());
+            assertSame(fakeException, e.getCause());
+        }
+    }
+
+    @Test
+    public void streamsShouldTakeTurns() throws Http2Exception {
+        initState(STREAM_A, 2 * CHUNK_SIZE, true);
+        initState(STREAM_B, 2 * CHUNK_SIZE, true);
+
+        // Every stream gets one quantum per turn.
+        assertTrue(write(2 * CHUNK_SIZE));
+        assertEquals(CHUNK_SIZE, captureWrite(STREAM_A));
+        assertEquals(CHUNK_SIZE, captureWrite(STREAM_B));
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+
+        assertFalse(write(2 * CHUNK_SIZE));
+        assertEquals(CHUNK_SIZE, captureWrite(STREAM_A));
+        assertEquals(CHUNK_SIZE, captureWrite(STREAM_B));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void interruptedTurnShouldBeContinuedFirst() throws Http2Exception {
+        initState(STREAM_A, 2 * CHUNK_SIZE, true);
+        initState(STREAM_B, 2 * CHUNK_SIZE, true);
+
+        assertTrue(write(CHUNK_SIZE / 2));
+        verifyWrite(STREAM_A, CHUNK_SIZE / 2);
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+
+        // Stream A uses the rest of its quantum before it is the turn of stream B.
+        assertTrue(write(CHUNK_SIZE));
+        verifyWrite(STREAM_A, CHUNK_SIZE / 2);
+        verifyWrite(STREAM_B, CHUNK_SIZE / 2);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void bytesShouldBeDistributedByWeight() throws Http2Exception {
+        setPriority(STREAM_A, 0, 16, false);
+        setPriority(STREAM_B, 0, 64, false);
+        initState(STREAM_A, 1000 * CHUNK_SIZE, true);
+        initState(STREAM_B, 1000 * CHUNK_SIZE, true);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(write(CHUNK_SIZE));
+        }
+        assertEquals(100 * CHUNK_SIZE, written(STREAM_A) + written(STREAM_B));
+        assertEquals(20 * CHUNK_SIZE, written(STREAM_A));
+        assertEquals(80 * CHUNK_SIZE, written(STREAM_B));
+    }
+
+    @Test
+    public void emptyFrameAtHeadIsWritten() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 0, true);
+        initState(STREAM_C, 0, true);
+        initState(STREAM_D, 10, true);
+
+        assertTrue(write(10));
+        verifyWrite(STREAM_A, 10);
+        verifyWrite(STREAM_B, 0);
+        verifyWrite(STREAM_C, 0);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void streamWindowExhaustedDoesNotWrite() throws Http2Exception {
+        initState(STREAM_A, 0, true, false);
+        initState(STREAM_B, 0, true);
+        initState(STREAM_C, 0, true);
+        initState(STREAM_D, 0, true, false);
+
+        assertFalse(write(10));
+        verifyWrite(STREAM_B, 0);
+        verifyWrite(STREAM_C, 0);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void closedStreamIsNotWritten() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 10, true);
+        stream(STREAM_A).close();
+
+        assertFalse(write(20));
+        verifyWrite(STREAM_B, 10);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void streamWindowLargerThanIntDoesNotInfiniteLoop() throws Http2Exception {
+        initState(STREAM_A, Integer.MAX_VALUE + 1L, true, true);
+        assertTrue(write(Integer.MAX_VALUE));
+        verifyWrite(STREAM_A, Integer.MAX_VALUE);
+        assertFalse(write(1));
+        verifyWrite(STREAM_A, 1);
+    }
+
+    private Http2Stream stream(int streamId) {
+        return connection.stream(streamId);
+    }
+
+    private void initState(final int streamId, final long streamableBytes, final boolean hasFrame) {
+        initState(streamId, streamableBytes, hasFrame, hasFrame);
+    }
+
+    private void initState(final int streamId, final long pendingBytes, final boolean hasFrame,
+            final boolean isWriteAllowed) {
+        final Http2Stream stream = stream(streamId);
+        TestStreamByteDistributorStreamState state = new TestStreamByteDistributorStreamState(stream, pendingBytes,
+                hasFrame, isWriteAllowed);
+        stateMap.put(streamId, state);
+        distributor.updateStreamableBytes(state);
+    }
+
+    private void setPriority(int streamId, int parent, int weight, boolean exclusive) {
+        distributor.updateDependencyTree(streamId, parent, (short) weight, exclusive);
+    }
+
+    private boolean write(int numBytes) throws Http2Exception {
+        return distributor.distribute(numBytes, writer);
+    }
+
+    private long written(int streamId) {
+        Long total = written.get(streamId);
+        return total == null ? 0 : total;
+    }
+
+    private void verifyWrite(int streamId, int numBytes) {
+        verify(writer).write(same(stream(streamId)), eq(numBytes));
+    }
+
+    private int captureWrite(int streamId) {
+        ArgumentCaptor<Integer> captor = ArgumentCaptor.forClass(Integer.class);
+        verify(writer).write(same(stream(streamId)), captor.capture());
+        return captor.getValue();
+    }
+}
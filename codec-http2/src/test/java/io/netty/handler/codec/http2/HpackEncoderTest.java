@@ -17,12 +17,17 @@ package io.netty.handler.codec.http2;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.util.AsciiString;
+import io.netty.util.CharsetUtil;
 import org.junit.Before;
 import org.junit.Test;
 
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_TABLE_SIZE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
 public class HpackEncoderTest {
@@ -98,4 +103,150 @@ public class HpackEncoderTest {
             buf.release();
         }
     }
+
+    @Test
+    public void testStaticTableLookup() {
+        for (int index = 1; index <= HpackStaticTable.length; index++) {
+            HpackHeaderField entry = HpackStaticTable.getEntry(index);
+            assertEquals(index, HpackStaticTable.getIndexInsensitive(entry.name, entry.value));
+            int nameIndex = HpackStaticTable.getIndex(entry.name);
+            assertTrue(nameIndex <= index);
+            assertEquals(entry.name, HpackStaticTable.getEntry(nameIndex).name);
+            // Also lookup by a String to not only test the AsciiString fast path.
+            assertEquals(index, HpackStaticTable.getIndexInsensitive(entry.name.toString(), entry.value.toString()));
+        }
+        assertEquals(8, HpackStaticTable.getIndex(":status"));
+        assertEquals(-1, HpackStaticTable.getIndex("x-custom"));
+        assertEquals(-1, HpackStaticTable.getIndex("Content-Type"));
+        assertEquals(-1, HpackStaticTable.getIndexInsensitive(":status", "201"));
+        assertEquals(-1, HpackStaticTable.getIndexInsensitive(":authority", "netty.io"));
+    }
+
+    @Test
+    public void testRepeatedHeaderBlockIsCopiedFromCache() throws Http2Exception {
+        Http2Headers headers = new DefaultHttp2Headers()
+                .status("200")
+                .add("content-type", "application/grpc")
+                .add("server", "netty");
+
+        // The first block adds the fields to the dynamic table, the second one refers to them and is cached.
+        ByteBuf first = encode(headers);
+        ByteBuf second = encode(headers);
+        ByteBuf third = encode(new DefaultHttp2Headers()
+                .status("200")
+                .add("content-type", "application/grpc")
+                .add("server", "netty"));
+        try {
+            assertEquals(2, hpackEncoder.length());
+            assertEquals(3, second.readableBytes());
+            assertEquals(second, third);
+            assertEquals(headers, decode(first));
+            assertEquals(headers, decode(second));
+            assertEquals(headers, decode(third));
+        } finally {
+            first.release();
+            second.release();
+            third.release();
+        }
+    }
+
+    @Test
+    public void testCachedHeaderBlockInvalidatedByDynamicTableChange() throws Http2Exception {
+        Http2Headers headers = new DefaultHttp2Headers().status("200").add("server", "netty");
+        Http2Headers other = new DefaultHttp2Headers().status("200").add("x-request-id", "1");
+
+        ByteBuf[] blocks = { encode(headers), encode(headers), encode(other), encode(headers), encode(other) };
+        try {
+            // Adding x-request-id shifted the index of the server field, so the cached block must not be reused.
+            assertEquals(0xbe, blocks[1].getUnsignedByte(1));
+            assertEquals(0xbf, blocks[3].getUnsignedByte(1));
+            assertEquals(headers, decode(blocks[0]));
+            assertEquals(headers, decode(blocks[1]));
+            assertEquals(other, decode(blocks[2]));
+            assertEquals(headers, decode(blocks[3]));
+            assertEquals(other, decode(blocks[4]));
+        } finally {
+            for (ByteBuf block : blocks) {
+                block.release();
+            }
+        }
+    }
+
+    @Test
+    public void testCachedHeaderBlockNotReusedForMutatedValue() throws Http2Exception {
+        // Without a dynamic table the fields are always sent as literals, so only the cache could reuse them.
+        ByteBuf update = Unpooled.buffer();
+        hpackEncoder.setMaxHeaderTableSize(update, 0);
+        hpackDecoder.decode(0, update, mockHeaders, true);
+        update.release();
+
+        byte[] value = "netty".getBytes(CharsetUtil.US_ASCII);
+        Http2Headers headers = new DefaultHttp2Headers().add("server", new AsciiString(value, false));
+        encode(headers).release();
+        encode(headers).release();
+
+        // The caller reuses the same array for the next value.
+        value[4] = 'z';
+        ByteBuf buf = encode(headers);
+        try {
+            assertEquals("nettz", decode(buf).get("server").toString());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testCachedHeaderBlockEnforcesMaxHeaderListSize() throws Http2Exception {
+        Http2Headers headers = new DefaultHttp2Headers().add("x-header", "value");
+        encode(headers).release();
+        encode(headers).release();
+
+        hpackEncoder.setMaxHeaderListSize(40);
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            hpackEncoder.encodeHeaders(0, buf, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+            fail();
+        } catch (Http2Exception expected) {
+            // expected
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testPreEncodedHeaders() throws Http2Exception {
+        ReadOnlyHttp2Headers headers = ReadOnlyHttp2Headers.serverHeaders(true, AsciiString.of("200"),
+                AsciiString.of("content-type"), AsciiString.of("application/grpc"),
+                AsciiString.of("x-custom"), AsciiString.of("some custom value")).preEncoded();
+        assertTrue(headers.isPreEncoded());
+        assertSame(headers, headers.preEncoded());
+
+        // Fill the dynamic table first; the pre-encoded block must neither refer to nor change it.
+        encode(new DefaultHttp2Headers().add("x-custom", "some custom value")).release();
+        ByteBuf first = encode(headers);
+        ByteBuf second = encode(headers);
+        try {
+            assertEquals(1, hpackEncoder.length());
+            assertEquals(first, second);
+            assertEquals(0x88, first.getUnsignedByte(0));
+            // ReadOnlyHttp2Headers does not override equals(...), so compare the other way around.
+            assertEquals(decode(first), headers);
+            assertEquals(decode(second), headers);
+        } finally {
+            first.release();
+            second.release();
+        }
+    }
+
+    private ByteBuf encode(Http2Headers headers) throws Http2Exception {
+        ByteBuf buf = Unpooled.buffer();
+        hpackEncoder.encodeHeaders(0, buf, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+        return buf;
+    }
+
+    private Http2Headers decode(ByteBuf buf) throws Http2Exception {
+        Http2Headers headers = new DefaultHttp2Headers();
+        hpackDecoder.decode(0, buf.duplicate(), headers, true);
+        return headers;
+    }
 }
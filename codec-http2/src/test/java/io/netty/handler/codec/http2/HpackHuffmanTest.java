@@ -55,6 +55,20 @@ public class HpackHuffmanTest {
         roundTrip(buf);
     }
 
+    @Test
+    public void testHuffmanAllSymbolPairs() throws Http2Exception {
+        // Every symbol follows a variety of other symbols, so it starts at different bit offsets of a byte.
+        byte[] buf = new byte[256 * 2 * 8];
+        int i = 0;
+        for (int offset = 0; offset < 8; offset++) {
+            for (int symbol = 0; symbol < 256; symbol++) {
+                buf[i++] = (byte) symbol;
+                buf[i++] = (byte) (symbol * 31 + offset);
+            }
+        }
+        roundTrip(buf);
+    }
+
     @Test(expected = Http2Exception.class)
     public void testDecodeEOS() throws Http2Exception {
         byte[] buf = new byte[4];
@@ -150,10 +164,38 @@ public class HpackHuffmanTest {
         }
     }
 
+    /**
+     * Decodes with the byte table from a heap and a direct buffer and with the nibble table, all of which must
+     * agree on the result.
+     */
     private static byte[] decode(byte[] bytes) throws Http2Exception {
-        ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+        byte[] result = null;
+        Http2Exception failure = null;
+        int failures = 0;
+        for (int i = 0; i < 3; i++) {
+            try {
+                byte[] decoded = decode(bytes, i != 2, i == 1);
+                if (result == null) {
+                    result = decoded;
+                } else {
+                    Assert.assertArrayEquals(result, decoded);
+                }
+            } catch (Http2Exception e) {
+                failure = e;
+                failures++;
+            }
+        }
+        if (failure != null) {
+            Assert.assertEquals(3, failures);
+            throw failure;
+        }
+        return result;
+    }
+
+    private static byte[] decode(byte[] bytes, boolean useByteTable, boolean direct) throws Http2Exception {
+        ByteBuf buffer = direct ? Unpooled.directBuffer(bytes.length).writeBytes(bytes) : Unpooled.wrappedBuffer(bytes);
         try {
-            AsciiString decoded = new HpackHuffmanDecoder().decode(buffer, buffer.readableBytes());
+            AsciiString decoded = new HpackHuffmanDecoder(useByteTable).decode(buffer, buffer.readableBytes());
             Assert.assertFalse(buffer.isReadable());
             return decoded.toByteArray();
         } finally {
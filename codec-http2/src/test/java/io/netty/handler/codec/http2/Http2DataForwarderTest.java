@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.FRAME_HEADER_LENGTH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class Http2DataForwarderTest {
+    private static final int INBOUND_STREAM_ID = 3;
+    private static final int OUTBOUND_STREAM_ID = 5;
+
+    private EmbeddedChannel inboundChannel;
+    private EmbeddedChannel outboundChannel;
+    private Http2ConnectionHandler inbound;
+    private Http2ConnectionHandler outbound;
+    private Http2FrameInboundWriter inboundWriter;
+    private Http2FrameInboundWriter outboundPeerWriter;
+    private Http2DataForwarder forwarder;
+
+    @Before
+    public void setUp() throws Exception {
+        inbound = new Http2ConnectionHandlerBuilder().server(true).frameListener(new Http2FrameAdapter() {
+            @Override
+            public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding,
+                                  boolean endOfStream) {
+                return forwarder.forward(streamId, OUTBOUND_STREAM_ID, data, padding, endOfStream);
+            }
+        }).build();
+        inboundChannel = new EmbeddedChannel(inbound);
+        inboundWriter = new Http2FrameInboundWriter(inboundChannel);
+        inboundChannel.writeInbound(Http2CodecUtil.connectionPrefaceBuf());
+        inboundWriter.writeInboundSettings(new Http2Settings());
+        inboundWriter.writeInboundHeaders(INBOUND_STREAM_ID, new DefaultHttp2Headers(), 0, false);
+
+        outbound = new Http2ConnectionHandlerBuilder().server(false).frameListener(new Http2FrameAdapter()).build();
+        outboundChannel = new EmbeddedChannel(outbound);
+        outboundPeerWriter = new Http2FrameInboundWriter(outboundChannel);
+        // The stream window of the outbound peer is empty, so forwarded data has to wait for a WINDOW_UPDATE.
+        outboundPeerWriter.writeInboundSettings(new Http2Settings().initialWindowSize(0));
+        ChannelHandlerContext outboundCtx = outboundChannel.pipeline().context(outbound);
+        outbound.encoder().writeHeaders(outboundCtx, OUTBOUND_STREAM_ID, new DefaultHttp2Headers(), 0, false,
+                outboundCtx.newPromise());
+        outboundChannel.flush();
+
+        forwarder = new Http2DataForwarder(inboundChannel.pipeline().context(inbound), outboundCtx);
+        releaseOutbound();
+    }
+
+    @After
+    public void tearDown() {
+        inboundChannel.finishAndReleaseAll();
+        outboundChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void bytesAreReturnedOnceWrittenToOutbound() throws Http2Exception {
+        ByteBuf data = Unpooled.buffer().writeZero(40000);
+        inboundWriter.writeInboundData(INBOUND_STREAM_ID, data, 0, false);
+        outboundChannel.runPendingTasks();
+        inboundChannel.runPendingTasks();
+
+        // Nothing could be written yet, so the inbound bytes stay unconsumed.
+        assertEquals(40000, unconsumedBytes());
+        assertEquals(0, outboundBytes());
+        assertEquals(0, inboundBytes());
+
+        outboundPeerWriter.writeInboundWindowUpdate(OUTBOUND_STREAM_ID, 10000);
+        assertEquals(FRAME_HEADER_LENGTH + 10000, outboundBytes());
+        inboundChannel.runPendingTasks();
+        assertEquals(40000, unconsumedBytes());
+
+        outboundPeerWriter.writeInboundWindowUpdate(OUTBOUND_STREAM_ID, 30000);
+        // The maximum frame size is 16384, so two frames are written.
+        assertEquals(2 * FRAME_HEADER_LENGTH + 30000, outboundBytes());
+        inboundChannel.runPendingTasks();
+        assertEquals(0, unconsumedBytes());
+
+        // Window updates for the stream and the connection were sent to the inbound peer.
+        assertEquals(2 * (FRAME_HEADER_LENGTH + 4), inboundBytes());
+    }
+
+    @Test
+    public void paddingIsReturnedImmediately() throws Http2Exception {
+        outboundPeerWriter.writeInboundWindowUpdate(OUTBOUND_STREAM_ID, 1000);
+        ByteBuf data = Unpooled.buffer().writeZero(100);
+        inboundWriter.writeInboundData(INBOUND_STREAM_ID, data, 10, true);
+        assertEquals(100, unconsumedBytes());
+
+        outboundChannel.runPendingTasks();
+        assertEquals(FRAME_HEADER_LENGTH + 100, outboundBytes());
+        inboundChannel.runPendingTasks();
+        assertEquals(0, unconsumedBytes());
+        assertEquals(Http2Stream.State.HALF_CLOSED_LOCAL, outbound.connection().stream(OUTBOUND_STREAM_ID).state());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void contextMustBelongToConnectionHandler() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        try {
+            new Http2DataForwarder(channel.pipeline().firstContext(), inboundChannel.pipeline().context(inbound));
+        } finally {
+            assertFalse(channel.finish());
+        }
+    }
+
+    private int unconsumedBytes() throws Http2Exception {
+        Http2Stream stream = inbound.connection().stream(INBOUND_STREAM_ID);
+        return inbound.decoder().flowController().unconsumedBytes(stream);
+    }
+
+    private int inboundBytes() {
+        return readBytes(inboundChannel);
+    }
+
+    private int outboundBytes() {
+        return readBytes(outboundChannel);
+    }
+
+    private void releaseOutbound() {
+        readBytes(inboundChannel);
+        readBytes(outboundChannel);
+    }
+
+    private static int readBytes(EmbeddedChannel channel) {
+        int bytes = 0;
+        for (;;) {
+            Object msg = channel.readOutbound();
+            if (msg == null) {
+                return bytes;
+            }
+            bytes += ((ByteBuf) msg).readableBytes();
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
@@ -58,6 +58,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -241,6 +242,16 @@ public abstract class Http2MultiplexTest<C extends Http2FrameCodec> {
         verifyFramesMultiplexedToCorrectChannel(channel3, handler3, 1);
     }
 
+    @Test
+    public void childChannelIdsShouldBeStableAndUnique() {
+        Http2StreamChannel channel1 = newInboundStream(3, false, new LastInboundHandler());
+        Http2StreamChannel channel2 = newInboundStream(5, false, new LastInboundHandler());
+
+        assertSame(channel1.id(), channel1.id());
+        assertNotEquals(channel1.id(), channel2.id());
+        assertTrue(channel1.id().asLongText().startsWith(parentChannel.id().asLongText()));
+    }
+
     @Test
     public void inboundDataFrameShouldUpdateLocalFlowController() throws Http2Exception {
         Http2LocalFlowController flowController = Mockito.mock(Http2LocalFlowController.class);
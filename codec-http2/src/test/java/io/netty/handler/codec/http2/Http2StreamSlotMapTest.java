@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class Http2StreamSlotMapTest {
+
+    private final Http2StreamSlotMap map = new Http2StreamSlotMap();
+
+    @Test
+    public void testPutGetRemove() {
+        Http2Stream stream1 = stream(1);
+        Http2Stream stream2 = stream(2);
+        assertNull(map.put(stream1));
+        assertNull(map.put(stream2));
+        assertEquals(2, map.size());
+        assertSame(stream1, map.get(1));
+        assertSame(stream2, map.get(2));
+        assertNull(map.get(3));
+
+        Http2Stream replacement = stream(1);
+        assertSame(stream1, map.put(replacement));
+        assertEquals(2, map.size());
+        assertSame(replacement, map.remove(1));
+        assertNull(map.remove(1));
+        assertNull(map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testLongLivedStreamBehindWindow() {
+        // Stream 1 stays while many more streams come and go, so their ids collide with it over and over.
+        Http2Stream longLived = stream(1);
+        map.put(longLived);
+        for (int id = 3; id < 1 << 20; id += 2) {
+            Http2Stream stream = stream(id);
+            assertNull(map.put(stream));
+            assertSame(stream, map.get(id));
+            assertSame(stream, map.remove(id));
+            assertSame(longLived, map.get(1));
+            assertEquals(1, map.size());
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(42);
+        Map<Integer, Http2Stream> expected = new HashMap<Integer, Http2Stream>();
+        int nextId = 1;
+        for (int i = 0; i < 100000; i++) {
+            if (expected.isEmpty() || random.nextInt(3) != 0) {
+                // Mostly increasing ids like real endpoints create, with a few random ones.
+                int id = random.nextInt(10) == 0 ? random.nextInt(Integer.MAX_VALUE)
+                        : (nextId += 1 + random.nextInt(4));
+                Http2Stream stream = stream(id);
+                assertSame(expected.put(id, stream), map.put(stream));
+            } else {
+                int id = expected.keySet().iterator().next();
+                assertSame(expected.remove(id), map.remove(id));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Integer, Http2Stream> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), map.get(entry.getKey()));
+        }
+
+        Map<Integer, Http2Stream> iterated = new HashMap<Integer, Http2Stream>();
+        for (Iterator<Http2Stream> itr = map.iterator(); itr.hasNext();) {
+            Http2Stream stream = itr.next();
+            assertNull(iterated.put(stream.id(), stream));
+            itr.remove();
+        }
+        assertEquals(expected, iterated);
+        assertEquals(0, map.size());
+        assertFalse(map.iterator().hasNext());
+    }
+
+    @Test
+    public void testIteratorRemoveKeepsOtherStreams() {
+        for (int id = 1; id <= 200; id++) {
+            map.put(stream(id));
+        }
+        for (Iterator<Http2Stream> itr = map.iterator(); itr.hasNext();) {
+            if (itr.next().id() % 3 == 0) {
+                itr.remove();
+            }
+        }
+        for (int id = 1; id <= 200; id++) {
+            assertEquals(id % 3 != 0, map.get(id) != null);
+        }
+        assertTrue(map.size() > 0);
+    }
+
+    private static Http2Stream stream(final int id) {
+        // Mocks are too expensive for the number of streams these tests create.
+        return (Http2Stream) Proxy.newProxyInstance(Http2Stream.class.getClassLoader(),
+                new Class<?>[] { Http2Stream.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("id".equals(method.getName())) {
+                            return id;
+                        }
+                        if ("equals".equals(method.getName())) {
+                            return proxy == args[0];
+                        }
+                        if ("hashCode".equals(method.getName())) {
+                            return System.identityHashCode(proxy);
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class Http2WriteCoalescingHandlerTest {
+
+    private EmbeddedChannel channel;
+
+    @After
+    public void tearDown() {
+        if (channel != null) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    public void testSmallWritesAreCopiedIntoOneBuffer() {
+        channel = new EmbeddedChannel(new Http2WriteCoalescingHandler());
+        ByteBuf first = buffer("first");
+        ByteBuf second = buffer("second");
+        ChannelFuture firstFuture = channel.write(first);
+        ChannelFuture secondFuture = channel.write(second);
+        assertNull(channel.readOutbound());
+        assertFalse(firstFuture.isDone());
+
+        channel.flush();
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+        assertTrue(firstFuture.isSuccess());
+        assertTrue(secondFuture.isSuccess());
+        assertOutbound("firstsecond");
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testLargeWritesAreAppendedByReference() {
+        channel = new EmbeddedChannel(new Http2WriteCoalescingHandler(4, 1024));
+        ByteBuf large = buffer("large payload");
+        channel.write(buffer("head"));
+        channel.write(large);
+        channel.write(buffer("tail"));
+        channel.flush();
+
+        // The large buffer was not copied, so it is still alive until the coalesced buffer is released.
+        assertEquals(1, large.refCnt());
+        assertOutbound("headlarge payloadtail");
+        assertEquals(0, large.refCnt());
+    }
+
+    @Test
+    public void testMaxBatchSizeWritesWithoutFlush() {
+        channel = new EmbeddedChannel(new Http2WriteCoalescingHandler(1024, 8));
+        channel.write(buffer("1234"));
+        channel.write(buffer("5678"));
+        channel.write(buffer("9"));
+        // EmbeddedChannel only hands out flushed messages, so check that the first batch reached the outbound buffer.
+        assertTrue(channel.unsafe().outboundBuffer().totalPendingWriteBytes() > 0);
+        channel.flush();
+        assertOutbound("12345678");
+        assertOutbound("9");
+    }
+
+    @Test
+    public void testOtherMessagesKeepTheirOrder() throws Exception {
+        channel = new EmbeddedChannel(new Http2WriteCoalescingHandler());
+        File file = File.createTempFile("netty-", ".tmp");
+        file.deleteOnExit();
+        FileRegion region = new DefaultFileRegion(file, 0, 0);
+        channel.write(buffer("before"));
+        channel.write(region);
+        channel.write(buffer("after"));
+        channel.flush();
+        assertOutbound("before");
+        assertSame(region, channel.readOutbound());
+        region.release();
+        assertOutbound("after");
+    }
+
+    @Test
+    public void testFramesWrittenByFrameWriter() throws Exception {
+        final ChannelHandlerContext[] ctx = new ChannelHandlerContext[1];
+        channel = new EmbeddedChannel(new Http2WriteCoalescingHandler(), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void handlerAdded(ChannelHandlerContext context) {
+                ctx[0] = context;
+            }
+        });
+        DefaultHttp2FrameWriter writer = new DefaultHttp2FrameWriter();
+        Http2Headers headers = new DefaultHttp2Headers().status("200");
+        ChannelFuture headersFuture = writer.writeHeaders(ctx[0], 1, headers, 0, false, ctx[0].newPromise());
+        ChannelFuture dataFuture = writer.writeData(ctx[0], 1, buffer("hello"), 0, false, ctx[0].newPromise());
+        ChannelFuture updateFuture = writer.writeWindowUpdate(ctx[0], 1, 1024, ctx[0].newPromise());
+        ctx[0].flush();
+
+        assertTrue(headersFuture.isSuccess());
+        assertTrue(dataFuture.isSuccess());
+        assertTrue(updateFuture.isSuccess());
+        ByteBuf out = channel.readOutbound();
+        try {
+            // HEADERS with a one byte block, DATA with five bytes and WINDOW_UPDATE, each with a 9 byte header.
+            assertEquals(9 + 1 + 9 + 5 + 9 + 4, out.readableBytes());
+        } finally {
+            out.release();
+        }
+        assertNull(channel.readOutbound());
+    }
+
+    private void assertOutbound(String expected) {
+        ByteBuf out = channel.readOutbound();
+        try {
+            assertEquals(expected, out.toString(CharsetUtil.US_ASCII));
+        } finally {
+            out.release();
+        }
+    }
+
+    private static ByteBuf buffer(String content) {
+        return Unpooled.copiedBuffer(content, CharsetUtil.US_ASCII);
+    }
+}
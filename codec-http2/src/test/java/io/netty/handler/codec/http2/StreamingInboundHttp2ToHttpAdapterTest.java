@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.HttpConversionUtil.ExtensionHeaderNames;
+import io.netty.handler.codec.http2.StreamingInboundHttp2ToHttpAdapter.StreamHttpContent;
+import io.netty.handler.codec.http2.StreamingInboundHttp2ToHttpAdapter.StreamLastHttpContent;
+import io.netty.util.CharsetUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingInboundHttp2ToHttpAdapterTest {
+    private EmbeddedChannel channel;
+    private Http2FrameInboundWriter frameInboundWriter;
+
+    @Before
+    public void setUp() {
+        Http2Connection connection = new DefaultHttp2Connection(true);
+        Http2ConnectionHandler handler = new Http2ConnectionHandlerBuilder()
+                .connection(connection)
+                .frameListener(new StreamingInboundHttp2ToHttpAdapter(connection, true))
+                .build();
+        channel = new EmbeddedChannel(handler);
+        frameInboundWriter = new Http2FrameInboundWriter(channel);
+        channel.writeInbound(Http2CodecUtil.connectionPrefaceBuf());
+        frameInboundWriter.writeInboundSettings(new Http2Settings());
+        channel.releaseOutbound();
+    }
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void requestIsStreamedWithTrailers() {
+        frameInboundWriter.writeInboundHeaders(3, requestHeaders(), 0, false);
+        HttpRequest request = channel.readInbound();
+        assertFalse(request instanceof FullHttpRequest);
+        assertEquals("/upload", request.uri());
+        assertEquals(3, request.headers().getInt(ExtensionHeaderNames.STREAM_ID.text()).intValue());
+        assertTrue(request.headers().contains(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED, true));
+
+        frameInboundWriter.writeInboundData(3, bb("hello"), 0, false);
+        StreamHttpContent content = channel.readInbound();
+        assertEquals(3, content.streamId());
+        assertContentAndRelease("hello", content);
+
+        frameInboundWriter.writeInboundHeaders(3, new DefaultHttp2Headers().set("grpc-status", "0"), 0, true);
+        StreamLastHttpContent last = channel.readInbound();
+        assertEquals(3, last.streamId());
+        assertEquals("0", last.trailingHeaders().get("grpc-status"));
+        assertContentAndRelease("", last);
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void contentOfInterleavedStreamsCarriesStreamId() {
+        frameInboundWriter.writeInboundHeaders(3, requestHeaders(), 0, false);
+        frameInboundWriter.writeInboundHeaders(5, requestHeaders(), 0, false);
+        HttpRequest request3 = channel.readInbound();
+        HttpRequest request5 = channel.readInbound();
+        assertEquals(3, request3.headers().getInt(ExtensionHeaderNames.STREAM_ID.text()).intValue());
+        assertEquals(5, request5.headers().getInt(ExtensionHeaderNames.STREAM_ID.text()).intValue());
+
+        frameInboundWriter.writeInboundData(5, bb("five"), 0, true);
+        frameInboundWriter.writeInboundData(3, bb("three"), 0, true);
+        StreamLastHttpContent last5 = channel.readInbound();
+        StreamLastHttpContent last3 = channel.readInbound();
+        assertEquals(5, last5.streamId());
+        assertContentAndRelease("five", last5);
+        assertEquals(3, last3.streamId());
+        assertContentAndRelease("three", last3);
+    }
+
+    @Test
+    public void requestWithoutBodyIsFull() {
+        frameInboundWriter.writeInboundHeaders(3, requestHeaders(), 0, true);
+        FullHttpRequest request = channel.readInbound();
+        assertEquals(0, request.headers().getInt(HttpHeaderNames.CONTENT_LENGTH).intValue());
+        assertFalse(request.headers().contains(HttpHeaderNames.TRANSFER_ENCODING));
+        assertContentAndRelease("", request);
+    }
+
+    @Test
+    public void contentLengthIsKept() {
+        frameInboundWriter.writeInboundHeaders(3, requestHeaders().setInt(HttpHeaderNames.CONTENT_LENGTH, 5), 0,
+                false);
+        HttpRequest request = channel.readInbound();
+        assertEquals(5, request.headers().getInt(HttpHeaderNames.CONTENT_LENGTH).intValue());
+        assertFalse(request.headers().contains(HttpHeaderNames.TRANSFER_ENCODING));
+    }
+
+    @Test
+    public void replacedContentKeepsStreamId() {
+        StreamLastHttpContent last = new StreamLastHttpContent(3, Unpooled.EMPTY_BUFFER, true);
+        last.trailingHeaders().set("a", "b");
+        StreamLastHttpContent copy = last.copy();
+        assertEquals(3, copy.streamId());
+        assertEquals("b", copy.trailingHeaders().get("a"));
+        assertEquals(3, new StreamHttpContent(3, Unpooled.EMPTY_BUFFER).copy().streamId());
+    }
+
+    private static Http2Headers requestHeaders() {
+        return new DefaultHttp2Headers().method("POST").path("/upload").scheme("https").authority("example.com");
+    }
+
+    private static ByteBuf bb(String s) {
+        return Unpooled.copiedBuffer(s, CharsetUtil.US_ASCII);
+    }
+
+    private static void assertContentAndRelease(String expected, HttpContent content) {
+        try {
+            assertEquals(expected, content.content().toString(CharsetUtil.US_ASCII));
+        } finally {
+            content.release();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package io.netty.handler.codec;
 import static io.netty.util.internal.ObjectUtil.checkPositive;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.internal.ObjectUtil;
 
@@ -311,25 +312,26 @@ public class DelimiterBasedFrameDecoder extends ByteToMessageDecoder {
      * found in the haystack.
      */
     private static int indexOf(ByteBuf haystack, ByteBuf needle) {
-        for (int i = haystack.readerIndex(); i < haystack.writerIndex(); i ++) {
-            int haystackIndex = i;
-            int needleIndex;
-            for (needleIndex = 0; needleIndex < needle.capacity(); needleIndex ++) {
-                if (haystack.getByte(haystackIndex) != needle.getByte(needleIndex)) {
-                    break;
-                } else {
-                    haystackIndex ++;
-                    if (haystackIndex == haystack.writerIndex() &&
-                        needleIndex != needle.capacity() - 1) {
-                        return -1;
-                    }
-                }
+        final int needleLength = needle.capacity();
+        if (needleLength == 0) {
+            return -1;
+        }
+        final byte first = needle.getByte(0);
+        final int writerIndex = haystack.writerIndex();
+        final int lastCandidate = writerIndex - needleLength;
+        int i = haystack.readerIndex();
+        while (i <= lastCandidate) {
+            // Let ByteBuf.indexOf(...) skip over the bytes that can not start a delimiter as it can compare
+            // multiple bytes at once.
+            i = haystack.indexOf(i, lastCandidate + 1, first);
+            if (i < 0) {
+                break;
             }
-
-            if (needleIndex == needle.capacity()) {
+            if (ByteBufUtil.equals(needle, 1, haystack, i + 1, needleLength - 1)) {
                 // Found the needle from the haystack!
                 return i - haystack.readerIndex();
             }
+            i ++;
         }
         return -1;
     }
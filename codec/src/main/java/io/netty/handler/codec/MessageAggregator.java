@@ -286,7 +286,7 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
             @SuppressWarnings("unchecked")
             final C m = (C) msg;
             // Handle oversized message.
-            if (content.readableBytes() > maxContentLength - m.content().readableBytes()) {
+            if (aggregatedContentLength(currentMessage) > maxContentLength - m.content().readableBytes()) {
                 // By convention, full message type extends first message type.
                 @SuppressWarnings("unchecked")
                 S s = (S) currentMessage;
@@ -379,6 +379,15 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
      */
     protected abstract O beginAggregation(S start, ByteBuf content) throws Exception;
 
+    /**
+     * Returns the number of content bytes that were aggregated into the specified aggregated message so far. This is
+     * compared against {@link #maxContentLength()}. Sub-classes that move content out of the {@link CompositeByteBuf}
+     * of the aggregated message while aggregating must override this.
+     */
+    protected int aggregatedContentLength(O aggregated) throws Exception {
+        return aggregated.content().readableBytes();
+    }
+
     /**
      * Transfers the information provided by the specified content message to the specified aggregated message.
      * Note that the content of the specified content message has been appended to the content of the specified
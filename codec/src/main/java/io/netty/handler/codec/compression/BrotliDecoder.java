@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.aayushatharva.brotli4j.decoder.DecoderJNI;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * Decompresses a {@link ByteBuf} encoded with the <a href="https://tools.ietf.org/html/rfc7932">Brotli</a> format.
+ * <p>
+ * This requires the <a href="https://github.com/hyperxpro/Brotli4j">Brotli4j</a> library and its native bindings,
+ * see {@link Brotli#isAvailable()}. Decompressed data is passed on as soon as it is available, so the compressed
+ * stream does not need to be received as a whole first.
+ */
+public class BrotliDecoder extends ByteToMessageDecoder {
+
+    private final int inputBufferSize;
+    private DecoderJNI.Wrapper decoder;
+    private boolean destroyed;
+
+    /**
+     * Creates a new decoder with an input buffer of {@code 8192} bytes.
+     */
+    public BrotliDecoder() {
+        this(8 * 1024);
+    }
+
+    /**
+     * Creates a new decoder.
+     *
+     * @param inputBufferSize   the size of the native buffer the compressed bytes are copied to.
+     */
+    public BrotliDecoder(int inputBufferSize) {
+        if (!Brotli.isAvailable()) {
+            throw new IllegalStateException("Brotli is not available", Brotli.cause());
+        }
+        this.inputBufferSize = checkPositive(inputBufferSize, "inputBufferSize");
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        try {
+            decoder = new DecoderJNI.Wrapper(inputBufferSize);
+        } catch (IOException e) {
+            throw new DecompressionException(e);
+        }
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (destroyed) {
+            // Skip data received after the end of the stream.
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+
+        for (;;) {
+            switch (decoder.getStatus()) {
+            case DONE:
+                destroy();
+                in.skipBytes(in.readableBytes());
+                return;
+            case OK:
+                decoder.push(0);
+                break;
+            case NEEDS_MORE_INPUT:
+                if (decoder.hasOutput()) {
+                    out.add(pull(ctx));
+                }
+                if (!in.isReadable()) {
+                    return;
+                }
+                ByteBuffer input = decoder.getInputBuffer();
+                input.clear();
+                int length = Math.min(in.readableBytes(), input.remaining());
+                input.limit(length);
+                in.readBytes(input);
+                decoder.push(length);
+                break;
+            case NEEDS_MORE_OUTPUT:
+                out.add(pull(ctx));
+                break;
+            default:
+                destroy();
+                throw new DecompressionException("Brotli stream corrupted");
+            }
+        }
+    }
+
+    private ByteBuf pull(ChannelHandlerContext ctx) {
+        ByteBuffer output = decoder.pull();
+        ByteBuf buf = ctx.alloc().buffer(output.remaining());
+        buf.writeBytes(output);
+        return buf;
+    }
+
+    private void destroy() {
+        if (!destroyed) {
+            destroyed = true;
+            decoder.destroy();
+        }
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        if (decoder != null) {
+            destroy();
+        }
+    }
+}
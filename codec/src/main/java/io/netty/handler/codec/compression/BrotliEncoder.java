@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses a {@link ByteBuf} using the <a href="https://tools.ietf.org/html/rfc7932">Brotli</a> format.
+ * <p>
+ * This requires the <a href="https://github.com/hyperxpro/Brotli4j">Brotli4j</a> library and its native bindings,
+ * see {@link Brotli#isAvailable()}. The compressed stream is flushed whenever the channel is flushed and finished when
+ * the encoder is closed.
+ */
+public class BrotliEncoder extends CompressionStreamEncoder {
+
+    private final int quality;
+    private final int window;
+
+    /**
+     * Creates a new encoder with quality {@code 4} and window {@code 22}.
+     */
+    public BrotliEncoder() {
+        this(StandardCompressionOptions.brotli());
+    }
+
+    /**
+     * Creates a new encoder.
+     *
+     * @param quality   the compression quality, {@code 0} being the fastest and {@code 11} the best compression.
+     * @param window    the base two logarithm of the sliding window size, in the range {@code 10} to {@code 24}.
+     */
+    public BrotliEncoder(int quality, int window) {
+        this(StandardCompressionOptions.brotli(quality, window));
+    }
+
+    /**
+     * Creates a new encoder with the given {@link BrotliOptions}.
+     */
+    public BrotliEncoder(BrotliOptions options) {
+        if (!Brotli.isAvailable()) {
+            throw new IllegalStateException("Brotli is not available", Brotli.cause());
+        }
+        quality = options.quality();
+        window = options.window();
+    }
+
+    @Override
+    OutputStream newCompressionStream(OutputStream sink) throws IOException {
+        return new BrotliOutputStream(sink, new Encoder.Parameters().setQuality(quality).setWindow(window));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import static io.netty.util.internal.ObjectUtil.checkInRange;
+
+/**
+ * {@link CompressionOptions} for Brotli, see {@link StandardCompressionOptions#brotli(int, int)}.
+ */
+public final class BrotliOptions implements CompressionOptions {
+
+    static final BrotliOptions DEFAULT = new BrotliOptions(4, 22);
+
+    private final int quality;
+    private final int window;
+
+    BrotliOptions(int quality, int window) {
+        this.quality = checkInRange(quality, 0, 11, "quality");
+        this.window = checkInRange(window, 10, 24, "window");
+    }
+
+    /**
+     * Returns the compression quality, {@code 0} being the fastest and {@code 11} the best compression.
+     */
+    public int quality() {
+        return quality;
+    }
+
+    /**
+     * Returns the base two logarithm of the sliding window size.
+     */
+    public int window() {
+        return window;
+    }
+}
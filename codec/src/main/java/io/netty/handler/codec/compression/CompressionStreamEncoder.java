@@ -0,0 +1,240 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ChannelPromiseNotifier;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses a {@link ByteBuf} through the streaming {@link OutputStream} of a compression library.
+ * <p>
+ * The compressed stream is only flushed when the channel is flushed, so that subsequent writes are compressed as a
+ * single stream instead of each message on its own. The stream is finished once the encoder is closed.
+ */
+abstract class CompressionStreamEncoder extends MessageToByteEncoder<ByteBuf> {
+
+    private static final int COPY_CHUNK_SIZE = 8192;
+
+    private final ByteBufOutputStream sink = new ByteBufOutputStream();
+    private OutputStream stream;
+    private byte[] chunk;
+    private boolean dirty;
+    private volatile boolean finished;
+    private volatile ChannelHandlerContext ctx;
+
+    /**
+     * Creates the compressing {@link OutputStream} that writes the compressed bytes to {@code sink}.
+     */
+    abstract OutputStream newCompressionStream(OutputStream sink) throws IOException;
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out) throws Exception {
+        if (finished) {
+            out.writeBytes(in);
+            return;
+        }
+        sink.target = out;
+        try {
+            int length = in.readableBytes();
+            if (in.hasArray()) {
+                stream.write(in.array(), in.arrayOffset() + in.readerIndex(), length);
+                in.skipBytes(length);
+            } else {
+                byte[] chunk = this.chunk;
+                if (chunk == null) {
+                    this.chunk = chunk = new byte[COPY_CHUNK_SIZE];
+                }
+                while (length > 0) {
+                    int chunkLength = Math.min(length, chunk.length);
+                    in.readBytes(chunk, 0, chunkLength);
+                    stream.write(chunk, 0, chunkLength);
+                    length -= chunkLength;
+                }
+            }
+            dirty = true;
+        } catch (IOException e) {
+            throw new CompressionException(e);
+        } finally {
+            sink.target = null;
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (dirty && !finished) {
+            dirty = false;
+            ByteBuf buf = allocateBuffer(ctx, null, isPreferDirect());
+            sink.target = buf;
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                buf.release();
+                throw new CompressionException(e);
+            } finally {
+                sink.target = null;
+            }
+            if (buf.isReadable()) {
+                ctx.write(buf);
+            } else {
+                buf.release();
+            }
+        }
+        ctx.flush();
+    }
+
+    private ChannelFuture finishEncode(ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (finished) {
+            promise.setSuccess();
+            return promise;
+        }
+        finished = true;
+
+        ByteBuf footer = ctx.alloc().heapBuffer();
+        sink.target = footer;
+        try {
+            stream.close();
+        } catch (IOException e) {
+            footer.release();
+            promise.setFailure(new CompressionException(e));
+            return promise;
+        } finally {
+            sink.target = null;
+        }
+        return ctx.writeAndFlush(footer, promise);
+    }
+
+    /**
+     * Returns {@code true} if and only if the compressed stream has been finished.
+     */
+    public boolean isClosed() {
+        return finished;
+    }
+
+    /**
+     * Close this encoder and so finish the encoding.
+     *
+     * The returned {@link ChannelFuture} will be notified once the operation completes.
+     */
+    public ChannelFuture close() {
+        return close(ctx().newPromise());
+    }
+
+    /**
+     * Close this encoder and so finish the encoding.
+     * The given {@link ChannelFuture} will be notified once the operation
+     * completes and will also be returned.
+     */
+    public ChannelFuture close(final ChannelPromise promise) {
+        ChannelHandlerContext ctx = ctx();
+        EventExecutor executor = ctx.executor();
+        if (executor.inEventLoop()) {
+            return finishEncode(ctx, promise);
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ChannelFuture f = finishEncode(ctx(), promise);
+                    f.addListener(new ChannelPromiseNotifier(promise));
+                }
+            });
+            return promise;
+        }
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        ChannelFuture f = finishEncode(ctx, ctx.newPromise());
+        f.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture f) throws Exception {
+                ctx.close(promise);
+            }
+        });
+
+        if (!f.isDone()) {
+            // Ensure the channel is closed even if the write operation completes in time.
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.close(promise);
+                }
+            }, 10, TimeUnit.SECONDS); // FIXME: Magic number
+        }
+    }
+
+    private ChannelHandlerContext ctx() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            throw new IllegalStateException("not added to a pipeline");
+        }
+        return ctx;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        try {
+            stream = newCompressionStream(sink);
+        } catch (IOException e) {
+            throw new CompressionException(e);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (!finished && stream != null) {
+            finished = true;
+            // Release the native resources of the stream, the output is discarded.
+            try {
+                stream.close();
+            } catch (IOException ignore) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Appends the output of the compression stream to the {@link ByteBuf} that is currently written to.
+     */
+    private static final class ByteBufOutputStream extends OutputStream {
+        ByteBuf target;
+
+        @Override
+        public void write(int b) {
+            if (target != null) {
+                target.writeByte(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (target != null) {
+                target.writeBytes(b, off, len);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import static io.netty.util.internal.ObjectUtil.checkInRange;
+
+/**
+ * {@link CompressionOptions} for Deflate, see {@link StandardCompressionOptions#deflate(int, int, int)}.
+ */
+public class DeflateOptions implements CompressionOptions {
+
+    static final DeflateOptions DEFAULT = new DeflateOptions(6, 15, 8);
+
+    private final int compressionLevel;
+    private final int windowBits;
+    private final int memLevel;
+
+    DeflateOptions(int compressionLevel, int windowBits, int memLevel) {
+        this.compressionLevel = checkInRange(compressionLevel, 0, 9, "compressionLevel");
+        this.windowBits = checkInRange(windowBits, 9, 15, "windowBits");
+        this.memLevel = checkInRange(memLevel, 1, 9, "memLevel");
+    }
+
+    /**
+     * Returns the compression level, {@code 1} being the fastest and {@code 9} the best compression.
+     * {@code 0} means no compression.
+     */
+    public int compressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Returns the base two logarithm of the size of the history buffer.
+     */
+    public int windowBits() {
+        return windowBits;
+    }
+
+    /**
+     * Returns how much memory is allocated for the internal compression state, {@code 1} being the minimum and
+     * {@code 9} the maximum.
+     */
+    public int memLevel() {
+        return memLevel;
+    }
+}
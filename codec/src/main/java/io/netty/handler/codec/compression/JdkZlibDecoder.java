@@ -36,6 +36,7 @@ public class JdkZlibDecoder extends ZlibDecoder {
     private static final int FRESERVED = 0xE0;
 
     private Inflater inflater;
+    private boolean nowrap;
     private final byte[] dictionary;
 
     // GZIP related
@@ -100,15 +101,17 @@ public class JdkZlibDecoder extends ZlibDecoder {
         this.decompressConcatenated = decompressConcatenated;
         switch (wrapper) {
             case GZIP:
-                inflater = new Inflater(true);
+                nowrap = true;
+                inflater = JdkZlibPool.inflater(true);
                 crc = ByteBufChecksum.wrapChecksum(new CRC32());
                 break;
             case NONE:
-                inflater = new Inflater(true);
+                nowrap = true;
+                inflater = JdkZlibPool.inflater(true);
                 crc = null;
                 break;
             case ZLIB:
-                inflater = new Inflater();
+                inflater = JdkZlibPool.inflater(false);
                 crc = null;
                 break;
             case ZLIB_OR_NONE:
@@ -147,7 +150,8 @@ public class JdkZlibDecoder extends ZlibDecoder {
             }
 
             boolean nowrap = !looksLikeZlib(in.getShort(in.readerIndex()));
-            inflater = new Inflater(nowrap);
+            inflater = JdkZlibPool.inflater(nowrap);
+            this.nowrap = nowrap;
             decideZlibOrNone = false;
         }
 
@@ -242,7 +246,8 @@ public class JdkZlibDecoder extends ZlibDecoder {
     protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
         super.handlerRemoved0(ctx);
         if (inflater != null) {
-            inflater.end();
+            JdkZlibPool.release(inflater, nowrap);
+            inflater = null;
         }
     }
 
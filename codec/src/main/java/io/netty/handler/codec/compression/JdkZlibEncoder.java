@@ -36,6 +36,7 @@ import java.util.zip.Deflater;
 public class JdkZlibEncoder extends ZlibEncoder {
 
     private final ZlibWrapper wrapper;
+    private final int compressionLevel;
     private final Deflater deflater;
     private volatile boolean finished;
     private volatile ChannelHandlerContext ctx;
@@ -106,7 +107,8 @@ public class JdkZlibEncoder extends ZlibEncoder {
         }
 
         this.wrapper = wrapper;
-        deflater = new Deflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
+        this.compressionLevel = compressionLevel;
+        deflater = JdkZlibPool.deflater(compressionLevel, wrapper != ZlibWrapper.ZLIB);
     }
 
     /**
@@ -145,7 +147,8 @@ public class JdkZlibEncoder extends ZlibEncoder {
         ObjectUtil.checkNotNull(dictionary, "dictionary");
 
         wrapper = ZlibWrapper.ZLIB;
-        deflater = new Deflater(compressionLevel);
+        this.compressionLevel = compressionLevel;
+        deflater = JdkZlibPool.deflater(compressionLevel, false);
         deflater.setDictionary(dictionary);
     }
 
@@ -315,7 +318,7 @@ public class JdkZlibEncoder extends ZlibEncoder {
             footer.writeByte(uncBytes >>> 16);
             footer.writeByte(uncBytes >>> 24);
         }
-        deflater.end();
+        releaseDeflater();
         return ctx.writeAndFlush(footer, promise);
     }
 
@@ -347,4 +350,18 @@ public class JdkZlibEncoder extends ZlibEncoder {
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
     }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        if (!finished) {
+            // The stream was never finished, so give back the Deflater now instead of leaving it to the finalizer.
+            finished = true;
+            releaseDeflater();
+        }
+    }
+
+    private void releaseDeflater() {
+        JdkZlibPool.release(deflater, compressionLevel, wrapper != ZlibWrapper.ZLIB);
+    }
 }
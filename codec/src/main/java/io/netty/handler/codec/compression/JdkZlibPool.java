@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Keeps {@link Deflater}s and {@link Inflater}s of event loop threads so they can be reused after a reset instead of
+ * allocating and freeing the native zlib state for every stream, which is expensive compared to compressing a small
+ * message.
+ * <p>
+ * Instances are only pooled on threads that clean up their {@link FastThreadLocal}s when they terminate, so that the
+ * native memory of pooled instances is freed with the thread.
+ */
+final class JdkZlibPool {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(JdkZlibPool.class);
+
+    // Maximum number of instances pooled per thread for each kind of Deflater and Inflater.
+    private static final int MAX_POOLED = Math.max(0, SystemPropertyUtil.getInt("io.netty.zlib.maxPooled", 4));
+
+    // Deflaters are pooled per compression level (-1 to 9) and nowrap, Inflaters per nowrap.
+    private static final int DEFLATER_KINDS = 11 * 2;
+
+    private static final FastThreadLocal<Pools> POOLS = new FastThreadLocal<Pools>() {
+        @Override
+        protected Pools initialValue() {
+            return new Pools();
+        }
+
+        @Override
+        protected void onRemoval(Pools pools) {
+            pools.endAll();
+        }
+    };
+
+    static {
+        logger.debug("-Dio.netty.zlib.maxPooled: {}", MAX_POOLED);
+    }
+
+    private JdkZlibPool() {
+    }
+
+    /**
+     * Returns a {@link Deflater} that is equal to a {@code new Deflater(compressionLevel, nowrap)}.
+     */
+    static Deflater deflater(int compressionLevel, boolean nowrap) {
+        if (canPool()) {
+            ArrayDeque<Deflater> pool = POOLS.get().deflaters[deflaterKind(compressionLevel, nowrap)];
+            Deflater deflater = pool == null ? null : pool.poll();
+            if (deflater != null) {
+                return deflater;
+            }
+        }
+        return new Deflater(compressionLevel, nowrap);
+    }
+
+    /**
+     * Gives back a {@link Deflater} obtained via {@link #deflater(int, boolean)}, which must not be used anymore.
+     */
+    static void release(Deflater deflater, int compressionLevel, boolean nowrap) {
+        if (canPool()) {
+            Pools pools = POOLS.get();
+            int kind = deflaterKind(compressionLevel, nowrap);
+            ArrayDeque<Deflater> pool = pools.deflaters[kind];
+            if (pool == null) {
+                pools.deflaters[kind] = pool = new ArrayDeque<Deflater>(MAX_POOLED);
+            }
+            if (pool.size() < MAX_POOLED) {
+                deflater.reset();
+                pool.add(deflater);
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    /**
+     * Returns an {@link Inflater} that is equal to a {@code new Inflater(nowrap)}.
+     */
+    static Inflater inflater(boolean nowrap) {
+        if (canPool()) {
+            Inflater inflater = POOLS.get().inflaters[nowrap ? 1 : 0].poll();
+            if (inflater != null) {
+                return inflater;
+            }
+        }
+        return new Inflater(nowrap);
+    }
+
+    /**
+     * Gives back an {@link Inflater} obtained via {@link #inflater(boolean)}, which must not be used anymore.
+     */
+    static void release(Inflater inflater, boolean nowrap) {
+        if (canPool()) {
+            ArrayDeque<Inflater> pool = POOLS.get().inflaters[nowrap ? 1 : 0];
+            if (pool.size() < MAX_POOLED) {
+                inflater.reset();
+                pool.add(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    private static boolean canPool() {
+        return MAX_POOLED > 0 && FastThreadLocalThread.willCleanupFastThreadLocals(Thread.currentThread());
+    }
+
+    private static int deflaterKind(int compressionLevel, boolean nowrap) {
+        return (compressionLevel + 1) * 2 + (nowrap ? 1 : 0);
+    }
+
+    private static final class Pools {
+        @SuppressWarnings("unchecked")
+        final ArrayDeque<Deflater>[] deflaters = new ArrayDeque[DEFLATER_KINDS];
+        @SuppressWarnings("unchecked")
+        final ArrayDeque<Inflater>[] inflaters = new ArrayDeque[] {
+                new ArrayDeque<Inflater>(MAX_POOLED), new ArrayDeque<Inflater>(MAX_POOLED) };
+
+        void endAll() {
+            for (ArrayDeque<Deflater> pool : deflaters) {
+                if (pool != null) {
+                    for (Deflater deflater : pool) {
+                        deflater.end();
+                    }
+                    pool.clear();
+                }
+            }
+            for (ArrayDeque<Inflater> pool : inflaters) {
+                for (Inflater inflater : pool) {
+                    inflater.end();
+                }
+                pool.clear();
+            }
+        }
+    }
+}
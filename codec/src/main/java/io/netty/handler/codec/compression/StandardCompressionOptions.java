@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+/**
+ * Creates the {@link CompressionOptions} of the supported compression algorithms.
+ */
+public final class StandardCompressionOptions {
+
+    private StandardCompressionOptions() {
+    }
+
+    /**
+     * Returns the default {@link BrotliOptions}, quality {@code 4} and window {@code 22}.
+     */
+    public static BrotliOptions brotli() {
+        return BrotliOptions.DEFAULT;
+    }
+
+    /**
+     * Creates new {@link BrotliOptions}.
+     *
+     * @param quality   the compression quality, {@code 0} being the fastest and {@code 11} the best compression.
+     * @param window    the base two logarithm of the sliding window size, in the range {@code 10} to {@code 24}.
+     */
+    public static BrotliOptions brotli(int quality, int window) {
+        return new BrotliOptions(quality, window);
+    }
+
+    /**
+     * Returns the default {@link ZstdOptions}, compression level {@code 3}.
+     */
+    public static ZstdOptions zstd() {
+        return ZstdOptions.DEFAULT;
+    }
+
+    /**
+     * Creates new {@link ZstdOptions}.
+     *
+     * @param compressionLevel  the compression level, {@code 1} being the fastest and {@code 22} the best
+     *                          compression.
+     */
+    public static ZstdOptions zstd(int compressionLevel) {
+        return new ZstdOptions(compressionLevel);
+    }
+
+    /**
+     * Returns the default {@link GzipOptions}, compression level {@code 6}, window bits {@code 15} and memory
+     * level {@code 8}.
+     */
+    public static GzipOptions gzip() {
+        return GzipOptions.DEFAULT;
+    }
+
+    /**
+     * Creates new {@link GzipOptions}.
+     *
+     * @param compressionLevel  {@code 1} yields the fastest compression and {@code 9} yields the best compression.
+     *                          {@code 0} means no compression.
+     * @param windowBits        the base two logarithm of the size of the history buffer, in the range {@code 9} to
+     *                          {@code 15}.
+     * @param memLevel          how much memory is allocated for the internal compression state, in the range
+     *                          {@code 1} to {@code 9}.
+     */
+    public static GzipOptions gzip(int compressionLevel, int windowBits, int memLevel) {
+        return new GzipOptions(compressionLevel, windowBits, memLevel);
+    }
+
+    /**
+     * Returns the default {@link DeflateOptions}, compression level {@code 6}, window bits {@code 15} and memory
+     * level {@code 8}.
+     */
+    public static DeflateOptions deflate() {
+        return DeflateOptions.DEFAULT;
+    }
+
+    /**
+     * Creates new {@link DeflateOptions}.
+     *
+     * @param compressionLevel  {@code 1} yields the fastest compression and {@code 9} yields the best compression.
+     *                          {@code 0} means no compression.
+     * @param windowBits        the base two logarithm of the size of the history buffer, in the range {@code 9} to
+     *                          {@code 15}.
+     * @param memLevel          how much memory is allocated for the internal compression state, in the range
+     *                          {@code 1} to {@code 9}.
+     */
+    public static DeflateOptions deflate(int compressionLevel, int windowBits, int memLevel) {
+        return new DeflateOptions(compressionLevel, windowBits, memLevel);
+    }
+}
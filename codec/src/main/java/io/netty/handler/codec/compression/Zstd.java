@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.util.Native;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * Tells if the <a href="https://github.com/luben/zstd-jni">zstd-jni</a> library and its native bindings are
+ * available, which is required to use {@link ZstdEncoder} and {@link ZstdDecoder}.
+ */
+public final class Zstd {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Zstd.class);
+    private static final Throwable cause;
+
+    static {
+        Throwable t = null;
+        try {
+            Class.forName("com.github.luben.zstd.util.Native", false, Zstd.class.getClassLoader());
+            Native.load();
+        } catch (Throwable e) {
+            t = e;
+            logger.debug("zstd-jni not available, Zstandard compression can not be used.", e);
+        }
+        cause = t;
+    }
+
+    /**
+     * Returns {@code true} if Zstandard can be used.
+     */
+    public static boolean isAvailable() {
+        return cause == null;
+    }
+
+    /**
+     * Throws the cause why Zstandard can not be used, if any.
+     */
+    public static void ensureAvailability() throws Throwable {
+        if (cause != null) {
+            throw cause;
+        }
+    }
+
+    /**
+     * Returns the cause why Zstandard can not be used or {@code null} if it is available.
+     */
+    public static Throwable cause() {
+        return cause;
+    }
+
+    private Zstd() {
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * Decompresses a {@link ByteBuf} encoded with the <a href="https://tools.ietf.org/html/rfc8878">Zstandard</a>
+ * format.
+ * <p>
+ * This requires the <a href="https://github.com/luben/zstd-jni">zstd-jni</a> library and its native bindings,
+ * see {@link Zstd#isAvailable()}. Decompressed data is passed on as soon as it is available, so a frame does not
+ * need to be received as a whole first. Multiple concatenated frames are supported.
+ */
+public class ZstdDecoder extends ByteToMessageDecoder {
+
+    private final int outputBufferSize;
+    private final ByteBufSource source = new ByteBufSource();
+    private ZstdInputStreamNoFinalizer stream;
+
+    /**
+     * Creates a new decoder that passes on the decompressed data in chunks of up to {@code 8192} bytes.
+     */
+    public ZstdDecoder() {
+        this(8 * 1024);
+    }
+
+    /**
+     * Creates a new decoder.
+     *
+     * @param outputBufferSize  the maximum size of the chunks the decompressed data is passed on in.
+     */
+    public ZstdDecoder(int outputBufferSize) {
+        if (!Zstd.isAvailable()) {
+            throw new IllegalStateException("Zstandard is not available", Zstd.cause());
+        }
+        this.outputBufferSize = checkPositive(outputBufferSize, "outputBufferSize");
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        try {
+            // Continuous mode makes the stream return the data decompressed so far instead of failing when the
+            // source runs out of data in the middle of a frame.
+            stream = new ZstdInputStreamNoFinalizer(source).setContinuous(true);
+        } catch (IOException e) {
+            throw new DecompressionException(e);
+        }
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        source.current = in;
+        try {
+            for (;;) {
+                ByteBuf buf = ctx.alloc().heapBuffer(outputBufferSize);
+                int length;
+                try {
+                    length = buf.writeBytes(stream, outputBufferSize);
+                } catch (IOException e) {
+                    buf.release();
+                    throw new DecompressionException(e);
+                }
+                if (length <= 0) {
+                    buf.release();
+                    return;
+                }
+                out.add(buf);
+            }
+        } finally {
+            source.current = null;
+        }
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    /**
+     * Feeds the {@link ByteBuf} that is currently decoded to the decompressing stream.
+     */
+    private static final class ByteBufSource extends InputStream {
+        ByteBuf current;
+
+        @Override
+        public int read() {
+            if (current == null || !current.isReadable()) {
+                return -1;
+            }
+            return current.readByte() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (current == null || !current.isReadable()) {
+                return -1;
+            }
+            len = Math.min(len, current.readableBytes());
+            current.readBytes(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return current == null ? 0 : current.readableBytes();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses a {@link ByteBuf} using the <a href="https://tools.ietf.org/html/rfc8878">Zstandard</a> format.
+ * <p>
+ * This requires the <a href="https://github.com/luben/zstd-jni">zstd-jni</a> library and its native bindings,
+ * see {@link Zstd#isAvailable()}. The compressed stream is flushed whenever the channel is flushed and the frame is
+ * finished when the encoder is closed.
+ */
+public class ZstdEncoder extends CompressionStreamEncoder {
+
+    private final int compressionLevel;
+
+    /**
+     * Creates a new encoder with compression level {@code 3}.
+     */
+    public ZstdEncoder() {
+        this(StandardCompressionOptions.zstd());
+    }
+
+    /**
+     * Creates a new encoder.
+     *
+     * @param compressionLevel  the compression level, {@code 1} being the fastest and {@code 22} the best
+     *                          compression.
+     */
+    public ZstdEncoder(int compressionLevel) {
+        this(StandardCompressionOptions.zstd(compressionLevel));
+    }
+
+    /**
+     * Creates a new encoder with the given {@link ZstdOptions}.
+     */
+    public ZstdEncoder(ZstdOptions options) {
+        if (!Zstd.isAvailable()) {
+            throw new IllegalStateException("Zstandard is not available", Zstd.cause());
+        }
+        compressionLevel = options.compressionLevel();
+    }
+
+    @Override
+    OutputStream newCompressionStream(OutputStream sink) throws IOException {
+        return new ZstdOutputStreamNoFinalizer(sink, compressionLevel);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import static io.netty.util.internal.ObjectUtil.checkInRange;
+
+/**
+ * {@link CompressionOptions} for Zstandard, see {@link StandardCompressionOptions#zstd(int)}.
+ */
+public final class ZstdOptions implements CompressionOptions {
+
+    static final ZstdOptions DEFAULT = new ZstdOptions(3);
+
+    private final int compressionLevel;
+
+    ZstdOptions(int compressionLevel) {
+        this.compressionLevel = checkInRange(compressionLevel, 1, 22, "compressionLevel");
+    }
+
+    /**
+     * Returns the compression level, {@code 1} being the fastest and {@code 22} the best compression.
+     */
+    public int compressionLevel() {
+        return compressionLevel;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JdkZlibPoolTest {
+
+    @Test
+    public void testNotPooledOnPlainThread() {
+        Deflater deflater = JdkZlibPool.deflater(6, true);
+        JdkZlibPool.release(deflater, 6, true);
+        Deflater next = JdkZlibPool.deflater(6, true);
+        assertNotSame(deflater, next);
+        next.end();
+    }
+
+    @Test
+    public void testPooledOnFastThreadLocalThread() throws Throwable {
+        runInFastThreadLocalThread(new Runnable() {
+            @Override
+            public void run() {
+                Deflater deflater = JdkZlibPool.deflater(6, true);
+                JdkZlibPool.release(deflater, 6, true);
+                assertNotSame(deflater, JdkZlibPool.deflater(6, false));
+                assertNotSame(deflater, JdkZlibPool.deflater(1, true));
+                assertSame(deflater, JdkZlibPool.deflater(6, true));
+                JdkZlibPool.release(deflater, 6, true);
+
+                Inflater inflater = JdkZlibPool.inflater(false);
+                JdkZlibPool.release(inflater, false);
+                assertNotSame(inflater, JdkZlibPool.inflater(true));
+                assertSame(inflater, JdkZlibPool.inflater(false));
+                JdkZlibPool.release(inflater, false);
+            }
+        });
+    }
+
+    @Test
+    public void testReusedInstancesAreReset() throws Throwable {
+        runInFastThreadLocalThread(new Runnable() {
+            @Override
+            public void run() {
+                for (ZlibWrapper wrapper : new ZlibWrapper[] { ZlibWrapper.GZIP, ZlibWrapper.ZLIB, ZlibWrapper.NONE }) {
+                    for (int i = 0; i < 3; i++) {
+                        String data = "{\"id\":" + i + ",\"name\":\"" + wrapper + "\"}";
+                        assertEquals(data, roundTrip(wrapper, data));
+                    }
+                }
+            }
+        });
+    }
+
+    private static String roundTrip(ZlibWrapper wrapper, String data) {
+        EmbeddedChannel encoder = new EmbeddedChannel(new JdkZlibEncoder(wrapper));
+        assertTrue(encoder.writeOutbound(Unpooled.copiedBuffer(data, CharsetUtil.US_ASCII)));
+        assertTrue(encoder.finish());
+        CompositeByteBuf compressed = Unpooled.compositeBuffer();
+        ByteBuf msg;
+        while ((msg = encoder.readOutbound()) != null) {
+            compressed.addComponent(true, msg);
+        }
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new JdkZlibDecoder(wrapper));
+        assertTrue(decoder.writeInbound(compressed));
+        StringBuilder decompressed = new StringBuilder();
+        while ((msg = decoder.readInbound()) != null) {
+            decompressed.append(msg.toString(CharsetUtil.US_ASCII));
+            msg.release();
+        }
+        decoder.finishAndReleaseAll();
+        return decompressed.toString();
+    }
+
+    private static void runInFastThreadLocalThread(final Runnable task) throws Throwable {
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread thread = new DefaultThreadFactory(JdkZlibPoolTest.class).newThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        Throwable cause = error.get();
+        if (cause != null) {
+            throw cause;
+        }
+        assertNull(error.get());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZstdIntegrationTest extends AbstractIntegrationTest {
+
+    @BeforeClass
+    public static void ensureAvailable() {
+        Assume.assumeTrue(Zstd.isAvailable());
+    }
+
+    @Override
+    protected EmbeddedChannel createEncoder() {
+        return new EmbeddedChannel(new ZstdEncoder());
+    }
+
+    @Override
+    protected EmbeddedChannel createDecoder() {
+        return new EmbeddedChannel(new ZstdDecoder());
+    }
+
+    @Test
+    public void testFlushedDataIsDecodable() {
+        String first = "{\"id\":1,\"name\":\"first\"}";
+        String second = "{\"id\":2,\"name\":\"second\"}";
+
+        assertTrue(encoder.writeOutbound(Unpooled.copiedBuffer(first, CharsetUtil.US_ASCII)));
+        decoder.writeInbound(readCompressed());
+        assertEquals(first, readDecompressed());
+
+        assertTrue(encoder.writeOutbound(Unpooled.copiedBuffer(second, CharsetUtil.US_ASCII)));
+        assertTrue(encoder.finish());
+        decoder.writeInbound(readCompressed());
+        assertEquals(second, readDecompressed());
+    }
+
+    private ByteBuf readCompressed() {
+        CompositeByteBuf compressed = Unpooled.compositeBuffer();
+        ByteBuf msg;
+        while ((msg = encoder.readOutbound()) != null) {
+            compressed.addComponent(true, msg);
+        }
+        return compressed;
+    }
+
+    private String readDecompressed() {
+        StringBuilder decompressed = new StringBuilder();
+        ByteBuf msg;
+        while ((msg = decoder.readInbound()) != null) {
+            decompressed.append(msg.toString(CharsetUtil.US_ASCII));
+            msg.release();
+        }
+        return decompressed.toString();
+    }
+}
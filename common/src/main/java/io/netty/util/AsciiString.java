@@ -19,6 +19,7 @@ import io.netty.util.internal.EmptyArrays;
 import io.netty.util.internal.InternalThreadLocalMap;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SWARUtil;
 
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
@@ -47,6 +48,10 @@ import static io.netty.util.internal.ObjectUtil.checkNotNull;
 public final class AsciiString implements CharSequence, Comparable<CharSequence> {
     public static final AsciiString EMPTY_STRING = cached("");
     private static final char MAX_CHAR_VALUE = 255;
+    /**
+     * {@code true} if multiple bytes can be processed at once via {@link SWARUtil}.
+     */
+    private static final boolean SWAR_ENABLED = PlatformDependent.hasUnsafe() && PlatformDependent.isUnaligned();
 
     public static final int INDEX_NOT_FOUND = -1;
 
@@ -533,12 +538,7 @@ public final class AsciiString implements CharSequence, Comparable<CharSequence>
 
         if (string instanceof AsciiString) {
             AsciiString rhs = (AsciiString) string;
-            for (int i = arrayOffset(), j = rhs.arrayOffset(), end = i + length(); i < end; ++i, ++j) {
-                if (!equalsIgnoreCase(value[i], rhs.value[j])) {
-                    return false;
-                }
-            }
-            return true;
+            return equalsIgnoreCase(value, arrayOffset(), rhs.value, rhs.arrayOffset(), length());
         }
 
         for (int i = arrayOffset(), j = 0, end = length(); j < end; ++i, ++j) {
@@ -922,24 +922,25 @@ public final class AsciiString implements CharSequence, Comparable<CharSequence>
      * @return a new string containing the lowercase characters equivalent to the characters in this string.
      */
     public AsciiString toLowerCase() {
-        boolean lowercased = true;
-        int i, j;
-        final int len = length() + arrayOffset();
-        for (i = arrayOffset(); i < len; ++i) {
-            byte b = value[i];
-            if (b >= 'A' && b <= 'Z') {
-                lowercased = false;
-                break;
-            }
-        }
-
+        final int start = arrayOffset();
+        final int end = start + length();
+        final int firstUpperCase = indexOfUpperCase(value, start, end);
         // Check if this string does not contain any uppercase characters.
-        if (lowercased) {
+        if (firstUpperCase == -1) {
             return this;
         }
 
         final byte[] newValue = PlatformDependent.allocateUninitializedArray(length());
-        for (i = 0, j = arrayOffset(); i < newValue.length; ++i, ++j) {
+        // Everything before the first uppercase character can just be copied.
+        System.arraycopy(value, start, newValue, 0, firstUpperCase - start);
+        int i = firstUpperCase - start;
+        int j = firstUpperCase;
+        if (SWAR_ENABLED) {
+            for (final int longEnd = newValue.length - 7; i < longEnd; i += 8, j += 8) {
+                PlatformDependent.putLong(newValue, i, SWARUtil.toLowerCase(PlatformDependent.getLong(value, j)));
+            }
+        }
+        for (; i < newValue.length; ++i, ++j) {
             newValue[i] = toLowerCase(value[j]);
         }
 
@@ -952,24 +953,25 @@ public final class AsciiString implements CharSequence, Comparable<CharSequence>
      * @return a new string containing the uppercase characters equivalent to the characters in this string.
      */
     public AsciiString toUpperCase() {
-        boolean uppercased = true;
-        int i, j;
-        final int len = length() + arrayOffset();
-        for (i = arrayOffset(); i < len; ++i) {
-            byte b = value[i];
-            if (b >= 'a' && b <= 'z') {
-                uppercased = false;
-                break;
-            }
-        }
-
+        final int start = arrayOffset();
+        final int end = start + length();
+        final int firstLowerCase = indexOfLowerCase(value, start, end);
         // Check if this string does not contain any lowercase characters.
-        if (uppercased) {
+        if (firstLowerCase == -1) {
             return this;
         }
 
         final byte[] newValue = PlatformDependent.allocateUninitializedArray(length());
-        for (i = 0, j = arrayOffset(); i < newValue.length; ++i, ++j) {
+        // Everything before the first lowercase character can just be copied.
+        System.arraycopy(value, start, newValue, 0, firstLowerCase - start);
+        int i = firstLowerCase - start;
+        int j = firstLowerCase;
+        if (SWAR_ENABLED) {
+            for (final int longEnd = newValue.length - 7; i < longEnd; i += 8, j += 8) {
+                PlatformDependent.putLong(newValue, i, SWARUtil.toUpperCase(PlatformDependent.getLong(value, j)));
+            }
+        }
+        for (; i < newValue.length; ++i, ++j) {
             newValue[i] = toUpperCase(value[j]);
         }
 
@@ -1815,6 +1817,65 @@ public final class AsciiString implements CharSequence, Comparable<CharSequence>
         return INDEX_NOT_FOUND;
     }
 
+    /**
+     * Compares {@code length} bytes of {@code a} and {@code b} ignoring the case of US-ASCII letters. When possible
+     * eight bytes are compared at once by folding both words to lower case.
+     */
+    private static boolean equalsIgnoreCase(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int i = 0;
+        if (SWAR_ENABLED) {
+            for (final int longEnd = length - 7; i < longEnd; i += 8) {
+                final long aWord = PlatformDependent.getLong(a, aOffset + i);
+                final long bWord = PlatformDependent.getLong(b, bOffset + i);
+                if (aWord != bWord && SWARUtil.toLowerCase(aWord) != SWARUtil.toLowerCase(bWord)) {
+                    return false;
+                }
+            }
+        }
+        for (; i < length; ++i) {
+            if (!equalsIgnoreCase(a[aOffset + i], b[bOffset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfUpperCase(byte[] bytes, int start, int end) {
+        int i = start;
+        if (SWAR_ENABLED) {
+            for (final int longEnd = end - 7; i < longEnd; i += 8) {
+                final long result = SWARUtil.containsUpperCase(PlatformDependent.getLong(bytes, i));
+                if (result != 0) {
+                    return i + SWARUtil.getIndex(result, PlatformDependent.BIG_ENDIAN_NATIVE_ORDER);
+                }
+            }
+        }
+        for (; i < end; ++i) {
+            if (isUpperCase(bytes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfLowerCase(byte[] bytes, int start, int end) {
+        int i = start;
+        if (SWAR_ENABLED) {
+            for (final int longEnd = end - 7; i < longEnd; i += 8) {
+                final long result = SWARUtil.containsLowerCase(PlatformDependent.getLong(bytes, i));
+                if (result != 0) {
+                    return i + SWARUtil.getIndex(result, PlatformDependent.BIG_ENDIAN_NATIVE_ORDER);
+                }
+            }
+        }
+        for (; i < end; ++i) {
+            if (isLowerCase(bytes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private static boolean equalsIgnoreCase(byte a, byte b) {
         return a == b || toLowerCase(a) == toLowerCase(b);
     }
@@ -79,6 +79,17 @@ public final class ObjectUtil {
         return i;
     }
 
+    /**
+     * Checks that the given argument is in the range {@code [start, end]}. If it is not, throws
+     * {@link IllegalArgumentException}. Otherwise, returns the argument.
+     */
+    public static int checkInRange(int i, int start, int end, String name) {
+        if (i < start || i > end) {
+            throw new IllegalArgumentException(name + ": " + i + " (expected: " + start + '-' + end + ')');
+        }
+        return i;
+    }
+
     /**
      * Checks that the given argument is neither null nor empty.
      * If it is, throws {@link NullPointerException} or {@link IllegalArgumentException}.
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+/**
+ * Utility methods that operate on eight bytes packed into a single {@code long} at once
+ * (SIMD within a register).
+ * <p>
+ * All methods work on each byte independently and so do not care about the byte order the word was read in, except
+ * for {@link #getIndex(long, boolean)} which maps a match back to a byte offset.
+ */
+public final class SWARUtil {
+
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private SWARUtil() {
+    }
+
+    /**
+     * Returns a word that has the given byte {@code value} repeated in each of its eight bytes.
+     */
+    public static long compilePattern(byte value) {
+        return (value & 0xFFL) * 0x101010101010101L;
+    }
+
+    /**
+     * Returns a word where the most significant bit of a byte is set if and only if the same byte of {@code word}
+     * equals the byte that was used to compile {@code pattern} via {@link #compilePattern(byte)}. All other bits are
+     * cleared.
+     * <p>
+     * Unlike the classic {@code (x - 0x01..01) & ~x & 0x80..80} trick this never reports false positives, so the
+     * result can be scanned from either end.
+     */
+    public static long applyPattern(long word, long pattern) {
+        long input = word ^ pattern;
+        long tmp = (input & LOW_SEVEN_BITS) + LOW_SEVEN_BITS;
+        return ~(tmp | input | LOW_SEVEN_BITS);
+    }
+
+    /**
+     * Returns the offset of the first byte marked in a non-zero {@code result} of {@link #applyPattern(long, long)}
+     * or {@link #containsUpperCase(long)}. {@code bigEndian} tells if the word was read in big-endian (the byte at the
+     * lowest index is the most significant) or in little-endian byte order.
+     */
+    public static int getIndex(long result, boolean bigEndian) {
+        return bigEndian ? Long.numberOfLeadingZeros(result) >>> 3 : Long.numberOfTrailingZeros(result) >>> 3;
+    }
+
+    /**
+     * Returns {@code true} if any of the eight bytes of {@code word} has its most significant bit set, i.e. is not
+     * an US-ASCII character.
+     */
+    public static boolean containsNonAscii(long word) {
+        return (word & HIGH_BITS) != 0;
+    }
+
+    /**
+     * Returns a word where the most significant bit of a byte is set if and only if the same byte of {@code word}
+     * is in the range {@code 'A'..'Z'}.
+     */
+    public static long containsUpperCase(long word) {
+        // Adding 0x3F to a byte sets bit 7 iff the byte is >= 'A'; adding 0x25 sets it iff the byte is > 'Z'.
+        // Masking with LOW_SEVEN_BITS first prevents carries from crossing byte boundaries.
+        long masked = word & LOW_SEVEN_BITS;
+        long result = ((masked + 0x3F3F3F3F3F3F3F3FL) ^ (masked + 0x2525252525252525L)) & ~word;
+        return result & HIGH_BITS;
+    }
+
+    /**
+     * Returns a word where the most significant bit of a byte is set if and only if the same byte of {@code word}
+     * is in the range {@code 'a'..'z'}.
+     */
+    public static long containsLowerCase(long word) {
+        long masked = word & LOW_SEVEN_BITS;
+        long result = ((masked + 0x1F1F1F1F1F1F1F1FL) ^ (masked + 0x0505050505050505L)) & ~word;
+        return result & HIGH_BITS;
+    }
+
+    /**
+     * Returns {@code word} with all bytes in the range {@code 'A'..'Z'} converted to lower case. All other bytes
+     * are left untouched.
+     */
+    public static long toLowerCase(long word) {
+        // 0x80 >>> 2 == 0x20 which is the difference between upper and lower case US-ASCII letters.
+        return word | (containsUpperCase(word) >>> 2);
+    }
+
+    /**
+     * Returns {@code word} with all bytes in the range {@code 'a'..'z'} converted to upper case. All other bytes
+     * are left untouched.
+     */
+    public static long toUpperCase(long word) {
+        return word & ~(containsLowerCase(word) >>> 2);
+    }
+}
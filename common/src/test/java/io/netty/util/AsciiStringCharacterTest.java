@@ -264,6 +264,49 @@ public class AsciiStringCharacterTest {
         assertThat(AsciiString.contentEqualsIgnoreCase("FoO", new AsciiString("bAr")), is(false));
     }
 
+    @Test
+    public void testEqualsIgnoreCaseLong() {
+        AsciiString lower = new AsciiString("x-forwarded-for-content-type-accept-encoding");
+        for (int i = 0; i < lower.length(); i++) {
+            byte[] bytes = lower.toByteArray();
+            byte b = lower.byteAt(i);
+            // Flipping the case bit only keeps the strings equal for letters.
+            bytes[i] ^= 0x20;
+            boolean letter = b >= 'a' && b <= 'z';
+            assertEquals(letter, lower.contentEqualsIgnoreCase(new AsciiString(bytes, false)));
+
+            // Use an offset so the words are not aligned in the same way.
+            byte[] shifted = new byte[bytes.length + 3];
+            System.arraycopy(lower.array(), 0, shifted, 3, bytes.length);
+            assertTrue(lower.contentEqualsIgnoreCase(new AsciiString(shifted, 3, bytes.length, false)));
+            shifted[3 + i] = (byte) (b | 0x80);
+            assertFalse(lower.contentEqualsIgnoreCase(new AsciiString(shifted, 3, bytes.length, false)));
+        }
+    }
+
+    @Test
+    public void testCaseConversionLong() {
+        byte[] bytes = new byte[67];
+        for (int i = 0; i < 100; i++) {
+            r.nextBytes(bytes);
+            int offset = r.nextInt(10);
+            AsciiString value = new AsciiString(bytes, offset, bytes.length - offset, false);
+            byte[] expectedLower = new byte[value.length()];
+            byte[] expectedUpper = new byte[value.length()];
+            for (int j = 0; j < value.length(); j++) {
+                byte b = value.byteAt(j);
+                expectedLower[j] = b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+                expectedUpper[j] = b >= 'a' && b <= 'z' ? (byte) (b - 32) : b;
+            }
+            assertArrayEquals(expectedLower, value.toLowerCase().toByteArray());
+            assertArrayEquals(expectedUpper, value.toUpperCase().toByteArray());
+            assertTrue(value.contentEqualsIgnoreCase(value.toUpperCase()));
+            assertTrue(value.toLowerCase().contentEqualsIgnoreCase(value));
+        }
+        AsciiString lower = new AsciiString("content-type: application/json; charset=utf-8");
+        assertSame(lower, lower.toLowerCase());
+    }
+
     @Test
     public void testIndexOfIgnoreCase() {
         assertEquals(-1, AsciiString.indexOfIgnoreCase(null, "abc", 1));
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SWARUtilTest {
+
+    private static final Random RANDOM = new Random();
+
+    private static long word(byte[] bytes) {
+        long word = 0;
+        for (byte b : bytes) {
+            word = word << 8 | b & 0xFF;
+        }
+        return word;
+    }
+
+    @Test
+    public void testApplyPatternFindsFirstMatch() {
+        for (int b = Byte.MIN_VALUE; b <= Byte.MAX_VALUE; b++) {
+            byte value = (byte) b;
+            long pattern = SWARUtil.compilePattern(value);
+            for (int i = 0; i < 8; i++) {
+                byte[] bytes = new byte[8];
+                for (int j = 0; j < 8; j++) {
+                    bytes[j] = (byte) (value + 1 + j);
+                }
+                bytes[i] = value;
+                // Duplicate after the first match must not change the result.
+                bytes[7] = value;
+                long word = word(bytes);
+                assertEquals(i, SWARUtil.getIndex(SWARUtil.applyPattern(word, pattern), true));
+                assertEquals(i, SWARUtil.getIndex(SWARUtil.applyPattern(Long.reverseBytes(word), pattern), false));
+            }
+        }
+    }
+
+    @Test
+    public void testApplyPatternNoMatch() {
+        long pattern = SWARUtil.compilePattern((byte) '\n');
+        assertEquals(0, SWARUtil.applyPattern(word("abcdefgh".getBytes()), pattern));
+        assertEquals(0, SWARUtil.applyPattern(word(new byte[] { 11, 9, 11, 9, 11, 9, -118, 0 }), pattern));
+    }
+
+    @Test
+    public void testContainsNonAscii() {
+        assertEquals(false, SWARUtil.containsNonAscii(word("abcdefgh".getBytes())));
+        assertEquals(true, SWARUtil.containsNonAscii(word(new byte[] { 'a', 'b', 'c', 'd', 'e', 'f', 'g', -1 })));
+    }
+
+    @Test
+    public void testCaseConversion() {
+        byte[] bytes = new byte[8];
+        for (int i = 0; i < 1000; i++) {
+            RANDOM.nextBytes(bytes);
+            long word = word(bytes);
+            byte[] lower = new byte[8];
+            byte[] upper = new byte[8];
+            for (int j = 0; j < 8; j++) {
+                byte b = bytes[j];
+                lower[j] = b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+                upper[j] = b >= 'a' && b <= 'z' ? (byte) (b - 32) : b;
+            }
+            assertEquals(word(lower), SWARUtil.toLowerCase(word));
+            assertEquals(word(upper), SWARUtil.toUpperCase(word));
+        }
+        assertEquals(word("@az[`az{".getBytes()), SWARUtil.toLowerCase(word("@AZ[`az{".getBytes())));
+        assertEquals(word("@AZ[`AZ{".getBytes()), SWARUtil.toUpperCase(word("@AZ[`az{".getBytes())));
+    }
+}
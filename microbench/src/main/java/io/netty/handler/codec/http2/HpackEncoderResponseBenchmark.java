@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.AsciiString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes the same gRPC style response headers over and over on a single long lived encoder, like a connection that
+ * serves many requests does.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HpackEncoderResponseBenchmark extends AbstractMicrobenchmark {
+
+    public enum EncodingMode {
+        /**
+         * Every field is looked up in the static and dynamic table.
+         */
+        UNCACHED,
+        /**
+         * Repeated header blocks are copied from the per-connection cache.
+         */
+        CACHED,
+        /**
+         * The headers carry a connection independent encoding created by {@link ReadOnlyHttp2Headers#preEncoded()}.
+         */
+        PRE_ENCODED
+    }
+
+    @Param
+    public EncodingMode mode;
+
+    private HpackEncoder encoder;
+    private Http2Headers headers;
+    private ByteBuf output;
+
+    @Setup(Level.Trial)
+    public void setup() throws Http2Exception {
+        encoder = new HpackEncoder(false, 16, HpackEncoder.HUFF_CODE_THRESHOLD,
+                mode == EncodingMode.UNCACHED ? 0 : HpackEncoder.DEFAULT_BLOCK_CACHE_SIZE);
+        ReadOnlyHttp2Headers responseHeaders = ReadOnlyHttp2Headers.serverHeaders(false, AsciiString.of("200"),
+                AsciiString.of("content-type"), AsciiString.of("application/grpc"),
+                AsciiString.of("grpc-encoding"), AsciiString.of("identity"),
+                AsciiString.of("grpc-accept-encoding"), AsciiString.of("gzip"),
+                AsciiString.of("server"), AsciiString.of("netty-grpc-gateway"));
+        headers = mode == EncodingMode.PRE_ENCODED ? responseHeaders.preEncoded() : responseHeaders;
+        output = Unpooled.buffer(256);
+        // Warm up the dynamic table so the measured blocks are the steady state of a connection.
+        encode();
+        encode();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        output.release();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int encode() throws Http2Exception {
+        output.clear();
+        encoder.encodeHeaders(3, output, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+        return output.readableBytes();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int staticTableLookup() {
+        return HpackStaticTable.getIndexInsensitive(Http2Headers.PseudoHeaderName.STATUS.value(), "200") +
+                HpackStaticTable.getIndex("content-type") + HpackStaticTable.getIndex("grpc-encoding");
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.AsciiString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes Huffman coded header values as browsers and gRPC clients send them, with the byte table and with the
+ * nibble table of {@link HpackHuffmanDecoder}.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HpackHuffmanDecoderBenchmark extends AbstractMicrobenchmark {
+
+    public enum Corpus {
+        PATH("/", "/index.html", "/api/v1/users/12345/orders?page=2&sort=desc",
+                "/helloworld.Greeter/SayHello", "/grpc.health.v1.Health/Check",
+                "/static/js/main.3f4c2a1b.chunk.js", "/search?q=netty+http2+hpack&hl=en&source=hp"),
+        COOKIE("_ga=GA1.2.1234567890.1580000000; _gid=GA1.2.987654321.1580000000",
+                "SESSIONID=8f14e45fceea167a5a36dedd4bea2543; lang=en-US; theme=dark",
+                "csrftoken=Yx7Qp2LmN9vB4kR8sT1wZ3cF6hJ0dG5a; sessionid=q1w2e3r4t5y6u7i8o9p0; " +
+                        "consent=1; tz=Europe%2FBerlin"),
+        USER_AGENT("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) " +
+                        "Chrome/79.0.3945.130 Safari/537.36",
+                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_2) AppleWebKit/605.1.15 (KHTML, like Gecko) " +
+                        "Version/13.0.4 Safari/605.1.15",
+                "grpc-java-netty/1.27.0", "curl/7.68.0");
+
+        final String[] values;
+
+        Corpus(String... values) {
+            this.values = values;
+        }
+    }
+
+    @Param
+    public Corpus corpus;
+
+    @Param({ "true", "false" })
+    public boolean byteTable;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    private HpackHuffmanDecoder decoder;
+    private ByteBuf[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        decoder = new HpackHuffmanDecoder(byteTable);
+        HpackHuffmanEncoder encoder = new HpackHuffmanEncoder();
+        encoded = new ByteBuf[corpus.values.length];
+        for (int i = 0; i < encoded.length; i++) {
+            ByteBuf buf = direct ? Unpooled.directBuffer() : Unpooled.buffer();
+            encoder.encode(buf, AsciiString.of(corpus.values[i]));
+            encoded[i] = buf;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (ByteBuf buf : encoded) {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void decode(Blackhole bh) throws Http2Exception {
+        for (ByteBuf buf : encoded) {
+            int readerIndex = buf.readerIndex();
+            bh.consume(decoder.decode(buf, buf.readableBytes()));
+            buf.readerIndex(readerIndex);
+        }
+    }
+}
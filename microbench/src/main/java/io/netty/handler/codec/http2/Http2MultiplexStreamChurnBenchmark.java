@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.AsciiString;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens and closes one stream per invocation on a server side {@link Http2MultiplexHandler}: the client sends a
+ * HEADERS frame with END_STREAM set and the child channel answers with headers that end the stream, so every stream
+ * goes through the full child channel life cycle.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class Http2MultiplexStreamChurnBenchmark extends AbstractMicrobenchmark {
+
+    private static final byte[] EMPTY_SETTINGS = { 0, 0, 0, 0x4, 0, 0, 0, 0, 0 };
+
+    private static final Http2Headers RESPONSE_HEADERS = ReadOnlyHttp2Headers.serverHeaders(false,
+            AsciiString.of("200")).preEncoded();
+
+    private byte[] requestHeaderBlock;
+    private EmbeddedChannel channel;
+    private int streamId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        requestHeaderBlock = HpackEncoder.encodeStateless(ReadOnlyHttp2Headers.clientHeaders(false,
+                AsciiString.of("GET"), AsciiString.of("/"), AsciiString.of("https"),
+                AsciiString.of("example.com")));
+        newChannel();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void openAndCloseStream() {
+        if (streamId > Integer.MAX_VALUE - 2) {
+            // Stream ids can not be reused on a connection, so start a new one once they are exhausted.
+            channel.finishAndReleaseAll();
+            newChannel();
+        }
+        channel.writeInbound(headersFrame(streamId));
+        streamId += 2;
+        channel.releaseOutbound();
+    }
+
+    private void newChannel() {
+        channel = new EmbeddedChannel(Http2FrameCodecBuilder.forServer().build(),
+                new Http2MultiplexHandler(ResponseHandler.INSTANCE));
+        channel.writeInbound(Http2CodecUtil.connectionPrefaceBuf(), Unpooled.wrappedBuffer(EMPTY_SETTINGS));
+        channel.releaseOutbound();
+        streamId = 3;
+    }
+
+    private ByteBuf headersFrame(int streamId) {
+        int length = requestHeaderBlock.length;
+        ByteBuf frame = channel.alloc().buffer(Http2CodecUtil.FRAME_HEADER_LENGTH + length);
+        frame.writeMedium(length);
+        frame.writeByte(Http2FrameTypes.HEADERS);
+        frame.writeByte(Http2Flags.END_STREAM | Http2Flags.END_HEADERS);
+        frame.writeInt(streamId);
+        return frame.writeBytes(requestHeaderBlock);
+    }
+
+    @Sharable
+    private static final class ResponseHandler extends ChannelInboundHandlerAdapter {
+        static final ResponseHandler INSTANCE = new ResponseHandler();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof Http2HeadersFrame) {
+                ctx.writeAndFlush(new DefaultHttp2HeadersFrame(RESPONSE_HEADERS, true));
+            }
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
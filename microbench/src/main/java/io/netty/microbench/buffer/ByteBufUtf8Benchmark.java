@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encodes and decodes UTF-8 {@link String}s of different scripts from / to heap and direct {@link ByteBuf}s.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ByteBufUtf8Benchmark extends AbstractMicrobenchmark {
+
+    public enum Payload {
+        ASCII("GET /api/v1/resources?id=42&sort=desc HTTP/1.1 application/json; charset=utf-8 "),
+        LATIN("Größenmaßstäbe für Übergänge à la française, señor! Ça coûte très cher. "),
+        CJK("网络应用程序框架用于快速开发可维护的高性能协议服务器和客户端。非同期イベント駆動型 ");
+
+        private final String text;
+
+        Payload(String text) {
+            this.text = text;
+        }
+    }
+
+    @Param
+    public Payload payload;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    @Param({ "16", "256" })
+    public int repeats;
+
+    private String text;
+    private ByteBuf encoded;
+    private ByteBuf buffer;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < repeats; i++) {
+            sb.append(payload.text);
+        }
+        text = sb.toString();
+        byte[] bytes = text.getBytes(CharsetUtil.UTF_8);
+        encoded = direct ? Unpooled.directBuffer(bytes.length) : Unpooled.buffer(bytes.length);
+        encoded.writeBytes(bytes);
+        int maxBytes = ByteBufUtil.utf8MaxBytes(text);
+        buffer = direct ? Unpooled.directBuffer(maxBytes) : Unpooled.buffer(maxBytes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoded.release();
+        buffer.release();
+    }
+
+    @Benchmark
+    public int writeUtf8() {
+        buffer.clear();
+        return ByteBufUtil.writeUtf8(buffer, text);
+    }
+
+    @Benchmark
+    public ByteBuf writeUtf8ViaArray() {
+        buffer.clear();
+        return buffer.writeBytes(text.getBytes(CharsetUtil.UTF_8));
+    }
+
+    @Benchmark
+    public String decodeUtf8() {
+        return encoded.toString(CharsetUtil.UTF_8);
+    }
+
+    @Benchmark
+    public boolean isTextUtf8() {
+        return ByteBufUtil.isText(encoded, CharsetUtil.UTF_8);
+    }
+}
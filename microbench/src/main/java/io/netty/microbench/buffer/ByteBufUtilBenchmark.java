@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ByteProcessor;
 import io.netty.util.CharsetUtil;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Measurement;
@@ -38,6 +39,9 @@ public class
     private ByteBuf wrapped;
     private ByteBuf asciiBuffer;
     private ByteBuf utf8Buffer;
+    private ByteBuf headerBuffer;
+    private ByteBuf directHeaderBuffer;
+    private ByteBuf crlfCrlf;
 
     private StringBuilder asciiSequence;
     private String ascii;
@@ -67,6 +71,20 @@ public class
 
         asciiBuffer = Unpooled.copiedBuffer(ascii, CharsetUtil.US_ASCII);
         utf8Buffer = Unpooled.copiedBuffer(utf8, CharsetUtil.UTF_8);
+
+        // A typical block of request headers in which we search for line and header terminators.
+        String headers = "Host: www.example.com\r\n" +
+                "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:72.0) Gecko/20100101 Firefox/72.0\r\n" +
+                "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8\r\n" +
+                "Accept-Language: en-US,en;q=0.5\r\n" +
+                "Accept-Encoding: gzip, deflate, br\r\n" +
+                "Connection: keep-alive\r\n" +
+                "Cookie: session=3c0a5b2d7e6f4a8b9c1d2e3f4a5b6c7d; theme=dark; lang=en\r\n" +
+                "\r\n";
+        headerBuffer = Unpooled.copiedBuffer(headers, CharsetUtil.US_ASCII);
+        directHeaderBuffer = Unpooled.directBuffer(headerBuffer.readableBytes()).writeBytes(headerBuffer, 0,
+                headerBuffer.readableBytes());
+        crlfCrlf = Unpooled.copiedBuffer("\r\n\r\n", CharsetUtil.US_ASCII);
     }
 
     @TearDown
@@ -75,6 +93,9 @@ public class
         wrapped.release();
         asciiBuffer.release();
         utf8Buffer.release();
+        headerBuffer.release();
+        directHeaderBuffer.release();
+        crlfCrlf.release();
     }
 
     @Benchmark
@@ -182,4 +203,56 @@ public class
     public String decodeStringUtf8() {
         return utf8Buffer.toString(CharsetUtil.UTF_8);
     }
+
+    @Benchmark
+    public int indexOfLineFeedHeap() {
+        return scanLines(headerBuffer);
+    }
+
+    @Benchmark
+    public int indexOfLineFeedDirect() {
+        return scanLines(directHeaderBuffer);
+    }
+
+    @Benchmark
+    public int forEachByteFindLineFeedHeap() {
+        return scanLinesWithProcessor(headerBuffer);
+    }
+
+    @Benchmark
+    public int forEachByteFindLineFeedDirect() {
+        return scanLinesWithProcessor(directHeaderBuffer);
+    }
+
+    @Benchmark
+    public int indexOfDelimiter() {
+        return ByteBufUtil.indexOf(crlfCrlf, headerBuffer);
+    }
+
+    @Benchmark
+    public boolean isTextAscii() {
+        return ByteBufUtil.isText(headerBuffer, CharsetUtil.US_ASCII);
+    }
+
+    private static int scanLines(ByteBuf buffer) {
+        int lines = 0;
+        int writerIndex = buffer.writerIndex();
+        int i = buffer.indexOf(buffer.readerIndex(), writerIndex, (byte) '\n');
+        while (i != -1) {
+            lines++;
+            i = buffer.indexOf(i + 1, writerIndex, (byte) '\n');
+        }
+        return lines;
+    }
+
+    private static int scanLinesWithProcessor(ByteBuf buffer) {
+        int lines = 0;
+        int writerIndex = buffer.writerIndex();
+        int i = buffer.forEachByte(ByteProcessor.FIND_LF);
+        while (i != -1) {
+            lines++;
+            i = buffer.forEachByte(i + 1, writerIndex - i - 1, ByteProcessor.FIND_LF);
+        }
+        return lines;
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * Appends many small chunks to a {@link CompositeByteBuf} (like a streaming aggregation would do) and reads from
+ * random offsets of a {@link CompositeByteBuf} with many components.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class CompositeByteBufBenchmark extends AbstractMicrobenchmark {
+
+    private static final ByteBufAllocator ALLOC = PooledByteBufAllocator.DEFAULT;
+
+    @Param({ "100", "10000" })
+    public int components;
+
+    @Param({ "16", "1024", "2147483647" })
+    public int maxNumComponents;
+
+    @Param({ "64" })
+    public int chunkSize;
+
+    private ByteBuf chunk;
+    private CompositeByteBuf composite;
+    private int[] offsets;
+    private int offsetIndex;
+
+    @Setup
+    public void setup() {
+        chunk = ALLOC.directBuffer(chunkSize).writeZero(chunkSize);
+        composite = ALLOC.compositeDirectBuffer(Integer.MAX_VALUE);
+        for (int i = 0; i < components; i++) {
+            composite.addComponent(true, chunk.retainedDuplicate());
+        }
+        Random random = new Random(42);
+        offsets = new int[1024];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = random.nextInt(composite.readableBytes() - 8);
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        chunk.release();
+        composite.release();
+    }
+
+    @Benchmark
+    public int append() {
+        CompositeByteBuf buf = ALLOC.compositeDirectBuffer(maxNumComponents);
+        for (int i = 0; i < components; i++) {
+            buf.addComponent(true, chunk.retainedDuplicate());
+        }
+        int numComponents = buf.numComponents();
+        buf.release();
+        return numComponents;
+    }
+
+    @Benchmark
+    public int appendAndDiscard() {
+        CompositeByteBuf buf = ALLOC.compositeDirectBuffer(maxNumComponents);
+        for (int i = 0; i < components; i++) {
+            buf.addComponent(true, chunk.retainedDuplicate());
+            if ((i & 15) == 15) {
+                // Consume some data like a decoder would do and give back what was read.
+                buf.skipBytes(chunkSize * 12);
+                buf.discardReadComponents();
+            }
+        }
+        int numComponents = buf.numComponents();
+        buf.release();
+        return numComponents;
+    }
+
+    @Benchmark
+    public long randomRead() {
+        int[] offsets = this.offsets;
+        int i = offsetIndex++ & offsets.length - 1;
+        return composite.getLong(offsets[i]);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.headers;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.AsciiString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the case insensitive operations of {@link AsciiString} that are used for every header lookup, using
+ * the names and values of {@link ExampleHeaders}.
+ */
+@Threads(1)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class AsciiStringCaseBenchmark extends AbstractMicrobenchmark {
+
+    @Param
+    ExampleHeaders.HeaderExample exampleHeader;
+
+    AsciiString[] names;
+    AsciiString[] upperCaseNames;
+    AsciiString[] values;
+    String[] stringNames;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Map<String, String> headers = ExampleHeaders.EXAMPLES.get(exampleHeader);
+        names = new AsciiString[headers.size()];
+        upperCaseNames = new AsciiString[headers.size()];
+        values = new AsciiString[headers.size()];
+        stringNames = new String[headers.size()];
+        int idx = 0;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            String name = header.getKey();
+            // Use distinct arrays so that the identity short cut is never taken.
+            names[idx] = new AsciiString(name.toLowerCase(Locale.US));
+            upperCaseNames[idx] = new AsciiString(name.toUpperCase(Locale.US));
+            values[idx] = new AsciiString(header.getValue());
+            stringNames[idx] = name;
+            idx++;
+        }
+    }
+
+    @Benchmark
+    public void contentEqualsIgnoreCase(Blackhole bh) {
+        for (int i = 0; i < names.length; i++) {
+            bh.consume(names[i].contentEqualsIgnoreCase(upperCaseNames[i]));
+        }
+    }
+
+    @Benchmark
+    public void contentEqualsIgnoreCaseString(Blackhole bh) {
+        for (int i = 0; i < names.length; i++) {
+            bh.consume(upperCaseNames[i].contentEqualsIgnoreCase(stringNames[i]));
+        }
+    }
+
+    @Benchmark
+    public void toLowerCase(Blackhole bh) {
+        for (AsciiString name : upperCaseNames) {
+            bh.consume(name.toLowerCase());
+        }
+    }
+
+    @Benchmark
+    public void toLowerCaseAlreadyLower(Blackhole bh) {
+        for (AsciiString name : names) {
+            bh.consume(name.toLowerCase());
+        }
+    }
+
+    @Benchmark
+    public void toUpperCaseValues(Blackhole bh) {
+        for (AsciiString value : values) {
+            bh.consume(value.toUpperCase());
+        }
+    }
+
+    @Benchmark
+    public void hashCodeString(Blackhole bh) {
+        for (String name : stringNames) {
+            bh.consume(AsciiString.hashCode(name));
+        }
+    }
+
+    @Benchmark
+    public void hashCodeAsciiString(Blackhole bh) {
+        for (AsciiString value : values) {
+            // Reset the cached hash code so we actually measure the computation.
+            value.arrayChanged();
+            bh.consume(value.hashCode());
+        }
+    }
+}
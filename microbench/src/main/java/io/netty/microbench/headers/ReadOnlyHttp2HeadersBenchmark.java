@@ -15,11 +15,17 @@
  */
 package io.netty.microbench.headers;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpScheme;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersDecoder;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersEncoder;
+import io.netty.handler.codec.http2.Http2Exception;
 import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersDecoder;
 import io.netty.handler.codec.http2.ReadOnlyHttp2Headers;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.AsciiString;
@@ -33,6 +39,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
@@ -41,6 +48,8 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE;
+
 @Threads(1)
 @State(Scope.Benchmark)
 @Fork(2)
@@ -50,6 +59,9 @@ import java.util.concurrent.TimeUnit;
 public class ReadOnlyHttp2HeadersBenchmark extends AbstractMicrobenchmark {
     private AsciiString[] headerNames;
     private AsciiString[] headerValues;
+    private ByteBuf encodedClientHeaders;
+    private Http2HeadersDecoder defaultDecoder;
+    private Http2HeadersDecoder readOnlyDecoder;
 
     @Param({ "1", "5", "10", "20" })
     public int headerCount;
@@ -65,6 +77,18 @@ public class ReadOnlyHttp2HeadersBenchmark extends AbstractMicrobenchmark {
             headerNames[i] = new AsciiString("key-" + i);
             headerValues[i] = new AsciiString(UUID.randomUUID().toString());
         }
+
+        Http2Headers clientHeaders = ReadOnlyHttp2Headers.clientHeaders(false, HttpMethod.POST.asciiName(), path,
+                HttpScheme.HTTPS.name(), authority, buildPairs());
+        encodedClientHeaders = Unpooled.buffer();
+        new DefaultHttp2HeadersEncoder().encodeHeaders(1, clientHeaders, encodedClientHeaders);
+        defaultDecoder = new DefaultHttp2HeadersDecoder(true, DEFAULT_HEADER_LIST_SIZE);
+        readOnlyDecoder = new DefaultHttp2HeadersDecoder(true, DEFAULT_HEADER_LIST_SIZE, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        encodedClientHeaders.release();
     }
 
     @Benchmark
@@ -121,6 +145,27 @@ public class ReadOnlyHttp2HeadersBenchmark extends AbstractMicrobenchmark {
         iterate(ReadOnlyHttp2Headers.serverHeaders(false, HttpResponseStatus.OK.codeAsText(), buildPairs()), bh);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void defaultDecodeClientHeaders(Blackhole bh) throws Http2Exception {
+        lookupPathAndAuthority(defaultDecoder, bh);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void readOnlyDecodeClientHeaders(Blackhole bh) throws Http2Exception {
+        lookupPathAndAuthority(readOnlyDecoder, bh);
+    }
+
+    /**
+     * Decodes the client headers and only looks at the headers a proxy typically routes on.
+     */
+    private void lookupPathAndAuthority(Http2HeadersDecoder decoder, Blackhole bh) throws Http2Exception {
+        Http2Headers headers = decoder.decodeHeaders(1, encodedClientHeaders.readerIndex(0));
+        bh.consume(headers.path());
+        bh.consume(headers.authority());
+    }
+
     private static void iterate(Http2Headers headers, Blackhole bh) {
         for (Map.Entry<CharSequence, CharSequence> entry : headers) {
             bh.consume(entry);
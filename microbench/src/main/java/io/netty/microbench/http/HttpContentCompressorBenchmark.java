@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of gzip compressing small response bodies with a fresh {@link HttpContentCompressor} per
+ * connection, with and without the per-thread {@link java.util.zip.Deflater} pool.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class HttpContentCompressorBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "1024", "4096", "16384" })
+    public int bodySize;
+
+    private ByteBuf body;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder(bodySize + 64);
+        sb.append('[');
+        for (int i = 0; sb.length() < bodySize; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i)
+              .append("\",\"active\":").append(i % 3 == 0).append("},");
+        }
+        sb.setLength(bodySize - 1);
+        sb.append(']');
+        body = Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer(bodySize).writeBytes(sb.toString().getBytes(CharsetUtil.US_ASCII)));
+    }
+
+    @TearDown
+    public void teardown() {
+        body.unwrap().release();
+    }
+
+    @Benchmark
+    public int compress() {
+        return compress0();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dio.netty.zlib.maxPooled=0")
+    public int compressWithoutPooling() {
+        return compress0();
+    }
+
+    private int compress0() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpContentCompressor());
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderValues.GZIP);
+        channel.writeInbound(request);
+        ReferenceCountUtil.release(channel.readInbound());
+
+        DefaultFullHttpResponse response = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK, body.duplicate());
+        HttpUtil.setContentLength(response, bodySize);
+        channel.writeOutbound(response);
+
+        int size = 0;
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            if (msg instanceof HttpContent) {
+                size += ((HttpContent) msg).content().readableBytes();
+            }
+            ReferenceCountUtil.release(msg);
+        }
+        channel.finishAndReleaseAll();
+        return size;
+    }
+}
@@ -22,19 +22,24 @@ import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpRequestEncoder;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.ReadOnlyHttpHeaders;
 import io.netty.microbench.channel.EmbeddedChannelWriteReleaseHandlerContext;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -49,6 +54,9 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 
+import java.util.Iterator;
+import java.util.Map;
+
 @State(Scope.Benchmark)
 @Fork(1)
 @Threads(1)
@@ -62,6 +70,11 @@ public class HttpObjectEncoderBenchmark extends AbstractMicrobenchmark {
     private HttpRequest chunkedRequest;
     private ByteBuf content;
     private ChannelHandlerContext context;
+    private HttpResponseEncoder responseEncoder;
+    private ChannelHandlerContext responseContext;
+    private HttpHeaders apiResponseHeaders;
+    private FullHttpResponse apiResponse;
+    private FullHttpResponse readOnlyHeadersResponse;
 
     @Param({ "true", "false" })
     public boolean pooledAllocator;
@@ -95,6 +108,40 @@ public class HttpObjectEncoderBenchmark extends AbstractMicrobenchmark {
                 handleUnexpectedException(t);
             }
         };
+
+        // A typical API response where most of the headers are the same for every response.
+        apiResponseHeaders = new DefaultHttpHeaders(false);
+        apiResponseHeaders.add(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        apiResponseHeaders.add(HttpHeaderNames.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
+        apiResponseHeaders.add(HttpHeaderNames.SERVER, "netty");
+        apiResponseHeaders.add(HttpHeaderNames.VARY, "Accept-Encoding, Origin");
+        apiResponseHeaders.add(HttpHeaderNames.X_FRAME_OPTIONS, "DENY");
+        apiResponseHeaders.add("strict-transport-security", "max-age=31536000; includeSubDomains");
+        apiResponseHeaders.add("x-content-type-options", "nosniff");
+        apiResponseHeaders.add(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, "https://www.example.com");
+        apiResponseHeaders.add(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(testContent.readableBytes()));
+        apiResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, testContent,
+                apiResponseHeaders, EmptyHttpHeaders.INSTANCE);
+
+        CharSequence[] nameValuePairs = new CharSequence[apiResponseHeaders.size() * 2];
+        int i = 0;
+        for (Iterator<Map.Entry<CharSequence, CharSequence>> iter = apiResponseHeaders.iteratorCharSequence();
+             iter.hasNext();) {
+            Map.Entry<CharSequence, CharSequence> header = iter.next();
+            nameValuePairs[i++] = header.getKey();
+            nameValuePairs[i++] = header.getValue();
+        }
+        readOnlyHeadersResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                testContent, new ReadOnlyHttpHeaders(false, nameValuePairs), EmptyHttpHeaders.INSTANCE);
+
+        responseEncoder = new HttpResponseEncoder();
+        responseContext = new EmbeddedChannelWriteReleaseHandlerContext(pooledAllocator ?
+                PooledByteBufAllocator.DEFAULT : UnpooledByteBufAllocator.DEFAULT, responseEncoder) {
+            @Override
+            protected void handleException(Throwable t) {
+                handleUnexpectedException(t);
+            }
+        };
     }
 
     @TearDown(Level.Trial)
@@ -120,7 +167,23 @@ public class HttpObjectEncoderBenchmark extends AbstractMicrobenchmark {
         encoder.write(context, lastContent, newPromise());
     }
 
+    @Benchmark
+    public void apiResponse() throws Exception {
+        // Like for a real response the content-length is a new value every time.
+        apiResponseHeaders.set(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(apiResponse.content().readableBytes()));
+        responseEncoder.write(responseContext, apiResponse, newPromise(responseContext));
+    }
+
+    @Benchmark
+    public void readOnlyHeadersResponse() throws Exception {
+        responseEncoder.write(responseContext, readOnlyHeadersResponse, newPromise(responseContext));
+    }
+
     private ChannelPromise newPromise() {
+        return newPromise(context);
+    }
+
+    private ChannelPromise newPromise(ChannelHandlerContext context) {
         return voidPromise ? context.voidPromise() : context.newPromise();
     }
 }
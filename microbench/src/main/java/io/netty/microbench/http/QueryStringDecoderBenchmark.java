@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http;
+
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reads two parameters of a URI that carries many, via {@link QueryStringDecoder#parameters()} and via
+ * {@link QueryStringDecoder#parameter(String)}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class QueryStringDecoderBenchmark extends AbstractMicrobenchmark {
+
+    private String uri;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("/api/v1/items?");
+        for (int i = 0; i < 24; i++) {
+            sb.append("param").append(i).append('=').append("value%20").append(i).append('&');
+        }
+        sb.append("id=42");
+        uri = sb.toString();
+    }
+
+    @Benchmark
+    public void parametersMap(Blackhole bh) {
+        QueryStringDecoder decoder = new QueryStringDecoder(uri);
+        bh.consume(decoder.parameters().get("param3").get(0));
+        bh.consume(decoder.parameters().get("id").get(0));
+    }
+
+    @Benchmark
+    public void parameter(Blackhole bh) {
+        QueryStringDecoder decoder = new QueryStringDecoder(uri);
+        bh.consume(decoder.parameter("param3"));
+        bh.consume(decoder.parameter("id"));
+    }
+}
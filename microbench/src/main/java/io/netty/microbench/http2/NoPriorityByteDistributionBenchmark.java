@@ -16,6 +16,7 @@ package io.netty.microbench.http2;
 
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.DeficitRoundRobinStreamByteDistributor;
 import io.netty.handler.codec.http2.DefaultHttp2Connection;
 import io.netty.handler.codec.http2.DefaultHttp2RemoteFlowController;
 import io.netty.handler.codec.http2.Http2Connection;
@@ -50,10 +51,11 @@ import org.openjdk.jmh.annotations.Threads;
 public class NoPriorityByteDistributionBenchmark extends AbstractMicrobenchmark {
     public enum Algorithm {
         WFQ,
-        UNIFORM
+        UNIFORM,
+        DRR
     }
 
-    @Param({ "100", "10000" })
+    @Param({ "10", "1000", "10000" })
     private int numStreams;
 
     @Param({ "1024", "65536", "1048576" })
@@ -128,6 +130,9 @@ public class NoPriorityByteDistributionBenchmark extends AbstractMicrobenchmark
             case UNIFORM:
                 distributor = new UniformStreamByteDistributor(connection);
                 break;
+            case DRR:
+                distributor = new DeficitRoundRobinStreamByteDistributor(connection);
+                break;
         }
         controller = new DefaultHttp2RemoteFlowController(connection, new ByteCounter(distributor));
         connection.remote().flowController(controller);
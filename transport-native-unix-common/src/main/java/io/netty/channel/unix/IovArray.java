@@ -16,6 +16,8 @@
 package io.netty.channel.unix;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.CompositeByteBuf.ComponentProcessor;
 import io.netty.channel.ChannelOutboundBuffer.MessageProcessor;
 import io.netty.util.internal.PlatformDependent;
 
@@ -43,7 +45,7 @@ import static java.lang.Math.min;
  * <a href="http://rkennke.wordpress.com/2007/07/30/efficient-jni-programming-iv-wrapping-native-data-objects/"
  * >Efficient JNI programming IV: Wrapping native data objects</a>.
  */
-public final class IovArray implements MessageProcessor {
+public final class IovArray implements MessageProcessor, ComponentProcessor {
 
     /** The size of an address which should be 8 for 64 bits and 4 for 32 bits. */
     private static final int ADDRESS_SIZE = Buffer.addressSize();
@@ -88,6 +90,10 @@ public final class IovArray implements MessageProcessor {
         if (count == IOV_MAX) {
             // No more room!
             return false;
+        } else if (buf instanceof CompositeByteBuf) {
+            // Add the memory of the components directly, this neither needs to count the nio buffers upfront nor
+            // to create any ByteBuffer.
+            return ((CompositeByteBuf) buf).forEachComponent(offset, len, this);
         } else if (buf.nioBufferCount() == 1) {
             if (len == 0) {
                 return true;
@@ -212,6 +218,11 @@ public final class IovArray implements MessageProcessor {
         return false;
     }
 
+    @Override
+    public boolean processComponent(ByteBuf buf, int index, int length) {
+        return add(buf, index, length);
+    }
+
     private static int idx(int index) {
         return IOV_SIZE * index;
     }